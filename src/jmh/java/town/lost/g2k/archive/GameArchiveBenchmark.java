@@ -0,0 +1,108 @@
+package town.lost.g2k.archive;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import town.lost.g2k.model.BoardPositions;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encode and decode throughput of the game archive, per move.
+ * <p>
+ * The setup plays {@code games} seeded games of random moves to the end and prints the archive's
+ * size in bits per move. Each benchmark handles every move once per operation, so the reported
+ * throughput is moves per microsecond. Run with {@code mvn -B -Pjmh verify -Djmh.includes=GameArchive}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameArchiveBenchmark {
+
+    @Param({"4x4", "5x5"})
+    public String size;
+
+    @Param({"2000"})
+    public int games;
+
+    private GameRecord[] records;
+    private Path file;
+    private Path scratch;
+    private ArchiveReader reader;
+    private long moves;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[] xy = BoardPositions.parseSize(size);
+        GameConfig config = TestGames.config(xy[0], xy[1], Integer.MAX_VALUE, false);
+
+        records = new GameRecord[games];
+        moves = 0;
+        for (int seed = 0; seed < games; seed++) {
+            GameBoard board = new GameBoard(config, seed);
+            GameRecord game = GameRecord.startOf(board);
+            TestGames.playRandom(board, seed, dir -> game.addMove(dir, board));
+            records[seed] = game;
+            moves += game.getMoveCount();
+        }
+
+        file = Files.createTempFile("g2k-archive", ".g2ka");
+        scratch = Files.createTempFile("g2k-archive", ".g2ka");
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config)) {
+            for (GameRecord game : records) {
+                writer.write(game);
+            }
+        }
+        long bytes = Files.size(file);
+        System.out.printf("%n%s: %d games, %d moves, %d bytes, %.2f bits per move%n",
+                size, games, moves, bytes, bytes * 8.0 / moves);
+        reader = ArchiveReader.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(scratch);
+    }
+
+    /**
+     * Moves per operation, for converting operations per microsecond to moves per microsecond.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Moves {
+        public long moves;
+    }
+
+    @Benchmark
+    public void encode(Moves counter) throws IOException {
+        try (ArchiveWriter writer = ArchiveWriter.create(scratch, reader.getConfig())) {
+            for (GameRecord game : records) {
+                writer.write(game);
+            }
+        }
+        counter.moves += moves;
+    }
+
+    @Benchmark
+    public void decode(Moves counter, Blackhole blackhole) {
+        reader.forEach(game -> blackhole.consume(game.getScore()));
+        counter.moves += moves;
+    }
+
+    @Benchmark
+    public void decodeParallel(Moves counter) {
+        LongAdder score = new LongAdder();
+        reader.parallelForEach(game -> score.add(game.getScore()));
+        counter.moves += moves;
+    }
+}
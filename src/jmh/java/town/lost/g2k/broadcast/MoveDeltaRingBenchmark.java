@@ -0,0 +1,80 @@
+package town.lost.g2k.broadcast;
+
+import org.openjdk.jmh.annotations.*;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.view.NullGameView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of keeping {@code spectators} spectators up to date with one game, per move:
+ * each polling {@code getBoard()}, against each polling its cursor on a MoveDeltaRing.
+ * <p>
+ * Both run on one thread, so the scores are the total work per move rather than latency.
+ * With {@code -prof gc}, polling allocates a board copy per spectator per move, and the ring nothing per
+ * spectator. Run with {@code mvn -B -Pjmh verify -Djmh.includes=MoveDeltaRing}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveDeltaRingBenchmark {
+
+    @Param({"1", "100"})
+    public int spectators;
+
+    private GameBoard model;
+    private GameController controller;
+    private Spectator[] followers;
+    private int moves;
+
+    @Setup
+    public void setUp() {
+        GameConfig config = new GameConfig();
+        config.setHighScoreFilePath(null);
+        model = new GameBoard(config, 1L);
+        controller = new GameController(model, config);
+        MoveDeltaRing ring = new MoveDeltaRing(model, 1024);
+        controller.addChangeListener(ring);
+        controller.setView(new NullGameView());
+        controller.startGame();
+        followers = new Spectator[spectators];
+        for (int i = 0; i < spectators; i++) {
+            followers[i] = ring.newSpectator(WaitStrategy.BUSY_SPIN);
+        }
+    }
+
+    private void move() {
+        if (model.isGameOver()) {
+            controller.resetGame();
+        } else {
+            controller.onUserMove(Direction.values()[moves++ & 3]);
+        }
+    }
+
+    @Benchmark
+    public int pollGetBoard() {
+        move();
+        int sum = 0;
+        for (int i = 0; i < spectators; i++) {
+            sum += model.getBoard()[0][0] + model.getScore();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int ringSpectators() {
+        move();
+        int sum = 0;
+        for (Spectator spectator : followers) {
+            spectator.poll();
+            sum += spectator.getTile(0, 0) + spectator.getScore();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,83 @@
+package town.lost.g2k.controller;
+
+import org.openjdk.jmh.annotations.*;
+import town.lost.g2k.model.BatchResult;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.view.NullGameView;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One seeded game of random moves, played to the end move by move and as a batch,
+ * through GameController and on the bare GameBoard.
+ * <p>
+ * Every operation starts a new game with the same seed and plays the same directions, so the
+ * four benchmarks do the same work apart from per-move overhead. Run with
+ * {@code mvn -B -Pjmh verify -Djmh.includes=GameControllerBatch}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameControllerBatchBenchmark {
+
+    private static final long SEED = 11;
+
+    private GameConfig config;
+    private Direction[] dirs;
+
+    @Setup
+    public void setUp() {
+        config = new GameConfig();
+        config.setHighScoreFilePath(null);
+        Random random = new Random(SEED);
+        dirs = new Direction[4096];
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = Direction.values()[random.nextInt(4)];
+        }
+        BatchResult result = new GameBoard(config, SEED).moveAll(dirs);
+        System.out.printf("%nThe game ends after %d moves, %d of them changing the board%n",
+                result.applied, result.changed);
+    }
+
+    private GameController newController(GameBoard model) {
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+        return controller;
+    }
+
+    @Benchmark
+    public int controllerPerMove() {
+        GameBoard model = new GameBoard(config, SEED);
+        GameController controller = newController(model);
+        for (int i = 0; i < dirs.length && !model.isGameOver(); i++) {
+            controller.onUserMove(dirs[i]);
+        }
+        return model.getScore();
+    }
+
+    @Benchmark
+    public int controllerBatch() {
+        GameBoard model = new GameBoard(config, SEED);
+        return newController(model).onUserMoves(dirs).score;
+    }
+
+    @Benchmark
+    public int boardPerMove() {
+        GameBoard model = new GameBoard(config, SEED);
+        for (int i = 0; i < dirs.length && !model.isGameOver(); i++) {
+            model.move(dirs[i]);
+        }
+        return model.getScore();
+    }
+
+    @Benchmark
+    public int boardBatch() {
+        return new GameBoard(config, SEED).moveAll(dirs).score;
+    }
+}
@@ -0,0 +1,191 @@
+package town.lost.g2k.controller;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.view.NullGameView;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Plays complete seeded games through GameController with a NullGameView, measuring
+ * the controller overhead which GameBoard microbenchmarks miss.
+ * <p>
+ * Reports moves/sec, the onUserMove latency distribution, bytes allocated per move and GC pauses.
+ * If a baseline file exists, the run fails when throughput drops by more than
+ * {@code macro.maxRegressionPct} percent. Run with {@code mvn -B -Pjmh,macro verify}.
+ * <p>
+ * System properties:
+ * <ul>
+ *     <li>{@code macro.size} board size, e.g. 4x4</li>
+ *     <li>{@code macro.games} number of measured games, after as many warm-up games</li>
+ *     <li>{@code macro.seed} the seed of the first game, each game after uses the next seed</li>
+ *     <li>{@code macro.highScores} none, memory or file</li>
+ *     <li>{@code macro.baseline} a properties file holding a previous movesPerSecond</li>
+ *     <li>{@code macro.maxRegressionPct} the allowed drop in throughput against the baseline</li>
+ *     <li>{@code macro.saveBaseline} if true, write this run's throughput to the baseline file</li>
+ * </ul>
+ */
+public class GameControllerMacroBenchmark {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final GameConfig config;
+    private final String highScores;
+    private final List<Long> gcPauses = Collections.synchronizedList(new ArrayList<>());
+
+    private long[] latencies = new long[1 << 16];
+    private int moves;
+
+    GameControllerMacroBenchmark(GameConfig config, String highScores) {
+        this.config = config;
+        this.highScores = highScores;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String size = System.getProperty("macro.size", "4x4");
+        int games = Integer.getInteger("macro.games", 200);
+        long seed = Long.getLong("macro.seed", 1L);
+        String highScores = System.getProperty("macro.highScores", "memory");
+        File baseline = new File(System.getProperty("macro.baseline", "macro-baseline.properties"));
+        double maxRegressionPct = Double.parseDouble(System.getProperty("macro.maxRegressionPct", "10"));
+        boolean saveBaseline = Boolean.getBoolean("macro.saveBaseline");
+
+        int x = size.indexOf('x');
+        GameConfig config = new GameConfig();
+        config.setBoardSize(Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1)));
+        if ("file".equals(highScores)) {
+            File file = File.createTempFile("macro-highscore", ".txt");
+            file.deleteOnExit();
+            config.setHighScoreFilePath(file.getAbsolutePath());
+        } else {
+            config.setHighScoreFilePath(null);
+        }
+
+        GameControllerMacroBenchmark bench = new GameControllerMacroBenchmark(config, highScores);
+
+        // warm up on a different range of seeds, then measure
+        bench.playGames(seed + games, games);
+        bench.moves = 0;
+        bench.installGcListener();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long allocStart = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        bench.playGames(seed, games);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(tid) - allocStart;
+
+        double movesPerSecond = bench.moves * 1e9 / elapsed;
+        bench.report(size, games, movesPerSecond, allocated);
+
+        if (!checkBaseline(baseline, movesPerSecond, maxRegressionPct)) {
+            System.exit(1);
+        }
+        if (saveBaseline) {
+            Properties props = new Properties();
+            props.setProperty("movesPerSecond", String.valueOf(movesPerSecond));
+            try (Writer writer = Files.newBufferedWriter(baseline.toPath())) {
+                props.store(writer, "GameControllerMacroBenchmark " + size);
+            }
+            System.out.println("Baseline saved to " + baseline);
+        }
+    }
+
+    void playGames(long firstSeed, int games) {
+        for (int g = 0; g < games; g++) {
+            long seed = firstSeed + g;
+            GameBoard model = new GameBoard(config, seed);
+            GameController controller = new GameController(model, config);
+            controller.setView(new NullGameView());
+            if (!"none".equals(highScores)) {
+                controller.setHighScoreManager(new HighScoreManager(config));
+            }
+            controller.startGame();
+
+            // a seeded random player, so every run plays the same games
+            Random player = new Random(~seed);
+            while (!model.isGameOver()) {
+                Direction dir = DIRECTIONS[player.nextInt(DIRECTIONS.length)];
+                long t0 = System.nanoTime();
+                controller.onUserMove(dir);
+                record(System.nanoTime() - t0);
+            }
+        }
+    }
+
+    private void record(long nanos) {
+        if (moves == latencies.length) {
+            latencies = Arrays.copyOf(latencies, moves * 2);
+        }
+        latencies[moves++] = nanos;
+    }
+
+    private void installGcListener() {
+        NotificationListener listener = (Notification n, Object handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+                gcPauses.add(info.getGcInfo().getDuration());
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+    }
+
+    private void report(String size, int games, double movesPerSecond, long allocated) {
+        long[] sorted = Arrays.copyOf(latencies, moves);
+        Arrays.sort(sorted);
+        System.out.printf("Macro benchmark %s, %d games, %d moves, high scores: %s%n", size, games, moves, highScores);
+        System.out.printf("  throughput   %,.0f moves/sec%n", movesPerSecond);
+        System.out.printf("  onUserMove   p50 %,d ns, p90 %,d ns, p99 %,d ns, p99.9 %,d ns, max %,d ns%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                percentile(sorted, 99.9), sorted[sorted.length - 1]);
+        System.out.printf("  allocation   %,.0f bytes/move%n", (double) allocated / moves);
+        List<Long> pauses;
+        synchronized (gcPauses) {
+            pauses = new ArrayList<>(gcPauses);
+        }
+        long total = 0, max = 0;
+        for (long pause : pauses) {
+            total += pause;
+            max = Math.max(max, pause);
+        }
+        System.out.printf("  GC pauses    %d, total %d ms, max %d ms%n", pauses.size(), total, max);
+    }
+
+    static long percentile(long[] sorted, double pct) {
+        int index = (int) Math.ceil(pct / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    static boolean checkBaseline(File baseline, double movesPerSecond, double maxRegressionPct) throws IOException {
+        if (!baseline.exists()) {
+            System.out.println("No baseline at " + baseline + ", skipping the regression check");
+            return true;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(baseline.toPath())) {
+            props.load(reader);
+        }
+        double previous = Double.parseDouble(props.getProperty("movesPerSecond", "0"));
+        double changePct = (movesPerSecond - previous) * 100 / previous;
+        System.out.printf("  vs baseline  %,.0f moves/sec (%+.1f%%)%n", previous, changePct);
+        if (changePct < -maxRegressionPct) {
+            System.err.printf("Throughput regressed by %.1f%%, more than the allowed %.1f%%%n", -changePct, maxRegressionPct);
+            return false;
+        }
+        return true;
+    }
+}
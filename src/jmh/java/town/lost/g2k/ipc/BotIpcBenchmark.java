@@ -0,0 +1,76 @@
+package town.lost.g2k.ipc;
+
+import org.openjdk.jmh.annotations.*;
+import town.lost.g2k.broadcast.WaitStrategy;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The round trip of one move from a BotClient through shared memory to a BotHost on another thread
+ * and back, against the same move on a local GameBoard.
+ * <p>
+ * Both sides wait with {@code waitStrategy}. Busy spinning needs a core for each side;
+ * on a single core, each wait lasts until the scheduler switches threads.
+ * Run with {@code mvn -B -Pjmh verify -Djmh.includes=BotIpc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BotIpcBenchmark {
+
+    @Param({"BUSY_SPIN", "YIELD"})
+    public WaitStrategy waitStrategy;
+
+    private Path file;
+    private BotHost host;
+    private BotClient client;
+    private GameBoard local;
+    private int moves;
+
+    @Setup
+    public void setUp() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        file = Files.createTempFile("bot", ".g2kb");
+        host = BotHost.open(file, new GameBoard(config, 1L));
+        host.start(waitStrategy);
+        client = BotClient.open(file, waitStrategy);
+        local = new GameBoard(config, 1L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        host.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int roundTrip() {
+        if (client.getStatus() != GameStatus.RUNNING) {
+            client.reset();
+        }
+        client.move(Direction.values()[moves++ & 3]);
+        return client.getScore();
+    }
+
+    @Benchmark
+    public int localMove() {
+        if (local.isGameOver()) {
+            local.reset();
+        }
+        local.move(Direction.values()[moves++ & 3]);
+        return local.getScore();
+    }
+}
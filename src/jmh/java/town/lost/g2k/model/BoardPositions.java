@@ -0,0 +1,83 @@
+package town.lost.g2k.model;
+
+/**
+ * Builds repeatable board positions for the benchmarks.
+ * <p>
+ * Tiles are packed against the edge opposite the move direction, so every position
+ * slides when moved. Each line keeps at least one empty cell, which means a move
+ * followed by a spawn can never fill the board and end the game mid-benchmark.
+ */
+public final class BoardPositions {
+
+    /**
+     * How many cells of each line hold a tile.
+     */
+    public enum Fill {
+        SPARSE(0.25),
+        MID(0.5),
+        DENSE(0.75);
+
+        final double fraction;
+
+        Fill(double fraction) {
+            this.fraction = fraction;
+        }
+    }
+
+    /**
+     * Whether neighbouring tiles along a line pair up to merge, or all differ and only slide.
+     */
+    public enum Layout {
+        MERGE_HEAVY,
+        SLIDE_ONLY
+    }
+
+    private BoardPositions() {
+    }
+
+    /**
+     * Parses a size such as "6x9" into {xSize, ySize}, matching the strings offered by Main.
+     */
+    public static int[] parseSize(String size) {
+        int x = size.indexOf('x');
+        return new int[]{Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1))};
+    }
+
+    /**
+     * Creates a config for benchmarking which never reaches the win tile.
+     */
+    static GameConfig config(int xSize, int ySize) {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(xSize, ySize);
+        config.setWinTileValue(Integer.MAX_VALUE);
+        return config;
+    }
+
+    /**
+     * Builds a [ySize][xSize] position for the given fill, layout and direction of travel.
+     */
+    static int[][] create(int xSize, int ySize, Fill fill, Layout layout, Direction direction) {
+        boolean horizontal = direction == Direction.LEFT || direction == Direction.RIGHT;
+        int lines = horizontal ? ySize : xSize;
+        int lineLength = horizontal ? xSize : ySize;
+        int tiles = (int) Math.round(lineLength * fill.fraction);
+        tiles = Math.max(1, Math.min(lineLength - 1, tiles));
+
+        // tiles start at the far end so the move has somewhere to slide them
+        boolean towardsStart = direction == Direction.LEFT || direction == Direction.UP;
+
+        int[][] board = new int[ySize][xSize];
+        for (int line = 0; line < lines; line++) {
+            for (int j = 0; j < tiles; j++) {
+                int pos = towardsStart ? lineLength - tiles + j : j;
+                int exponent = layout == Layout.MERGE_HEAVY
+                        ? 1 + (line + j / 2) % 8
+                        : 1 + (line + pos) % 8;
+                int row = horizontal ? line : pos;
+                int col = horizontal ? pos : line;
+                board[row][col] = 1 << exponent;
+            }
+        }
+        return board;
+    }
+}
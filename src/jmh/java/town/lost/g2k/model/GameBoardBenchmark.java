@@ -0,0 +1,99 @@
+package town.lost.g2k.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks for the GameBoard hot paths: move, spawnNewTile, canMergeAny and getBoard.
+ * <p>
+ * Covers every size offered by Main, each Direction, three fill levels and
+ * merge-heavy versus slide-only positions. Run with {@code mvn -B -Pjmh verify};
+ * the profile reports throughput, average time and the GC profiler's allocation rate.
+ * <p>
+ * Benchmarks which mutate the board restore the starting position first,
+ * so compare them against {@link #setBoardState(BoardState)} as the baseline.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBoardBenchmark {
+
+    /**
+     * A board in a repeatable starting position, packed for a move to the LEFT.
+     */
+    @State(Scope.Thread)
+    public static class BoardState {
+        // the same sizes as Main.selectionValues
+        @Param({"3x3", "3x4", "4x3", "4x4", "4x5", "5x4", "5x5", "5x7", "7x5", "6x6", "6x9", "9x6"})
+        public String size;
+
+        @Param({"SPARSE", "MID", "DENSE"})
+        public BoardPositions.Fill fill;
+
+        @Param({"MERGE_HEAVY", "SLIDE_ONLY"})
+        public BoardPositions.Layout layout;
+
+        GameBoard board;
+        int[][] start;
+
+        @Setup
+        public void setUp() {
+            int[] xy = BoardPositions.parseSize(size);
+            board = new GameBoard(BoardPositions.config(xy[0], xy[1]));
+            start = BoardPositions.create(xy[0], xy[1], fill, layout, packingDirection());
+            board.setBoardState(start);
+        }
+
+        Direction packingDirection() {
+            return Direction.LEFT;
+        }
+    }
+
+    /**
+     * A board packed so that a move in {@code direction} slides every line.
+     */
+    @State(Scope.Thread)
+    public static class MoveState extends BoardState {
+        @Param({"UP", "DOWN", "LEFT", "RIGHT"})
+        public Direction direction;
+
+        @Override
+        Direction packingDirection() {
+            return direction;
+        }
+    }
+
+    @Benchmark
+    public int setBoardState(BoardState s) {
+        s.board.setBoardState(s.start);
+        return s.board.getScore();
+    }
+
+    @Benchmark
+    public int move(MoveState s) {
+        s.board.setBoardState(s.start);
+        s.board.move(s.direction);
+        return s.board.getScore();
+    }
+
+    @Benchmark
+    public void spawnNewTile(BoardState s, Blackhole bh) {
+        s.board.setBoardState(s.start);
+        s.board.spawnNewTile();
+        bh.consume(s.board);
+    }
+
+    @Benchmark
+    public boolean canMergeAny(BoardState s) {
+        return s.board.canMergeAny();
+    }
+
+    @Benchmark
+    public int[][] getBoard(BoardState s) {
+        return s.board.getBoard();
+    }
+}
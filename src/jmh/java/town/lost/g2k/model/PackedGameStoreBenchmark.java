@@ -0,0 +1,77 @@
+package town.lost.g2k.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of parking a live game in a PackedGameStore and inflating it again.
+ * <p>
+ * The store holds {@code games} games played part-way with random moves; each operation parks or
+ * inflates the next one. With {@code -prof gc}, inflate's allocation per operation is the heap a live
+ * GameBoard costs, against {@link PackedGameStore#recordSize} off-heap bytes for a parked one,
+ * which the setup prints. Run with {@code mvn -B -Pjmh verify -Djmh.includes=PackedGameStore}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackedGameStoreBenchmark {
+
+    @Param({"4x4", "6x6"})
+    public String size;
+
+    @Param({"100000"})
+    public int games;
+
+    private PackedGameStore store;
+    private GameBoard[] live;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int[] xy = BoardPositions.parseSize(size);
+        GameConfig config = new GameConfig();
+        config.setBoardSize(xy[0], xy[1]);
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+
+        store = PackedGameStore.allocate(config, games);
+        live = new GameBoard[256];
+        Random random = new Random(1);
+        for (int i = 0; i < games; i++) {
+            GameBoard board = new GameBoard(config, i);
+            for (int m = random.nextInt(200); m > 0 && !board.isGameOver(); m--) {
+                board.move(Direction.values()[random.nextInt(4)]);
+            }
+            store.add(board);
+            if (i < live.length) {
+                live[i] = board;
+            }
+        }
+        System.out.printf("%n%s: %d bytes per parked game, %d MB for %d games%n", size,
+                PackedGameStore.recordSize(config), (long) PackedGameStore.recordSize(config) * games >> 20, games);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Benchmark
+    public GameBoard inflate() {
+        int id = next;
+        next = id + 1 == games ? 0 : id + 1;
+        return store.inflate(id);
+    }
+
+    @Benchmark
+    public void park() {
+        int id = next;
+        next = id + 1 == live.length ? 0 : id + 1;
+        store.park(id, live[id]);
+    }
+}
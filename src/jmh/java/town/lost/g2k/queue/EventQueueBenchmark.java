@@ -0,0 +1,104 @@
+package town.lost.g2k.queue;
+
+import org.openjdk.jmh.annotations.*;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per microsecond through an event queue: appending single records, appending whole moves
+ * (a MOVE and its MERGEs and SPAWN) as the controller does, and replaying records with a tailer.
+ * <p>
+ * Appends include rolling to new segments, so the disk must keep up; the segments are deleted afterwards.
+ * Run with {@code mvn -B -Pjmh verify -Djmh.includes=EventQueue}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventQueueBenchmark {
+
+    private static final int REPLAYED = 1 << 20;
+
+    private Path dir;
+    private Path replayDir;
+    private EventAppender appender;
+    private EventTailer tailer;
+    private final GameEvent event = new GameEvent();
+    private GameBoard board;
+    private int moves;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("events");
+        appender = EventAppender.open(dir);
+
+        replayDir = Files.createTempDirectory("replay");
+        try (EventAppender filler = EventAppender.open(replayDir)) {
+            for (int i = 0; i < REPLAYED; i++) {
+                filler.append(GameEventType.SPAWN, 1L, null, i & 15, 2, i, i, GameStatus.RUNNING);
+            }
+        }
+        tailer = EventTailer.open(replayDir);
+
+        GameConfig config = new GameConfig();
+        config.setHighScoreFilePath(null);
+        board = new GameBoard(config, 1L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        appender.close();
+        tailer.close();
+        delete(dir);
+        delete(replayDir);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir)) {
+            for (Path path : segments) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public long appendRecord() {
+        return appender.append(GameEventType.SPAWN, 1L, Direction.LEFT, moves++ & 15, 2, moves, moves,
+                GameStatus.RUNNING);
+    }
+
+    /**
+     * One operation is a whole move, played on the board and then appended, so compare it with
+     * {@code appendRecord} in moves, each of which is about three records.
+     */
+    @Benchmark
+    public long appendMove() {
+        if (board.isGameOver()) {
+            board.reset();
+        }
+        Direction dir = Direction.values()[moves++ & 3];
+        board.move(dir);
+        appender.appendMove(1L, dir, board);
+        return appender.getIndex();
+    }
+
+    @Benchmark
+    public int tail() {
+        if (!tailer.next(event)) {
+            tailer.seek(0);
+            tailer.next(event);
+        }
+        return event.getScore();
+    }
+}
@@ -0,0 +1,126 @@
+package town.lost.g2k.server;
+
+import town.lost.g2k.metrics.LatencyHistogram;
+import town.lost.g2k.metrics.LatencySnapshot;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a {@link GameServer} over loopback with many concurrent sessions and reports
+ * the move latency each level of concurrency sees.
+ * <p>
+ * For each level, that many games are started and then all of them play at once: each session
+ * sends its next move as soon as the reply to the last one arrives, so the server always has
+ * one request in flight per session. Latency is measured from send to reply on the client.
+ * Run with {@code mvn -B -Pjmh,load verify}.
+ * <p>
+ * System properties:
+ * <ul>
+ *     <li>{@code load.sessions} comma-separated concurrency levels, e.g. 1,10,100,1000</li>
+ *     <li>{@code load.moves} moves per session at each level, after a warm-up pass</li>
+ *     <li>{@code load.threads} the server's request pool size</li>
+ *     <li>{@code load.size} board size, e.g. 4x4</li>
+ * </ul>
+ */
+public class GameServerLoadTest {
+
+    private static final String[] DIRECTIONS = {"UP", "DOWN", "LEFT", "RIGHT"};
+
+    private final HttpClient client;
+    private final String base;
+    private final String size;
+
+    GameServerLoadTest(HttpClient client, int port, String size) {
+        this.client = client;
+        this.base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+        this.size = size;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] levels = System.getProperty("load.sessions", "1,10,100,1000").split(",");
+        int moves = Integer.getInteger("load.moves", 200);
+        int threads = Integer.getInteger("load.threads", Runtime.getRuntime().availableProcessors() * 2);
+        String size = System.getProperty("load.size", "4x4");
+
+        ExecutorService clientPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientPool).build();
+        try (GameServer server = GameServer.start(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), threads, new SessionManager(0))) {
+            GameServerLoadTest test = new GameServerLoadTest(client, server.getPort(), size);
+            System.out.printf("Game server load test, %s, %d moves per session, %d server threads%n", size, moves, threads);
+            System.out.printf("%9s %12s %12s %10s %10s %10s%n", "sessions", "moves", "moves/sec", "p50 us", "p99 us", "max us");
+            for (String level : levels) {
+                int sessions = Integer.parseInt(level.trim());
+                test.run(sessions, Math.max(1, moves / 4), null);
+                LatencyHistogram histogram = new LatencyHistogram();
+                long start = System.nanoTime();
+                test.run(sessions, moves, histogram);
+                long elapsed = System.nanoTime() - start;
+                LatencySnapshot s = histogram.snapshot();
+                System.out.printf("%9d %12d %,12.0f %,10.1f %,10.1f %,10.1f%n", sessions, s.getCount(),
+                        s.getCount() * 1e9 / elapsed, s.getP50() / 1e3, s.getP99() / 1e3, s.getMax() / 1e3);
+            }
+        } finally {
+            clientPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts {@code sessions} games and plays {@code moves} moves in each, all sessions at once.
+     *
+     * @param histogram receives each move's latency, or null for a warm-up
+     */
+    void run(int sessions, int moves, LatencyHistogram histogram) {
+        List<CompletableFuture<Void>> games = new ArrayList<>(sessions);
+        AtomicLong seeds = new AtomicLong(1);
+        for (int i = 0; i < sessions; i++) {
+            games.add(send("POST", "/games?size=" + size + "&seed=" + seeds.getAndIncrement())
+                    .thenCompose(reply -> play(idOf(reply.body()), 0, moves, histogram)));
+        }
+        CompletableFuture.allOf(games.toArray(new CompletableFuture[0])).join();
+    }
+
+    private CompletableFuture<Void> play(long id, int move, int moves, LatencyHistogram histogram) {
+        if (move == moves) {
+            return send("DELETE", "/games/" + id).thenApply(reply -> null);
+        }
+        // cycling through the directions keeps most games alive for the whole run
+        String path = "/games/" + id + "/move?dir=" + DIRECTIONS[(int) ((move + id) & 3)];
+        long start = System.nanoTime();
+        return send("POST", path).thenCompose(reply -> {
+            if (histogram != null) {
+                histogram.record(System.nanoTime() - start);
+            }
+            if (reply.statusCode() != 200) {
+                throw new IllegalStateException("Move failed with " + reply.statusCode() + ": " + reply.body());
+            }
+            return play(id, move + 1, moves, histogram);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String method, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long idOf(String json) {
+        int start = json.indexOf("\"id\":") + 5;
+        int end = start;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(json.substring(start, end));
+    }
+}
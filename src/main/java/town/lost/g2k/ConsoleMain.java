@@ -0,0 +1,101 @@
+package town.lost.g2k;
+
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.view.ConsoleGameView;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * The entry point for the console version of 2048.
+ * <p>
+ * With no arguments it is interactive. With {@code --batch} it reads move characters
+ * from a file, or from stdin for {@code -}, and applies them back to back:
+ * <pre>
+ * ConsoleMain --batch moves.txt [--every N] [--size 4x4] [--seed N]
+ * bot | ConsoleMain --batch - --every 1000
+ * </pre>
+ */
+public class ConsoleMain {
+
+    public static void main(String[] args) throws IOException {
+        String batch = null;
+        int every = 0;
+        int xSize = 4;
+        int ySize = 4;
+        Long seed = null;
+        for (int i = 0; i < args.length; i++) {
+            try {
+                switch (args[i]) {
+                    case "--batch":
+                        batch = valueOf(args, ++i);
+                        break;
+                    case "--every":
+                        every = Integer.parseInt(valueOf(args, ++i));
+                        break;
+                    case "--size":
+                        String[] xy = valueOf(args, ++i).split("x");
+                        if (xy.length != 2) {
+                            usage("Bad value for --size: " + args[i]);
+                        }
+                        xSize = Integer.parseInt(xy[0]);
+                        ySize = Integer.parseInt(xy[1]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(valueOf(args, ++i));
+                        break;
+                    default:
+                        usage("Unknown argument: " + args[i]);
+                }
+            } catch (NumberFormatException e) {
+                usage("Bad value for " + args[i - 1] + ": " + args[i]);
+            }
+        }
+
+        GameConfig config = new GameConfig();
+        config.setBoardSize(xSize, ySize);
+        config.setUndoEnabled(true);
+        GameBoard model = seed == null ? new GameBoard(config) : new GameBoard(config, seed);
+        GameController controller = new GameController(model, config);
+
+        if (batch == null) {
+            ConsoleGameView view = new ConsoleGameView(controller, model);
+            controller.setView(view);
+            controller.startGame();
+            while (!view.isInputEnded()) {
+                view.captureUserMove();
+            }
+            return;
+        }
+
+        Reader in = "-".equals(batch)
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(batch), StandardCharsets.UTF_8);
+        ConsoleGameView view = new ConsoleGameView(controller, model, new StringReader(""),
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        controller.setView(view);
+        try (Reader moves = in) {
+            view.playBatch(moves, every);
+        }
+    }
+
+    /**
+     * @return the value of the option before {@code i}, exiting with the usage if there is none
+     */
+    private static String valueOf(String[] args, int i) {
+        if (i >= args.length) {
+            usage("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: ConsoleMain [--batch <file>|-] [--every N] [--size XxY] [--seed N]");
+        System.exit(2);
+    }
+}
@@ -1,23 +1,99 @@
 package town.lost.g2k;
 
 import town.lost.g2k.controller.GameController;
+import town.lost.g2k.controller.GameThread;
 import town.lost.g2k.controller.HighScoreManager;
+import town.lost.g2k.metrics.GameMetrics;
 import town.lost.g2k.model.GameBoard;
 import town.lost.g2k.model.GameConfig;
-import town.lost.g2k.view.GameView;
+import town.lost.g2k.model.GameSnapshot;
+import town.lost.g2k.view.NullGameView;
 import town.lost.g2k.view.SwingGameView;
 
 import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 
 /**
  * The main entry point for the 2048 application with a Swing View.
+ * With {@code -Dg2k.gameThread=true} the game runs on its own thread instead of the Event Dispatch Thread.
  */
 public class Main {
+    static final Path SAVE_FILE = Paths.get("savegame.g2ks");
     static final String[] selectionValues = {"3x3", "3x4", "4x3", "4x4", "4x5", "5x4", "5x5", "5x7", "7x5", "6x6", "6x9", "9x6"};
 
     public static void main(String[] args) {
-        // 1) Create or customize a GameConfig
+        // 1) Resume the game saved on exit if the player wants to,
+        //    otherwise create a GameConfig and a new GameBoard (Model) reading from it
+        GameBoard model = loadSavedGame();
+        GameConfig config;
+        if (model != null) {
+            config = model.getConfig();
+        } else {
+            config = createConfig();
+            model = new GameBoard(config);
+        }
+
+        // 2) Create the GameController with (model, config) but no GameView
+        GameController controller = new GameController(model, config);
+
+        // 3) Optionally create a HighScoreManager to track per-size records
+        //    written behind on a background thread so new records never block the EDT
+        HighScoreManager scoreManager = new HighScoreManager(config);
+        scoreManager.enableWriteBehind(1000);
+        controller.setHighScoreManager(scoreManager);
+
+        // 4) For a Swing approach, create the view
+        SwingGameView view = new SwingGameView(controller, model);
+
+        // 5) Publish per-move latencies and counters over JMX
+        GameMetrics.registerMBean();
+
+        GameBoard game = model;
+        if (Boolean.getBoolean("g2k.gameThread")) {
+            // Or run the game on its own thread, with the view rendering the states it publishes
+            controller.setView(new NullGameView());
+            GameThread gameThread = GameThread.start(controller, game);
+            view.followState(gameThread);
+            view.initializeView();
+            view.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    try {
+                        gameThread.executeAndWait(() -> saveGame(game));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            gameThread.execute(controller::startGame);
+            return;
+        }
+
+        // 6) Save the game when the window is closed
+        view.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveGame(game);
+            }
+        });
+
+        // 7) Finalize the MVC wiring: setView on the controller
+        controller.setView(view);
+
+        // 8) Start the game
+        controller.startGame();
+    }
+
+    /**
+     * Creates a GameConfig for the board size the player picks.
+     */
+    static GameConfig createConfig() {
         GameConfig config = new GameConfig();
         int boardSize = pickBoardSizeAtStartup();
         config.setBoardSize(boardSize / 10, boardSize % 10); // default 4x4 initially
@@ -45,25 +121,44 @@ public class Main {
                         4, 0.15,
                         8, 0.04,
                         16, 0.01));
+        return config;
+    }
 
-        // 2) Create the GameBoard (Model), reading from config
-        GameBoard model = new GameBoard(config);
-
-        // 3) Create the GameController with (model, config) but no GameView
-        GameController controller = new GameController(model, config);
-
-        // 4) Optionally create a HighScoreManager to track per-size records
-        HighScoreManager scoreManager = new HighScoreManager(config);
-        controller.setHighScoreManager(scoreManager);
-
-        // 5) For a Swing approach:
-        GameView view = new SwingGameView(controller, model);
-
-        // 6) Finalize the MVC wiring: setView on the controller
-        controller.setView(view);
+    /**
+     * Offers to resume the game saved on exit, if there is one.
+     *
+     * @return the saved game, or null to start a new one
+     */
+    static GameBoard loadSavedGame() {
+        if (!Files.exists(SAVE_FILE)) {
+            return null;
+        }
+        int choice = JOptionPane.showConfirmDialog(null, "Resume your saved game?", "2048",
+                JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return null;
+        }
+        try {
+            return GameSnapshot.load(SAVE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error reading saved game from: " + SAVE_FILE);
+            return null;
+        }
+    }
 
-        // 7) Start the game
-        controller.startGame();
+    /**
+     * Saves an unfinished game, so it can be resumed next time, or removes the save of a finished one.
+     */
+    static void saveGame(GameBoard model) {
+        try {
+            if (model.isGameOver()) {
+                Files.deleteIfExists(SAVE_FILE);
+            } else {
+                GameSnapshot.save(model, SAVE_FILE);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing saved game to: " + SAVE_FILE);
+        }
     }
 
     /**
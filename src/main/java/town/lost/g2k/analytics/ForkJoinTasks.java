@@ -0,0 +1,42 @@
+package town.lost.g2k.analytics;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Runs a task, typically one which starts a parallel stream, on its own ForkJoinPool of a given size.
+ * <p>
+ * A parallel stream started inside a pool runs its tasks in that pool rather than the common pool,
+ * so the batch tools can choose their thread count. A RuntimeException thrown by the task is rethrown
+ * as it was, and the pool is shut down when the task ends.
+ */
+public final class ForkJoinTasks {
+
+    private ForkJoinTasks() {
+    }
+
+    /**
+     * @return the task's result
+     */
+    public static <T> T run(int threads, Supplier<T> task) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(task::get).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void run(int threads, Runnable task) throws InterruptedException {
+        run(threads, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
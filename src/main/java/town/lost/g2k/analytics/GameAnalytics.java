@@ -0,0 +1,95 @@
+package town.lost.g2k.analytics;
+
+import town.lost.g2k.archive.ArchiveReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes {@link GameStats} over every game archive ({@code *.g2ka}) under a directory,
+ * and writes them as CSV files.
+ * <p>
+ * Every block of every archive is a separate task on a ForkJoinPool, see {@link ForkJoinTasks}. Archives are
+ * memory-mapped in regions of up to a gigabyte, see {@link ArchiveReader}, and games are decoded
+ * one at a time, so neither the size of an archive nor the number of games is limited by memory.
+ * Each worker adds games to its own GameStats, and these are merged at the end.
+ * <pre>
+ * java -cp g2k.jar town.lost.g2k.analytics.GameAnalytics &lt;games dir&gt; &lt;output dir&gt; [threads]
+ * </pre>
+ */
+public class GameAnalytics {
+
+    public static final String ARCHIVE_SUFFIX = ".g2ka";
+
+    private GameAnalytics() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameAnalytics <games dir> <output dir> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        GameStats stats = analyse(Paths.get(args[0]), threads);
+        stats.writeCsv(Paths.get(args[1]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves in %.2f s (%.0f moves/s)%n",
+                stats.getGames(), stats.getMoves(), seconds, stats.getMoves() / seconds);
+    }
+
+    /**
+     * Reads every archive under {@code dir} on {@code threads} threads.
+     *
+     * @throws IOException if an archive can't be opened
+     * @throws IllegalStateException if an archive is corrupt
+     */
+    public static GameStats analyse(Path dir, int threads) throws IOException, InterruptedException {
+        return analyse(dir, threads, ArchiveReader.MAX_REGION_BYTES);
+    }
+
+    /**
+     * Reads every archive under {@code dir}, mapping each in regions of at most {@code maxRegionBytes}.
+     */
+    static GameStats analyse(Path dir, int threads, long maxRegionBytes) throws IOException, InterruptedException {
+        List<Block> blocks = new ArrayList<>();
+        for (Path file : archivesUnder(dir)) {
+            ArchiveReader reader = ArchiveReader.open(file, maxRegionBytes);
+            for (int block = 0; block < reader.getBlockCount(); block++) {
+                blocks.add(new Block(reader, block));
+            }
+        }
+        return ForkJoinTasks.run(threads, () -> blocks.parallelStream().collect(
+                GameStats::new,
+                (stats, block) -> block.reader.readBlock(block.index, stats::add),
+                GameStats::merge));
+    }
+
+    static List<Path> archivesUnder(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Block {
+        final ArchiveReader reader;
+        final int index;
+
+        Block(ArchiveReader reader, int index) {
+            this.reader = reader;
+            this.index = index;
+        }
+    }
+}
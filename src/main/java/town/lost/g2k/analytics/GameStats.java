@@ -0,0 +1,206 @@
+package town.lost.g2k.analytics;
+
+import town.lost.g2k.archive.GameRecord;
+import town.lost.g2k.model.Direction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Aggregate statistics over many games: how often each tile is reached, when games end,
+ * which directions are chosen and the mean score curve.
+ * <p>
+ * An instance is filled by one thread with {@link #add(GameRecord)}; instances from
+ * different threads are combined with {@link #merge(GameStats)}. Everything is counts and
+ * sums in primitive arrays, so memory doesn't grow with the number of games.
+ */
+public class GameStats {
+
+    /**
+     * Moves per row of deaths.csv.
+     */
+    public static final int DEATH_BUCKET = 100;
+    /**
+     * Moves between the points of scores.csv.
+     */
+    public static final int SCORE_INTERVAL = 25;
+
+    private static final int EXPONENTS = 32;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private long games;
+    private long moves;
+    private final long[] finalMaxTile = new long[EXPONENTS];
+    private final long[] directionCounts = new long[DIRECTIONS.length];
+    private final long[] wastedMoves = new long[DIRECTIONS.length];
+    private long[] deaths = new long[16];
+    private long[] deathScores = new long[16];
+    private long[] scoreSums = new long[64];
+    private long[] scoreGames = new long[64];
+
+    /**
+     * Adds one completed game, which must have been read from an archive so its scores are known.
+     */
+    public void add(GameRecord game) {
+        games++;
+        int count = game.getMoveCount();
+        moves += count;
+        int maxTile = game.getMaxTile();
+        finalMaxTile[maxTile == 0 ? 0 : Integer.numberOfTrailingZeros(maxTile)]++;
+
+        for (int i = 0; i < count; i++) {
+            int dir = game.getDirection(i).ordinal();
+            directionCounts[dir]++;
+            if (game.getSpawnCell(i) < 0) {
+                wastedMoves[dir]++;
+            }
+        }
+
+        int bucket = count / DEATH_BUCKET;
+        if (bucket >= deaths.length) {
+            deaths = Arrays.copyOf(deaths, Math.max(bucket + 1, deaths.length * 2));
+            deathScores = Arrays.copyOf(deathScores, deaths.length);
+        }
+        deaths[bucket]++;
+        deathScores[bucket] += game.getScore();
+
+        // the curve starts at move 0, before any score
+        int points = count / SCORE_INTERVAL + 1;
+        if (points > scoreSums.length) {
+            scoreSums = Arrays.copyOf(scoreSums, Math.max(points, scoreSums.length * 2));
+            scoreGames = Arrays.copyOf(scoreGames, scoreSums.length);
+        }
+        scoreGames[0]++;
+        for (int point = 1; point < points; point++) {
+            scoreSums[point] += game.getScoreAfter(point * SCORE_INTERVAL - 1);
+            scoreGames[point]++;
+        }
+    }
+
+    /**
+     * Adds another instance's games to this one.
+     *
+     * @return this
+     */
+    public GameStats merge(GameStats other) {
+        games += other.games;
+        moves += other.moves;
+        add(finalMaxTile, other.finalMaxTile);
+        add(directionCounts, other.directionCounts);
+        add(wastedMoves, other.wastedMoves);
+        if (other.deaths.length > deaths.length) {
+            deaths = Arrays.copyOf(deaths, other.deaths.length);
+            deathScores = Arrays.copyOf(deathScores, other.deaths.length);
+        }
+        add(deaths, other.deaths);
+        add(deathScores, other.deathScores);
+        if (other.scoreSums.length > scoreSums.length) {
+            scoreSums = Arrays.copyOf(scoreSums, other.scoreSums.length);
+            scoreGames = Arrays.copyOf(scoreGames, other.scoreSums.length);
+        }
+        add(scoreSums, other.scoreSums);
+        add(scoreGames, other.scoreGames);
+        return this;
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < from.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the number of games in which a tile of at least {@code tile} was made
+     */
+    public long getGamesReaching(int tile) {
+        long count = 0;
+        for (int exponent = Integer.numberOfTrailingZeros(tile); exponent < EXPONENTS; exponent++) {
+            count += finalMaxTile[exponent];
+        }
+        return count;
+    }
+
+    public long getDirectionCount(Direction dir) {
+        return directionCounts[dir.ordinal()];
+    }
+
+    /**
+     * @return the moves in that direction which changed nothing
+     */
+    public long getWastedMoves(Direction dir) {
+        return wastedMoves[dir.ordinal()];
+    }
+
+    /**
+     * @return the number of games which ended after {@code bucket * DEATH_BUCKET} to
+     * {@code (bucket + 1) * DEATH_BUCKET - 1} moves
+     */
+    public long getDeaths(int bucket) {
+        return bucket < deaths.length ? deaths[bucket] : 0;
+    }
+
+    /**
+     * Writes tiles.csv, deaths.csv, directions.csv and scores.csv to {@code dir}.
+     */
+    public void writeCsv(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("tiles.csv"))) {
+            out.write("tile,games_reaching,rate");
+            out.newLine();
+            for (int exponent = 1; exponent < EXPONENTS; exponent++) {
+                long reaching = getGamesReaching(1 << exponent);
+                if (reaching == 0) {
+                    break;
+                }
+                out.write((1L << exponent) + "," + reaching + "," + ratio(reaching, games));
+                out.newLine();
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("deaths.csv"))) {
+            out.write("from_move,to_move,games,rate,mean_final_score");
+            out.newLine();
+            for (int bucket = 0; bucket < deaths.length; bucket++) {
+                if (deaths[bucket] > 0) {
+                    out.write(bucket * DEATH_BUCKET + "," + ((bucket + 1) * DEATH_BUCKET - 1) + ","
+                            + deaths[bucket] + "," + ratio(deaths[bucket], games) + ","
+                            + ratio(deathScores[bucket], deaths[bucket]));
+                    out.newLine();
+                }
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("directions.csv"))) {
+            out.write("direction,moves,share,wasted,wasted_rate");
+            out.newLine();
+            for (Direction direction : DIRECTIONS) {
+                long count = directionCounts[direction.ordinal()];
+                long wasted = wastedMoves[direction.ordinal()];
+                out.write(direction + "," + count + "," + ratio(count, moves) + "," + wasted + "," + ratio(wasted, count));
+                out.newLine();
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("scores.csv"))) {
+            out.write("move,games_alive,mean_score");
+            out.newLine();
+            for (int point = 0; point < scoreGames.length && scoreGames[point] > 0; point++) {
+                out.write(point * SCORE_INTERVAL + "," + scoreGames[point] + "," + ratio(scoreSums[point], scoreGames[point]));
+                out.newLine();
+            }
+        }
+    }
+
+    private static String ratio(long numerator, long denominator) {
+        return denominator == 0 ? "0" : String.format(Locale.ROOT, "%.6f", (double) numerator / denominator);
+    }
+}
@@ -0,0 +1,142 @@
+package town.lost.g2k.archive;
+
+import town.lost.g2k.model.Direction;
+
+import java.util.Arrays;
+
+/**
+ * The minimal board the archive codec replays games on: tile exponents in one array, row by row,
+ * with GameBoard's slide and merge rules but no spawning, undo or metrics.
+ * Scores are implied by the moves, and spawn positions are coded against the empty cells,
+ * so the writer and the reader both need the board after every slide.
+ */
+final class ArchiveBoard {
+
+    final int xSize;
+    final int ySize;
+    final byte[] cells;
+    private final byte[] line;
+    private int score;
+
+    ArchiveBoard(int xSize, int ySize) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.cells = new byte[xSize * ySize];
+        this.line = new byte[Math.max(xSize, ySize)];
+    }
+
+    void clear() {
+        Arrays.fill(cells, (byte) 0);
+        score = 0;
+    }
+
+    /**
+     * Slides and merges every line towards {@code dir}.
+     *
+     * @return true if any tile moved
+     */
+    boolean slide(Direction dir) {
+        boolean changed = false;
+        switch (dir) {
+            case LEFT:
+                for (int r = 0; r < ySize; r++) {
+                    changed |= slideLine(r * xSize, 1, xSize);
+                }
+                break;
+            case RIGHT:
+                for (int r = 0; r < ySize; r++) {
+                    changed |= slideLine(r * xSize + xSize - 1, -1, xSize);
+                }
+                break;
+            case UP:
+                for (int c = 0; c < xSize; c++) {
+                    changed |= slideLine(c, xSize, ySize);
+                }
+                break;
+            case DOWN:
+                for (int c = 0; c < xSize; c++) {
+                    changed |= slideLine((ySize - 1) * xSize + c, -xSize, ySize);
+                }
+                break;
+        }
+        return changed;
+    }
+
+    private boolean slideLine(int start, int step, int length) {
+        int count = 0;
+        for (int i = 0, at = start; i < length; i++, at += step) {
+            if (cells[at] != 0) {
+                line[count++] = cells[at];
+            }
+        }
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            byte exponent = line[i];
+            if (i + 1 < count && line[i + 1] == exponent) {
+                exponent++;
+                score += 1 << exponent;
+                i++;
+            }
+            line[out++] = exponent;
+        }
+        boolean changed = false;
+        for (int i = 0, at = start; i < length; i++, at += step) {
+            byte exponent = i < out ? line[i] : 0;
+            if (cells[at] != exponent) {
+                cells[at] = exponent;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    int emptyCount() {
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the cell's position among the empty cells, row by row
+     */
+    int emptyRank(int cell) {
+        if (cells[cell] != 0) {
+            throw new IllegalArgumentException("Spawn cell " + cell + " is not empty");
+        }
+        int rank = 0;
+        for (int i = 0; i < cell; i++) {
+            if (cells[i] == 0) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @return the empty cell at the given rank, row by row
+     */
+    int emptyCell(int rank) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == 0 && rank-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No empty cell at rank " + rank);
+    }
+
+    int getScore() {
+        return score;
+    }
+
+    int maxExponent() {
+        int max = 0;
+        for (byte cell : cells) {
+            max = Math.max(max, cell);
+        }
+        return max;
+    }
+}
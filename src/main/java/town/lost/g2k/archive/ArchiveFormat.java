@@ -0,0 +1,187 @@
+package town.lost.g2k.archive;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameConfig;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The archive layout shared by ArchiveWriter and ArchiveReader.
+ * <pre>
+ * header: magic "G2KA", version, xSize, ySize, winTileValue, spawn entries,
+ *         then (value int, probability double) per entry in ascending value order
+ * block:  payload length (varint), games (varint), then the games' bits, padded to a whole byte
+ * game:   seed (64 bits), starting tiles (varint), then per tile its rank among the empty
+ *         cells (truncated binary) and exponent (5 bits), moves (varint), then per move
+ *         its direction (2 bits) and, if it changed the board, the spawned tile's rank among
+ *         the empty cells and its index in the spawn table (both truncated binary)
+ * </pre>
+ * The header is little-endian. Scores aren't stored: they follow from the moves.
+ */
+final class ArchiveFormat {
+
+    static final int MAGIC = 0x414B_3247; // "G2KA" in little-endian order
+    static final int VERSION = 1;
+
+    private static final int EXPONENT_BITS = 5;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private ArchiveFormat() {
+    }
+
+    static int headerSize(GameConfig config) {
+        return 6 * Integer.BYTES + config.getTileSpawnProbabilities().size() * (Integer.BYTES + Double.BYTES);
+    }
+
+    static void writeHeader(ByteBuffer buffer, GameConfig config) {
+        Map<Integer, Double> spawns = new TreeMap<>(config.getTileSpawnProbabilities());
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(config.getXSize())
+                .putInt(config.getYSize())
+                .putInt(config.getWinTileValue())
+                .putInt(spawns.size());
+        for (Map.Entry<Integer, Double> entry : spawns.entrySet()) {
+            buffer.putInt(entry.getKey()).putDouble(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads a header, leaving the buffer positioned at the first block.
+     */
+    static GameConfig readConfig(ByteBuffer buffer) {
+        if (buffer.remaining() < 6 * Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a game archive");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported archive version " + version);
+        }
+        int xSize = buffer.getInt();
+        int ySize = buffer.getInt();
+        int winTile = buffer.getInt();
+        int entries = buffer.getInt();
+        Map<Integer, Double> spawns = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            spawns.put(buffer.getInt(), buffer.getDouble());
+        }
+        return new GameConfig(xSize, ySize, winTile, false, false, null, spawns);
+    }
+
+    /**
+     * @return the spawnable values in ascending order, the order their indexes are coded in
+     */
+    static int[] spawnTable(GameConfig config) {
+        return new TreeMap<>(config.getTileSpawnProbabilities()).keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Replays the game on {@code board} as it writes it, and sets the record's score.
+     *
+     * @throws IllegalArgumentException if the record doesn't follow the game rules or the spawn table
+     */
+    static void encode(GameRecord game, ArchiveBoard board, int[] spawnTable, BitWriter out) {
+        int[] start = game.start();
+        if (start.length != board.cells.length) {
+            throw new IllegalArgumentException("Game has " + start.length + " cells, archive boards have "
+                    + board.cells.length);
+        }
+        board.clear();
+        out.write(game.getSeed(), 32);
+        out.write(game.getSeed() >>> 32, 32);
+
+        int tiles = 0;
+        for (int value : start) {
+            if (value != 0) {
+                tiles++;
+            }
+        }
+        out.writeVarint(tiles);
+        for (int cell = 0; cell < start.length; cell++) {
+            if (start[cell] != 0) {
+                out.writeTruncated(board.emptyRank(cell), board.emptyCount());
+                int exponent = Integer.numberOfTrailingZeros(start[cell]);
+                out.write(exponent, EXPONENT_BITS);
+                board.cells[cell] = (byte) exponent;
+            }
+        }
+
+        int moves = game.getMoveCount();
+        out.writeVarint(moves);
+        for (int i = 0; i < moves; i++) {
+            Direction dir = game.getDirection(i);
+            out.write(dir.ordinal(), 2);
+            boolean changed = board.slide(dir);
+            int cell = game.getSpawnCell(i);
+            if (changed != cell >= 0) {
+                throw new IllegalArgumentException("Move " + i + (changed ? " changed the board but spawned nothing"
+                        : " changed nothing but spawned a tile"));
+            }
+            if (changed) {
+                out.writeTruncated(board.emptyRank(cell), board.emptyCount());
+                out.writeTruncated(indexOf(spawnTable, game.getSpawnValue(i)), spawnTable.length);
+                board.cells[cell] = (byte) Integer.numberOfTrailingZeros(game.getSpawnValue(i));
+            }
+            game.setScoreAfter(i, board.getScore());
+        }
+        game.setResult(board.getScore(), maxTile(board));
+    }
+
+    /**
+     * Reads the next game by replaying it on {@code board}.
+     */
+    static GameRecord decode(BitReader in, ArchiveBoard board, int[] spawnTable) {
+        board.clear();
+        long seed = in.read(32) | in.read(32) << 32;
+        long tiles = in.readVarint();
+        if (tiles > board.cells.length) {
+            throw new IllegalStateException("Game starts with " + tiles + " tiles on " + board.cells.length + " cells");
+        }
+        for (int i = 0; i < tiles; i++) {
+            int cell = board.emptyCell(in.readTruncated(board.emptyCount()));
+            board.cells[cell] = (byte) in.read(EXPONENT_BITS);
+        }
+        int[] start = new int[board.cells.length];
+        for (int cell = 0; cell < start.length; cell++) {
+            start[cell] = board.cells[cell] == 0 ? 0 : 1 << board.cells[cell];
+        }
+
+        long moves = in.readVarint();
+        // every move takes at least 2 bits, so this rejects a corrupt count before allocating for it
+        if (moves > in.remainingBits() / 2) {
+            throw new IllegalStateException("Game claims " + moves + " moves, more than the block holds");
+        }
+        GameRecord game = new GameRecord(seed, start, (int) moves);
+        for (int i = 0; i < moves; i++) {
+            Direction dir = DIRECTIONS[(int) in.read(2)];
+            if (board.slide(dir)) {
+                int cell = board.emptyCell(in.readTruncated(board.emptyCount()));
+                int value = spawnTable[in.readTruncated(spawnTable.length)];
+                board.cells[cell] = (byte) Integer.numberOfTrailingZeros(value);
+                game.addMove(dir, cell, value);
+            } else {
+                game.addMove(dir, -1, 0);
+            }
+            game.setScoreAfter(i, board.getScore());
+        }
+        game.setResult(board.getScore(), maxTile(board));
+        return game;
+    }
+
+    private static int indexOf(int[] spawnTable, int value) {
+        for (int i = 0; i < spawnTable.length; i++) {
+            if (spawnTable[i] == value) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Spawned value " + value + " isn't in the spawn table");
+    }
+
+    private static int maxTile(ArchiveBoard board) {
+        int exponent = board.maxExponent();
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+}
@@ -0,0 +1,275 @@
+package town.lost.g2k.archive;
+
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the games in an archive written by {@link ArchiveWriter}.
+ * <p>
+ * Opening an archive reads only the block headers, hopping from one to the next, then memory-maps
+ * the blocks in regions of up to {@link #MAX_REGION_BYTES}, each holding whole blocks, so archives
+ * of any size can be read. Blocks decode independently, so {@link #parallelForEach(Consumer)} spreads
+ * them over the common ForkJoinPool. A partial block at the end, left by a crash mid-write, is ignored.
+ */
+public class ArchiveReader {
+
+    /**
+     * The most bytes of blocks mapped together, well under the 2 GB a single mapping can hold.
+     */
+    public static final long MAX_REGION_BYTES = 1L << 30;
+
+    // two varints of up to 10 bytes each
+    private static final int MAX_BLOCK_HEADER = 20;
+
+    private final ByteBuffer header;
+    private final GameConfig config;
+    private final int[] spawnTable;
+    private final ByteBuffer[] regions;
+    // file offsets of each block's payload, and the region it was mapped in
+    private final long[] regionStarts;
+    private final long[] blockStarts;
+    private final long[] blockEnds;
+    private final int[] blockRegions;
+    private final int[] blockGames;
+    private final int blocks;
+    private final long games;
+
+    private ArchiveReader(ByteBuffer header, ByteBuffer[] regions, long[] regionStarts, Blocks found) {
+        this.header = header;
+        this.config = ArchiveFormat.readConfig(header.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        this.spawnTable = ArchiveFormat.spawnTable(config);
+        this.regions = regions;
+        this.regionStarts = regionStarts;
+        this.blockStarts = found.starts;
+        this.blockEnds = found.ends;
+        this.blockRegions = found.regions;
+        this.blockGames = found.games;
+        this.blocks = found.count;
+        this.games = found.totalGames;
+    }
+
+    public static ArchiveReader open(Path path) throws IOException {
+        return open(path, MAX_REGION_BYTES);
+    }
+
+    /**
+     * Opens an archive, mapping its blocks in regions of at most {@code maxRegionBytes}, or one block
+     * if that is larger.
+     *
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    public static ArchiveReader open(Path path, long maxRegionBytes) throws IOException {
+        if (maxRegionBytes < 1 || maxRegionBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxRegionBytes must be from 1 to " + Integer.MAX_VALUE
+                    + ", was " + maxRegionBytes);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            Blocks found = scanBlocks(channel, header.limit());
+
+            // whole blocks per region, so each block is read from a single mapping
+            List<ByteBuffer> regions = new ArrayList<>();
+            long[] regionStarts = new long[Math.max(1, found.count)];
+            long regionStart = -1;
+            long regionEnd = -1;
+            for (int block = 0; block < found.count; block++) {
+                long blockStart = found.headers[block];
+                if (found.ends[block] - blockStart > Integer.MAX_VALUE) {
+                    throw new IOException("Archive block " + block + " is too large to map: " + path);
+                }
+                if (regionStart < 0 || found.ends[block] - regionStart > maxRegionBytes) {
+                    if (regionStart >= 0) {
+                        regions.add(map(channel, regionStart, regionEnd));
+                    }
+                    regionStart = blockStart;
+                    regionStarts[regions.size()] = regionStart;
+                }
+                regionEnd = found.ends[block];
+                found.regions[block] = regions.size();
+            }
+            if (regionStart >= 0) {
+                regions.add(map(channel, regionStart, regionEnd));
+            }
+            return new ArchiveReader(header, regions.toArray(new ByteBuffer[0]),
+                    Arrays.copyOf(regionStarts, regions.size()), found);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException("Not a readable game archive: " + path, e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return the header, from the start of the file to the first block
+     */
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer fixed = readAt(channel, 0, 6 * Integer.BYTES);
+        if (fixed.remaining() < 6 * Integer.BYTES) {
+            throw new IllegalArgumentException("Not a game archive");
+        }
+        int entries = fixed.getInt(5 * Integer.BYTES);
+        if (entries < 0 || entries > 1024) {
+            throw new IllegalArgumentException("Archive has " + entries + " spawn entries");
+        }
+        ByteBuffer header = readAt(channel, 0, 6 * Integer.BYTES + entries * (Integer.BYTES + Double.BYTES));
+        // reading it checks the magic, version and length
+        ArchiveFormat.readConfig(header.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        return header;
+    }
+
+    /**
+     * @return up to {@code length} bytes from {@code position}, fewer at the end of the file
+     */
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Blocks scanBlocks(FileChannel channel, long position) throws IOException {
+        Blocks found = new Blocks();
+        long size = channel.size();
+        while (position < size) {
+            ByteBuffer header = readAt(channel, position, (int) Math.min(MAX_BLOCK_HEADER, size - position));
+            long length;
+            long count;
+            try {
+                length = getVarint(header);
+                count = getVarint(header);
+            } catch (BufferUnderflowException e) {
+                break;
+            }
+            long start = position + header.position();
+            long end = start + length;
+            if (length < 0 || count < 0 || count > Integer.MAX_VALUE || end > size) {
+                break;
+            }
+            found.add(position, start, end, (int) count);
+            position = end;
+        }
+        return found;
+    }
+
+    /**
+     * The blocks found while scanning, in growable parallel arrays.
+     */
+    private static final class Blocks {
+        long[] headers = new long[16];
+        long[] starts = new long[16];
+        long[] ends = new long[16];
+        int[] games = new int[16];
+        int[] regions = new int[16];
+        int count;
+        long totalGames;
+
+        void add(long header, long start, long end, int blockGames) {
+            if (count == starts.length) {
+                headers = Arrays.copyOf(headers, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                games = Arrays.copyOf(games, count * 2);
+                regions = Arrays.copyOf(regions, count * 2);
+            }
+            headers[count] = header;
+            starts[count] = start;
+            ends[count] = end;
+            games[count] = blockGames;
+            count++;
+            totalGames += blockGames;
+        }
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7FL) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in archive");
+    }
+
+    /**
+     * @return a new copy of the configuration the games were played with
+     */
+    public GameConfig getConfig() {
+        return ArchiveFormat.readConfig(header.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public int getBlockCount() {
+        return blocks;
+    }
+
+    public long getGameCount() {
+        return games;
+    }
+
+    int getRegionCount() {
+        return regions.length;
+    }
+
+    /**
+     * Decodes every game in order.
+     *
+     * @throws IllegalStateException if a block is corrupt
+     */
+    public void forEach(Consumer<GameRecord> action) {
+        ArchiveBoard board = newBoard();
+        for (int block = 0; block < blocks; block++) {
+            readBlock(block, board, action);
+        }
+    }
+
+    /**
+     * Decodes the blocks in parallel. Games within a block arrive in order on one thread,
+     * but blocks arrive in any order, so the action must be thread-safe.
+     *
+     * @throws IllegalStateException if a block is corrupt
+     */
+    public void parallelForEach(Consumer<GameRecord> action) {
+        IntStream.range(0, blocks).parallel().forEach(block -> readBlock(block, newBoard(), action));
+    }
+
+    private ArchiveBoard newBoard() {
+        return new ArchiveBoard(config.getXSize(), config.getYSize());
+    }
+
+    /**
+     * Decodes the games in one block, in order, so callers can schedule blocks themselves.
+     *
+     * @throws IllegalStateException if the block is corrupt
+     */
+    public void readBlock(int block, Consumer<GameRecord> action) {
+        readBlock(block, newBoard(), action);
+    }
+
+    private void readBlock(int block, ArchiveBoard board, Consumer<GameRecord> action) {
+        int region = blockRegions[block];
+        long regionStart = regionStarts[region];
+        BitReader in = new BitReader(regions[region], (int) (blockStarts[block] - regionStart),
+                (int) (blockEnds[block] - regionStart));
+        for (int i = 0; i < blockGames[block]; i++) {
+            action.accept(ArchiveFormat.decode(in, board, spawnTable));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package town.lost.g2k.archive;
+
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams completed games into a compact archive, a block at a time.
+ * <p>
+ * Each game is replayed as it is written, so directions take 2 bits, a spawn's position is
+ * coded against the number of empty cells and its value against the spawn table, and scores
+ * aren't stored at all; random-play 4x4 games average about 5.5 bits per move. Games are
+ * collected into blocks of {@code gamesPerBlock}, each with a header giving its length,
+ * so {@link ArchiveReader} can decode blocks in parallel. Only the current block is held in memory.
+ * Not thread-safe.
+ */
+public class ArchiveWriter implements AutoCloseable {
+
+    public static final int DEFAULT_GAMES_PER_BLOCK = 1024;
+
+    // a block is written early if it grows past this, so a few very long games don't hold much memory
+    private static final int MAX_BLOCK_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final int gamesPerBlock;
+    private final int[] spawnTable;
+    private final ArchiveBoard board;
+    private final BitWriter block = new BitWriter();
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(20);
+    private int blockGames;
+    private long games;
+    private long moves;
+    private long bytes;
+
+    private ArchiveWriter(FileChannel channel, GameConfig config, int gamesPerBlock) {
+        this.channel = channel;
+        this.gamesPerBlock = gamesPerBlock;
+        this.spawnTable = ArchiveFormat.spawnTable(config);
+        this.board = new ArchiveBoard(config.getXSize(), config.getYSize());
+    }
+
+    public static ArchiveWriter create(Path path, GameConfig config) throws IOException {
+        return create(path, config, DEFAULT_GAMES_PER_BLOCK);
+    }
+
+    /**
+     * Creates or truncates the archive at {@code path} for games played with {@code config}.
+     */
+    public static ArchiveWriter create(Path path, GameConfig config, int gamesPerBlock) throws IOException {
+        if (gamesPerBlock < 1) {
+            throw new IllegalArgumentException("gamesPerBlock must be at least 1, was " + gamesPerBlock);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ArchiveWriter writer = new ArchiveWriter(channel, config, gamesPerBlock);
+        ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.headerSize(config)).order(ByteOrder.LITTLE_ENDIAN);
+        ArchiveFormat.writeHeader(header, config);
+        header.flip();
+        try {
+            writer.write(header);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    /**
+     * Appends a completed game, and sets its score.
+     *
+     * @throws IllegalArgumentException if the game doesn't follow the rules or spawns a value
+     *                                  missing from the config; nothing is written for it
+     */
+    public void write(GameRecord game) throws IOException {
+        block.mark();
+        try {
+            ArchiveFormat.encode(game, board, spawnTable, block);
+        } catch (IllegalArgumentException e) {
+            block.rollback();
+            throw e;
+        }
+        blockGames++;
+        games++;
+        moves += game.getMoveCount();
+        if (blockGames == gamesPerBlock || block.byteLength() >= MAX_BLOCK_BYTES) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockGames == 0) {
+            return;
+        }
+        byte[] payload = block.finish();
+        int length = block.byteLength();
+        blockHeader.clear();
+        putVarint(blockHeader, length);
+        putVarint(blockHeader, blockGames);
+        blockHeader.flip();
+        write(blockHeader);
+        write(ByteBuffer.wrap(payload, 0, length));
+        block.reset();
+        blockGames = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        bytes += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while (value >= 0x80) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public long getGameCount() {
+        return games;
+    }
+
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * @return the bytes written to the file so far, not counting the current block
+     */
+    public long getBytesWritten() {
+        return bytes;
+    }
+
+    /**
+     * Writes the last, partly filled block and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBlock();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package town.lost.g2k.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the values written by {@link BitWriter} from a region of a buffer.
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private int position;
+    private long pending;
+    private int pendingBits;
+
+    BitReader(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * @throws IllegalStateException if the region ends first
+     */
+    long read(int bits) {
+        while (pendingBits < bits) {
+            if (position == end) {
+                throw new IllegalStateException("Archive block ends mid-game");
+            }
+            pending |= (buffer.get(position++) & 0xFFL) << pendingBits;
+            pendingBits += 8;
+        }
+        long value = pending & ((1L << bits) - 1);
+        pending >>>= bits;
+        pendingBits -= bits;
+        return value;
+    }
+
+    long remainingBits() {
+        return (long) (end - position) * 8 + pendingBits;
+    }
+
+    int readTruncated(int n) {
+        if (n <= 1) {
+            return 0;
+        }
+        int k = 31 - Integer.numberOfLeadingZeros(n);
+        int u = (1 << (k + 1)) - n;
+        int code = (int) read(k);
+        if (code < u) {
+            return code;
+        }
+        return ((code << 1) | (int) read(1)) - u;
+    }
+
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            long group = read(8);
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in archive");
+    }
+}
@@ -0,0 +1,103 @@
+package town.lost.g2k.archive;
+
+import java.util.Arrays;
+
+/**
+ * Appends values of up to 56 bits to a growable byte array, least significant bit first.
+ */
+final class BitWriter {
+
+    private byte[] bytes = new byte[4096];
+    private int length;
+    private long pending;
+    private int pendingBits;
+    private int markLength;
+    private long markPending;
+    private int markPendingBits;
+
+    void write(long value, int bits) {
+        pending |= (value & ((1L << bits) - 1)) << pendingBits;
+        pendingBits += bits;
+        while (pendingBits >= 8) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) pending;
+            pending >>>= 8;
+            pendingBits -= 8;
+        }
+    }
+
+    /**
+     * Writes {@code value}, one of {@code n} equally likely values, in a truncated binary code:
+     * floor(log2 n) or one more bit, and no bits at all when n is 1.
+     */
+    void writeTruncated(int value, int n) {
+        if (n <= 1) {
+            return;
+        }
+        int k = 31 - Integer.numberOfLeadingZeros(n);
+        int u = (1 << (k + 1)) - n;
+        if (value < u) {
+            write(value, k);
+        } else {
+            int code = value + u;
+            // the first k bits are a prefix the reader can tell apart from the short codes
+            write(code >>> 1, k);
+            write(code & 1, 1);
+        }
+    }
+
+    /**
+     * Writes a non-negative value in 7-bit groups, each followed by a continuation bit.
+     */
+    void writeVarint(long value) {
+        while (value >= 0x80) {
+            write((value & 0x7F) | 0x80, 8);
+            value >>>= 7;
+        }
+        write(value, 8);
+    }
+
+    /**
+     * @return the number of bytes written, counting a partly filled last byte
+     */
+    int byteLength() {
+        return length + (pendingBits + 7) / 8;
+    }
+
+    /**
+     * Pads to a whole byte and returns the bytes, which stay valid until {@link #reset()}.
+     */
+    byte[] finish() {
+        if (pendingBits > 0) {
+            write(0, 8 - pendingBits);
+        }
+        return bytes;
+    }
+
+    /**
+     * Remembers the current position for {@link #rollback()}.
+     */
+    void mark() {
+        markLength = length;
+        markPending = pending;
+        markPendingBits = pendingBits;
+    }
+
+    /**
+     * Discards everything written since {@link #mark()}.
+     */
+    void rollback() {
+        length = markLength;
+        pending = markPending;
+        pendingBits = markPendingBits;
+    }
+
+    void reset() {
+        length = 0;
+        pending = 0;
+        pendingBits = 0;
+        mark();
+    }
+}
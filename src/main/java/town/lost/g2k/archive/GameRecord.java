@@ -0,0 +1,141 @@
+package town.lost.g2k.archive;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+
+import java.util.Arrays;
+
+/**
+ * One complete game as stored in an archive: the seed, the starting tiles, and each move's
+ * direction and spawned tile. The score is not stored; it is recomputed when the game is
+ * written or read.
+ */
+public class GameRecord {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final long seed;
+    private final int[] start;
+    private byte[] directions = new byte[64];
+    private int[] spawnCells = new int[64];
+    private int[] spawnValues = new int[64];
+    private int[] scores = new int[64];
+    private int moves;
+    private int score;
+    private int maxTile;
+
+    /**
+     * @param start the starting tiles, which must match the archive's board size
+     */
+    public GameRecord(long seed, int[][] start) {
+        this.seed = seed;
+        int xSize = start[0].length;
+        this.start = new int[start.length * xSize];
+        for (int r = 0; r < start.length; r++) {
+            System.arraycopy(start[r], 0, this.start, r * xSize, xSize);
+        }
+    }
+
+    GameRecord(long seed, int[] start, int moves) {
+        this.seed = seed;
+        this.start = start;
+        this.directions = new byte[Math.max(moves, 1)];
+        this.spawnCells = new int[Math.max(moves, 1)];
+        this.spawnValues = new int[Math.max(moves, 1)];
+        this.scores = new int[Math.max(moves, 1)];
+    }
+
+    /**
+     * Starts a record of the game on {@code board} from its current position.
+     */
+    public static GameRecord startOf(GameBoard board) {
+        return new GameRecord(board.getSeed(), board.getBoard());
+    }
+
+    /**
+     * Adds a move just applied to the board, with the tile it spawned.
+     */
+    public void addMove(Direction dir, GameBoard board) {
+        addMove(dir, board.getLastSpawnCell(), board.getLastSpawnValue());
+    }
+
+    /**
+     * @param spawnCell row * xSize + col of the spawned tile, or -1 if the move changed nothing
+     */
+    public void addMove(Direction dir, int spawnCell, int spawnValue) {
+        if (moves == directions.length) {
+            directions = Arrays.copyOf(directions, moves * 2);
+            spawnCells = Arrays.copyOf(spawnCells, moves * 2);
+            spawnValues = Arrays.copyOf(spawnValues, moves * 2);
+            scores = Arrays.copyOf(scores, moves * 2);
+        }
+        directions[moves] = (byte) dir.ordinal();
+        spawnCells[moves] = spawnCell;
+        spawnValues[moves] = spawnCell < 0 ? 0 : spawnValue;
+        moves++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the starting tile values, row by row
+     */
+    public int[] getStart() {
+        return start.clone();
+    }
+
+    int[] start() {
+        return start;
+    }
+
+    public int getMoveCount() {
+        return moves;
+    }
+
+    public Direction getDirection(int move) {
+        return DIRECTIONS[directions[move]];
+    }
+
+    /**
+     * @return row * xSize + col of the tile the move spawned, or -1 if it changed nothing
+     */
+    public int getSpawnCell(int move) {
+        return spawnCells[move];
+    }
+
+    public int getSpawnValue(int move) {
+        return spawnValues[move];
+    }
+
+    /**
+     * @return the score after the move, computed when the game was written to or read from an archive
+     */
+    public int getScoreAfter(int move) {
+        return scores[move];
+    }
+
+    void setScoreAfter(int move, int score) {
+        scores[move] = score;
+    }
+
+    /**
+     * @return the final score, computed when the game was written to or read from an archive
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the highest tile at the end, computed when the game was written to or read from an archive
+     */
+    public int getMaxTile() {
+        return maxTile;
+    }
+
+    void setResult(int score, int maxTile) {
+        this.score = score;
+        this.maxTile = maxTile;
+    }
+}
@@ -0,0 +1,172 @@
+package town.lost.g2k.broadcast;
+
+import town.lost.g2k.controller.GameChange;
+import town.lost.g2k.controller.GameChangeListener;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameState;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A preallocated single-producer, multi-consumer ring of board deltas, one per {@link GameChange},
+ * for any number of {@link Spectator}s to follow a live game.
+ * <p>
+ * Subscribe it to the game's controller with {@code addChangeListener}; it then writes on the thread
+ * driving the game, the only producer. Each delta holds the cells which changed, as exponents, and the
+ * score, move count and status. A slot is written between two stores of its sequence number: first
+ * "in progress", then the delta's sequence with release semantics, so a reader who sees the same sequence
+ * before and after copying a slot knows it copied one whole delta.
+ * <p>
+ * The producer never waits for spectators and nothing is allocated per delta. A spectator which falls
+ * more than the ring's capacity behind finds its next slot overwritten and resynchronises from the
+ * latest keyframe, a {@link GameState} published every {@code capacity / 4} deltas. The first keyframe
+ * is the board the ring was created with, so a spectator opened before any delta starts from the game
+ * as it is, not from an empty board.
+ */
+public class MoveDeltaRing implements GameChangeListener {
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long IN_PROGRESS = -1;
+
+    // per slot: changed cell count, score, move count, status ordinal
+    static final int COUNT = 0;
+    static final int SCORE = 1;
+    static final int MOVES = 2;
+    static final int STATUS = 3;
+    static final int HEADER_INTS = 4;
+
+    private final GameBoard model;
+    private final int capacity;
+    private final int mask;
+    private final int xSize;
+    private final int ySize;
+    private final int cellCount;
+    private final int keyframeInterval;
+
+    private final long[] sequences;
+    private final int[] headers;
+    // per slot, cellCount entries of (cell << 8 | exponent)
+    private final int[] cells;
+
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicReference<GameState> keyframe = new AtomicReference<>();
+
+    /**
+     * Create the ring on the producer thread and subscribe it before the board next changes, since its
+     * first keyframe is the board as it is now and the deltas which follow are applied to that.
+     *
+     * @param model    the board the controller publishes changes of, read on the producer thread for keyframes
+     * @param capacity the number of deltas kept, a power of two
+     */
+    public MoveDeltaRing(GameBoard model, int capacity) {
+        if (capacity < 4 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, at least 4: " + capacity);
+        }
+        this.model = model;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.xSize = model.getXSize();
+        this.ySize = model.getYSize();
+        this.cellCount = xSize * ySize;
+        this.keyframeInterval = capacity / 4;
+        this.sequences = new long[capacity];
+        this.headers = new int[capacity * HEADER_INTS];
+        this.cells = new int[capacity * cellCount];
+        for (int i = 0; i < capacity; i++) {
+            sequences[i] = IN_PROGRESS;
+        }
+        // numbered as if published just before the first delta
+        keyframe.set(GameState.of(model, -1));
+    }
+
+    /**
+     * Publishes the change as the next delta. Called by the controller on the producer thread.
+     */
+    @Override
+    public void gameChanged(GameChange change) {
+        long sequence = cursor.get() + 1;
+        int slot = (int) sequence & mask;
+
+        SEQUENCE.setOpaque(sequences, slot, IN_PROGRESS);
+        VarHandle.storeStoreFence();
+
+        int[][] board = change.board;
+        int cols = board[0].length;
+        int base = slot * cellCount;
+        int[] changed = change.changedCells;
+        for (int i = 0; i < changed.length; i++) {
+            int cell = changed[i];
+            int val = board[cell / cols][cell % cols];
+            cells[base + i] = cell << 8 | (val == 0 ? 0 : Integer.numberOfTrailingZeros(val));
+        }
+        int h = slot * HEADER_INTS;
+        headers[h + COUNT] = changed.length;
+        headers[h + SCORE] = change.score;
+        headers[h + MOVES] = model.getMoveCount();
+        headers[h + STATUS] = change.status.ordinal();
+
+        SEQUENCE.setRelease(sequences, slot, sequence);
+        if (sequence % keyframeInterval == 0) {
+            keyframe.set(GameState.of(model, sequence));
+        }
+        cursor.lazySet(sequence);
+    }
+
+    /**
+     * Opens a new spectator, which starts from the latest keyframe, or from the board the ring
+     * was created with if no delta has been published since.
+     */
+    public Spectator newSpectator(WaitStrategy waitStrategy) {
+        return new Spectator(this, waitStrategy);
+    }
+
+    /**
+     * @return the sequence of the latest delta, or -1 before the first
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getXSize() {
+        return xSize;
+    }
+
+    public int getYSize() {
+        return ySize;
+    }
+
+    GameState getKeyframe() {
+        return keyframe.get();
+    }
+
+    long acquireSequence(int slot) {
+        return (long) SEQUENCE.getAcquire(sequences, slot);
+    }
+
+    /**
+     * @return the sequence in the slot after an acquire fence, so after any reads of the slot before it
+     */
+    long recheckSequence(int slot) {
+        VarHandle.loadLoadFence();
+        return (long) SEQUENCE.getOpaque(sequences, slot);
+    }
+
+    int slotOf(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    int[] headers() {
+        return headers;
+    }
+
+    int[] cells() {
+        return cells;
+    }
+}
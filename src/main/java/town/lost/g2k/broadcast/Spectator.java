@@ -0,0 +1,175 @@
+package town.lost.g2k.broadcast;
+
+import town.lost.g2k.model.GameState;
+import town.lost.g2k.model.GameStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One consumer of a {@link MoveDeltaRing}, with its own cursor and its own copy of the board,
+ * kept up to date by applying deltas. Used by one thread at a time.
+ * <p>
+ * If the ring overwrites a delta before the spectator reads it, the spectator jumps to the ring's latest
+ * keyframe and carries on from there, so a slow spectator sees fewer states, and resumes from a whole one.
+ */
+public class Spectator {
+
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    private final MoveDeltaRing ring;
+    private final WaitStrategy waitStrategy;
+    private final int xSize;
+    private final int ySize;
+    private final byte[] exponents;
+    private int score;
+    private int moveCount;
+    private GameStatus status = GameStatus.RUNNING;
+    private long next;
+    private long resyncs;
+
+    Spectator(MoveDeltaRing ring, WaitStrategy waitStrategy) {
+        this.ring = ring;
+        this.waitStrategy = waitStrategy;
+        this.xSize = ring.getXSize();
+        this.ySize = ring.getYSize();
+        this.exponents = new byte[xSize * ySize];
+        load(ring.getKeyframe());
+    }
+
+    /**
+     * Applies every delta published since the last call, without waiting.
+     *
+     * @return the number of deltas applied or skipped over by resynchronising, 0 if there were none
+     */
+    public long poll() {
+        long start = next;
+        long available = ring.getCursor();
+        while (next <= available) {
+            if (available - next >= ring.getCapacity() || !apply(next)) {
+                long before = next;
+                resync();
+                if (next <= before) {
+                    // no newer keyframe yet; try again next time
+                    break;
+                }
+                available = ring.getCursor();
+            } else {
+                next++;
+            }
+        }
+        return next - start;
+    }
+
+    /**
+     * Waits with the wait strategy until there is a delta to apply, then applies all there are.
+     *
+     * @return as for {@link #poll()}, 0 if none arrived in time
+     */
+    public long take(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (ring.getCursor() < next) {
+            if (System.nanoTime() - deadline >= 0) {
+                return 0;
+            }
+            waitStrategy.idle();
+        }
+        return poll();
+    }
+
+    private boolean apply(long sequence) {
+        int slot = ring.slotOf(sequence);
+        if (ring.acquireSequence(slot) != sequence) {
+            return false;
+        }
+        int[] headers = ring.headers();
+        int[] cells = ring.cells();
+        int h = slot * MoveDeltaRing.HEADER_INTS;
+        int count = headers[h + MoveDeltaRing.COUNT];
+        int newScore = headers[h + MoveDeltaRing.SCORE];
+        int newMoves = headers[h + MoveDeltaRing.MOVES];
+        int newStatus = headers[h + MoveDeltaRing.STATUS];
+        if (count < 0 || count > exponents.length || newStatus < 0 || newStatus >= STATUSES.length) {
+            // torn by the producer overwriting the slot; the recheck below would fail too
+            return false;
+        }
+        int base = slot * exponents.length;
+        for (int i = 0; i < count; i++) {
+            int entry = cells[base + i];
+            int cell = entry >>> 8;
+            if (cell < exponents.length) {
+                exponents[cell] = (byte) entry;
+            }
+        }
+        if (ring.recheckSequence(slot) != sequence) {
+            // overwritten while we read it: the board may be half updated, so the caller resyncs
+            return false;
+        }
+        score = newScore;
+        moveCount = newMoves;
+        status = STATUSES[newStatus];
+        return true;
+    }
+
+    private void resync() {
+        resyncs++;
+        GameState keyframe = ring.getKeyframe();
+        if (keyframe.sequence >= next) {
+            load(keyframe);
+        }
+    }
+
+    private void load(GameState state) {
+        for (int r = 0, i = 0; r < state.ySize; r++) {
+            for (int c = 0; c < state.xSize; c++, i++) {
+                int val = state.getTile(r, c);
+                exponents[i] = (byte) (val == 0 ? 0 : Integer.numberOfTrailingZeros(val));
+            }
+        }
+        score = state.score;
+        moveCount = state.moveCount;
+        status = state.status;
+        next = state.sequence + 1;
+    }
+
+    /**
+     * @return the tile's value, or 0 if the cell is empty
+     */
+    public int getTile(int row, int col) {
+        int exponent = exponents[row * xSize + col];
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getXSize() {
+        return xSize;
+    }
+
+    public int getYSize() {
+        return ySize;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the sequence of the last delta applied, or -1 before the first
+     */
+    public long getSequence() {
+        return next - 1;
+    }
+
+    /**
+     * @return how many times this spectator fell too far behind and jumped to a keyframe
+     */
+    public long getResyncCount() {
+        return resyncs;
+    }
+}
@@ -0,0 +1,34 @@
+package town.lost.g2k.broadcast;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a {@link Spectator}, or a bot or host polling shared memory, waits for the next delta or command.
+ * None of them needs anything from the other side, so the writer never pays to wake the reader.
+ */
+public enum WaitStrategy {
+    /** Spins on the CPU: the lowest latency, but a core per waiting spectator. */
+    BUSY_SPIN,
+    /** Yields to other threads between checks. */
+    YIELD,
+    /** Sleeps for {@value #PARK_NANOS} ns between checks: the most spectators per core, at up to that latency. */
+    PARK;
+
+    static final long PARK_NANOS = 100_000;
+
+    /**
+     * Waits once between checks.
+     */
+    public void idle() {
+        switch (this) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
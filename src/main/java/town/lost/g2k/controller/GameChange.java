@@ -0,0 +1,52 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.GameStatus;
+
+/**
+ * What changed in the game since the controller last published its state:
+ * which cells, and whether the score, status or high score record changed.
+ * <p>
+ * One change is published per refresh, so a batch of moves is one change covering all of them.
+ * The change also carries the whole current state, so a listener can use any part of it.
+ * Listeners share the instance and must not modify {@link #board} or {@link #changedCells}.
+ */
+public class GameChange {
+
+    public static final int CELLS = 1;
+    public static final int SCORE = 2;
+    public static final int STATUS = 4;
+    /** Only published with a HighScoreManager. */
+    public static final int RECORD = 8;
+
+    /** Which of CELLS, SCORE, STATUS and RECORD changed, as a bit set. */
+    public final int changes;
+    /** Changed cells as {@code row * columns + column}, in ascending order. */
+    public final int[] changedCells;
+    public final int[][] board;
+    public final int score;
+    public final GameStatus status;
+    /** The high score for this board size, or 0 without a HighScoreManager. */
+    public final int record;
+
+    public GameChange(int changes, int[] changedCells, int[][] board, int score, GameStatus status, int record) {
+        this.changes = changes;
+        this.changedCells = changedCells;
+        this.board = board;
+        this.score = score;
+        this.status = status;
+        this.record = record;
+    }
+
+    /**
+     * @param kind one of CELLS, SCORE, STATUS or RECORD
+     */
+    public boolean has(int kind) {
+        return (changes & kind) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return changedCells.length + " cells" + (has(SCORE) ? ", score " + score : "")
+                + (has(STATUS) ? ", " + status : "") + (has(RECORD) ? ", record " + record : "");
+    }
+}
@@ -0,0 +1,10 @@
+package town.lost.g2k.controller;
+
+/**
+ * Receives each {@link GameChange} the GameController publishes, on the thread driving the controller.
+ */
+@FunctionalInterface
+public interface GameChangeListener {
+
+    void gameChanged(GameChange change);
+}
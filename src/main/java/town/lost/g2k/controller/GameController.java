@@ -1,28 +1,68 @@
 package town.lost.g2k.controller;
 
+import town.lost.g2k.journal.GameJournal;
+import town.lost.g2k.metrics.GameMetrics;
+import town.lost.g2k.metrics.RefreshViewEvent;
+import town.lost.g2k.model.BatchResult;
 import town.lost.g2k.model.Direction;
 import town.lost.g2k.model.GameBoard;
 import town.lost.g2k.model.GameConfig;
 import town.lost.g2k.model.GameStatus;
+import town.lost.g2k.queue.EventAppender;
 import town.lost.g2k.view.GameView;
 import town.lost.g2k.view.TileMovement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
 /**
  * Controls gameplay by receiving user inputs (move, undo, reset)
  * and calling the model (GameBoard).
  * Avoids circular references by excluding GameView from the constructor,
  * using setView(...) afterwards.
- * Can optionally track high scores per dimension (NxN) using HighScoreManager.
+ * Can optionally track high scores per dimension (NxN) using HighScoreManager,
+ * and record every game to a GameJournal, and every event to an event queue.
+ * <p>
+ * {@link #queueMove(Direction)} accepts moves from any thread into a bounded queue. The queue
+ * drains on the move executor: every queued move is applied to the model straight away, and the
+ * view gets one animation from the board before the first to the board after the last.
+ * The executor must run tasks on the thread that uses the controller, such as the Event Dispatch Thread.
+ * <p>
+ * Each refresh publishes one {@link GameChange} to the change listeners, listing the cells that differ
+ * from the last refresh and whether the score, status or record changed. A view which is itself a
+ * {@link GameChangeListener} is subscribed by {@link #setView} and updated only from these changes,
+ * instead of being redrawn in full.
  */
 public class GameController {
 
+    public static final int MAX_QUEUED_MOVES = 64;
+
     private final GameBoard model;
     private final GameConfig config;
     private GameView view;
     private HighScoreManager scoreManager;
+    private GameJournal journal;
+    private EventAppender eventLog;
+    private long eventGameId;
+
+    private final BlockingDeque<Direction> queuedMoves = new LinkedBlockingDeque<>(MAX_QUEUED_MOVES);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile Executor moveExecutor = Runnable::run;
+
+    private final List<GameChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    // the state last published, or null to publish everything next time
+    private int[] publishedCells;
+    private int publishedScore;
+    private GameStatus publishedStatus;
+    private int publishedRecord;
 
     public GameController(GameBoard model, GameConfig config) {
         this.model = model;
@@ -33,8 +73,55 @@ public class GameController {
         this.scoreManager = manager;
     }
 
+    /**
+     * Records resets, moves and undos to the journal from now on. The caller closes it.
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Appends every start, move, spawn, merge, undo, reset and end to the event queue from now on,
+     * tagged with {@code gameId}. The caller closes it; the appender must not be shared with another
+     * controller unless they run on the same thread.
+     */
+    public void setEventLog(EventAppender appender, long gameId) {
+        this.eventLog = appender;
+        this.eventGameId = gameId;
+    }
+
+    /**
+     * Sets where queued moves are applied. The default applies them at once on the thread which queued them.
+     */
+    public void setMoveExecutor(Executor executor) {
+        this.moveExecutor = executor;
+    }
+
+    public Executor getMoveExecutor() {
+        return moveExecutor;
+    }
+
     public void setView(GameView view) {
+        if (this.view instanceof GameChangeListener) {
+            changeListeners.remove(this.view);
+        }
         this.view = view;
+        if (view instanceof GameChangeListener) {
+            changeListeners.add((GameChangeListener) view);
+        }
+        publishedCells = null;
+    }
+
+    /**
+     * Subscribes a listener to every change published from now on.
+     * It first hears of the whole board at the next refresh after {@link #startGame()}.
+     */
+    public void addChangeListener(GameChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(GameChangeListener listener) {
+        changeListeners.remove(listener);
     }
 
     public GameConfig getConfig() {
@@ -51,58 +138,217 @@ public class GameController {
         if (scoreManager != null) {
             scoreManager.loadHighScores();
         }
+        // the view may have reset the game already, which journals it
+        if (journal != null && journal.getRecordCount() == 0) {
+            journal.recordReset(model);
+        }
+        if (eventLog != null) {
+            eventLog.appendStart(eventGameId, model);
+        }
 
+        // listeners and the view start from the whole board
+        publishedCells = null;
         refreshView();
     }
 
     public void onUserMove(Direction dir) {
+        applyQueuedMoves();
         if (!model.isGameOver()) {
             // 1) Capture the board before the move
             int[][] preMove = copyBoard(model.getBoard());
 
-            // 2) Perform the move in the model
+            // 2) Perform the move in the model, and record any new high score straight away
+            //    rather than waiting for the animation to finish
             model.move(dir);
+            updateHighScoreIfNeeded();
+            recordMove(dir);
+            if (journal != null && model.isGameOver()) {
+                journal.flush();
+            }
+
+            // 3) Animate from the board before the move to the board after it
+            animate(preMove);
+        }
+    }
 
-            // 3) Construct sliding animations (pre vs. post)
-            int[][] postMove = copyBoard(model.getBoard());
-            List<TileMovement> tileMovements = findTileMovements(preMove, postMove);
-
-            // 4) Let the view animate these movements
-            //    (then show final board when done)
-            if (view != null) {
-                view.showAnimations(tileMovements, () -> {
-                    // Callback after animation completes
-                    postMoveUpdate();
-                });
-            } else {
-                // If no view or no animation, just do normal postMoveUpdate
+    private void animate(int[][] preMove) {
+        // Construct sliding animations (pre vs. post)
+        long diffStart = GameMetrics.start();
+        int[][] postMove = copyBoard(model.getBoard());
+        List<TileMovement> tileMovements = findTileMovements(preMove, postMove);
+        GameMetrics.stop(GameMetrics.Timer.MOVEMENT_DIFF, diffStart);
+
+        // Let the view animate these movements
+        // (then show final board when done)
+        if (view != null) {
+            view.showAnimations(tileMovements, () -> {
+                // Callback after animation completes
                 postMoveUpdate();
+            });
+        } else {
+            // If no view or no animation, just do normal postMoveUpdate
+            postMoveUpdate();
+        }
+    }
+
+    /**
+     * Queues a move to be applied on the move executor, together with any others queued before it runs.
+     *
+     * If the executor rejects the drain, for example because its thread has closed, this move is dropped
+     * and the next one tries again; any queued meanwhile wait for it.
+     *
+     * @return false if {@value #MAX_QUEUED_MOVES} moves are already waiting, or the executor rejected the drain,
+     * so this one was dropped
+     */
+    public boolean queueMove(Direction dir) {
+        if (!queuedMoves.offer(dir)) {
+            return false;
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                moveExecutor.execute(this::drainQueuedMoves);
+            } catch (RejectedExecutionException e) {
+                // otherwise no move would ever schedule a drain again
+                drainScheduled.set(false);
+                queuedMoves.removeLastOccurrence(dir);
+                return false;
             }
         }
+        return true;
+    }
+
+    /**
+     * @return the number of moves waiting to be applied
+     */
+    public int getQueuedMoveCount() {
+        return queuedMoves.size();
+    }
+
+    private void drainQueuedMoves() {
+        // cleared first, so a move queued from now on schedules another drain
+        drainScheduled.set(false);
+        applyQueuedMoves();
+    }
+
+    /**
+     * Applies every queued move, then animates the net change once.
+     * Moves queued after the game ends are discarded.
+     */
+    private void applyQueuedMoves() {
+        if (queuedMoves.isEmpty()) {
+            return;
+        }
+        int[][] preMove = copyBoard(model.getBoard());
+        int applied = 0;
+        Direction dir;
+        while ((dir = queuedMoves.poll()) != null) {
+            if (model.isGameOver()) {
+                queuedMoves.clear();
+                break;
+            }
+            model.move(dir);
+            applied++;
+            recordMove(dir);
+        }
+        if (applied == 0) {
+            return;
+        }
+        updateHighScoreIfNeeded();
+        if (journal != null && model.isGameOver()) {
+            journal.flush();
+        }
+        animate(preMove);
+    }
+
+    /**
+     * Plays a sequence of moves with no animations, then updates the high score and refreshes
+     * the view once, showing the end screen if the game ended.
+     * Stops early when the game ends or {@code stopWhen}, if given, accepts the board.
+     * With a journal or event queue, every move is still recorded.
+     */
+    public BatchResult onUserMoves(Direction[] dirs, int from, int count, Predicate<GameBoard> stopWhen) {
+        BatchResult result;
+        if (journal == null && eventLog == null) {
+            result = model.moveAll(dirs, from, count, stopWhen);
+        } else {
+            result = recordMoves(dirs, from, count, stopWhen);
+            if (journal != null && model.isGameOver()) {
+                journal.flush();
+            }
+        }
+        if (result.applied > 0) {
+            updateHighScoreIfNeeded();
+            postMoveUpdate();
+        }
+        return result;
+    }
+
+    public BatchResult onUserMoves(Direction[] dirs) {
+        return onUserMoves(dirs, 0, dirs.length, null);
+    }
+
+    private BatchResult recordMoves(Direction[] dirs, int from, int count, Predicate<GameBoard> stopWhen) {
+        int scoreBefore = model.getScore();
+        int movesBefore = model.getMoveCount();
+        int i = 0;
+        BatchResult.Stop stop = BatchResult.Stop.COMPLETED;
+        for (; i < count; i++) {
+            if (model.isGameOver()) {
+                stop = BatchResult.Stop.GAME_OVER;
+                break;
+            }
+            model.move(dirs[from + i]);
+            recordMove(dirs[from + i]);
+            if (stopWhen != null && stopWhen.test(model)) {
+                i++;
+                stop = BatchResult.Stop.CONDITION;
+                break;
+            }
+        }
+        return new BatchResult(i, model.getMoveCount() - movesBefore, model.getScore() - scoreBefore,
+                model.getScore(), model.getStatus(), stop);
+    }
+
+    private void recordMove(Direction dir) {
+        if (journal != null) {
+            journal.recordMove(dir, model);
+        }
+        if (eventLog != null) {
+            eventLog.appendMove(eventGameId, dir, model);
+        }
     }
 
     public void onUndo() {
+        // moves queued before the undo come first
+        applyQueuedMoves();
         if (config.isUndoEnabled()) {
             model.undo();
+            if (journal != null) {
+                journal.recordUndo(model);
+            }
+            if (eventLog != null) {
+                eventLog.appendUndo(eventGameId, model);
+            }
             refreshView();
         }
     }
 
     public void resetGame() {
+        queuedMoves.clear();
         model.reset();
+        if (journal != null) {
+            journal.recordReset(model);
+        }
+        if (eventLog != null) {
+            eventLog.appendReset(eventGameId, model);
+        }
         refreshView();
     }
 
     private void postMoveUpdate() {
-        if (model.getStatus() == GameStatus.WON || model.getStatus() == GameStatus.LOST) {
-            updateHighScoreIfNeeded();
-            refreshView();
-            if (view != null) {
-                view.displayEndScreen(model.getStatus(), model.getScore());
-            }
-        } else {
-            refreshView();
-            updateHighScoreIfNeeded();
+        refreshView();
+        if (view != null && (model.getStatus() == GameStatus.WON || model.getStatus() == GameStatus.LOST)) {
+            view.displayEndScreen(model.getStatus(), model.getScore());
         }
     }
 
@@ -167,22 +413,90 @@ public class GameController {
             int record = scoreManager.getHighScoreFor(boardSize);
             if (currentScore > record) {
                 scoreManager.setHighScoreFor(boardSize, currentScore);
+                long saveStart = GameMetrics.start();
                 scoreManager.saveHighScores();
+                GameMetrics.stop(GameMetrics.Timer.HIGH_SCORE_SAVE, saveStart);
             }
         }
     }
 
     private void refreshView() {
-        if (view != null) {
-            view.renderBoard(model.getBoard());
+        if (view == null && changeListeners.isEmpty()) {
+            return;
+        }
+        long start = GameMetrics.start();
+        RefreshViewEvent event = new RefreshViewEvent();
+        event.begin();
+        int[][] board = model.getBoard();
+        int record = 0;
+        if (scoreManager != null) {
+            int dimKey = model.getXSize() * 10 + model.getYSize();
+            record = scoreManager.getHighScoreFor(dimKey);
+        }
+
+        if (view != null && !(view instanceof GameChangeListener)) {
+            view.renderBoard(board);
             view.displayScore(model.getScore());
             view.displayGameStatus(model.getStatus());
-
             if (scoreManager != null) {
-                int dimKey = model.getXSize() * 10 + model.getYSize();
-                int record = scoreManager.getHighScoreFor(dimKey);
                 view.updateHighScore(record);
             }
         }
+        GameChange change = diffPublished(board, record);
+        if (change != null) {
+            for (GameChangeListener listener : changeListeners) {
+                listener.gameChanged(change);
+            }
+        }
+
+        GameMetrics.stop(GameMetrics.Timer.RENDER, start);
+        if (event.isEnabled()) {
+            event.score = model.getScore();
+            event.status = model.getStatus().name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Compares the board, score, status and record with those last published, and remembers the new ones.
+     *
+     * @return what changed, or null if nothing did
+     */
+    private GameChange diffPublished(int[][] board, int record) {
+        int cols = board[0].length;
+        int cellCount = board.length * cols;
+        boolean everything = publishedCells == null || publishedCells.length != cellCount;
+        if (everything) {
+            publishedCells = new int[cellCount];
+        }
+        int[] changed = new int[cellCount];
+        int changedCount = 0;
+        for (int r = 0, i = 0; r < board.length; r++) {
+            for (int c = 0; c < cols; c++, i++) {
+                if (everything || publishedCells[i] != board[r][c]) {
+                    publishedCells[i] = board[r][c];
+                    changed[changedCount++] = i;
+                }
+            }
+        }
+
+        int changes = changedCount > 0 ? GameChange.CELLS : 0;
+        if (everything || publishedScore != model.getScore()) {
+            changes |= GameChange.SCORE;
+        }
+        if (everything || publishedStatus != model.getStatus()) {
+            changes |= GameChange.STATUS;
+        }
+        if (scoreManager != null && (everything || publishedRecord != record)) {
+            changes |= GameChange.RECORD;
+        }
+        publishedScore = model.getScore();
+        publishedStatus = model.getStatus();
+        publishedRecord = record;
+        if (changes == 0) {
+            return null;
+        }
+        int[] changedCells = changedCount == cellCount ? changed : Arrays.copyOf(changed, changedCount);
+        return new GameChange(changes, changedCells, board, publishedScore, publishedStatus, record);
     }
 }
@@ -0,0 +1,187 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameState;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single game thread which owns a GameBoard and its GameController, and publishes the board's
+ * state as an immutable {@link GameState} after every batch of commands.
+ * <p>
+ * Once started, only the game thread may touch the board or call the controller. Other threads hand it
+ * work through {@link #execute}, or through {@link GameController#queueMove} with this thread as the
+ * controller's move executor, and read the latest state with {@link #getState()}: a single volatile read,
+ * with no locks and no copying. Commands waiting together are run together and published once, so the
+ * writer never waits for the readers and a slow reader only skips states.
+ * <p>
+ * The controller's view and listeners are called on the game thread, so a Swing view should follow the
+ * published state instead, see {@link town.lost.g2k.view.SwingGameView#followState}.
+ */
+public class GameThread implements Executor, AutoCloseable {
+
+    public static final int MAX_PENDING_COMMANDS = 1024;
+
+    private final GameController controller;
+    private final GameBoard model;
+    private final BlockingQueue<Runnable> commands = new ArrayBlockingQueue<>(MAX_PENDING_COMMANDS);
+    private final AtomicReference<GameState> state = new AtomicReference<>();
+    private final Thread thread;
+    private final Executor previousExecutor;
+    private volatile Runnable publishListener;
+    private volatile boolean running = true;
+    // game thread only
+    private long sequence;
+    private boolean dirty;
+
+    private GameThread(GameController controller, GameBoard model) {
+        this.controller = controller;
+        this.model = model;
+        this.previousExecutor = controller.getMoveExecutor();
+        state.set(GameState.of(model, sequence));
+        thread = new Thread(this::run, "game-thread");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Hands the model and controller over to a new game thread, after publishing their state as sequence 0,
+     * and makes it the controller's move executor until it is closed.
+     * The calling thread must not use either of them afterwards, except through the game thread.
+     */
+    public static GameThread start(GameController controller, GameBoard model) {
+        GameThread gameThread = new GameThread(controller, model);
+        controller.setMoveExecutor(gameThread);
+        gameThread.thread.start();
+        return gameThread;
+    }
+
+    /**
+     * @return the latest published state
+     */
+    public GameState getState() {
+        return state.get();
+    }
+
+    /**
+     * Sets what to run on the game thread after each state is published, such as scheduling a repaint.
+     * It must be quick, and must not wait for other threads.
+     */
+    public void setPublishListener(Runnable listener) {
+        this.publishListener = listener;
+    }
+
+    public GameController getController() {
+        return controller;
+    }
+
+    /**
+     * Runs the command on the game thread, then publishes the state.
+     *
+     * @throws RejectedExecutionException if {@value #MAX_PENDING_COMMANDS} commands are waiting, or the thread is closed
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (!running || !commands.offer(command)) {
+            throw new RejectedExecutionException(running ? "Game thread is busy" : "Game thread is closed");
+        }
+    }
+
+    /**
+     * Moves in the given direction on the game thread, together with any other queued moves.
+     *
+     * @return false if the controller's move queue is full and the move was dropped
+     */
+    public boolean move(Direction dir) {
+        return controller.queueMove(dir);
+    }
+
+    /**
+     * Runs the command on the game thread and waits until its state is published.
+     * If the command throws, the same exception is thrown here, after the state is published.
+     *
+     * @throws RejectedExecutionException if the command can't be queued, see {@link #execute}
+     */
+    public void executeAndWait(Runnable command) throws InterruptedException {
+        if (Thread.currentThread() == thread) {
+            command.run();
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        execute(() -> {
+            try {
+                try {
+                    command.run();
+                } catch (RuntimeException | Error e) {
+                    failure.set(e);
+                }
+                publish();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e != null) {
+            throw (Error) e;
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                Runnable command = commands.take();
+                do {
+                    dirty = true;
+                    try {
+                        command.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Error on the game thread:");
+                        e.printStackTrace();
+                    }
+                } while ((command = commands.poll()) != null);
+                if (dirty) {
+                    publish();
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void publish() {
+        dirty = false;
+        state.set(GameState.of(model, ++sequence));
+        Runnable listener = publishListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Stops the game thread after the command it is running, dropping any still waiting,
+     * and hands the model back to the calling thread, and the controller back its previous move executor.
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (controller.getMoveExecutor() == this) {
+            controller.setMoveExecutor(previousExecutor);
+        }
+    }
+}
@@ -1,27 +1,52 @@
 package town.lost.g2k.controller;
 
+import town.lost.g2k.metrics.HighScoreSaveEvent;
 import town.lost.g2k.model.GameConfig;
 
 import java.io.*;
-import java.util.HashMap;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manages separate high scores for each board size.
  * Stores them in a single file "size=score" lines.
+ * If no file path is configured, the records are kept in memory only.
+ * <p>
+ * Each save writes a temporary file and atomically moves it into place, so a crash
+ * mid-write never leaves a corrupt file. With {@link #enableWriteBehind(long)},
+ * saveHighScores() only marks the records dirty, and a background thread coalesces
+ * the updates into one write per interval and a final write on close or shutdown.
  */
-public class HighScoreManager {
+public class HighScoreManager implements AutoCloseable {
 
     private final GameConfig config;
     private final Map<Integer, Integer> sizeToScoreMap;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    // held while writing, so the background writer and a final flush never share the temporary file
+    private final Object writeLock = new Object();
+
+    private volatile ScheduledExecutorService writer;
+    private Thread shutdownHook;
 
     public HighScoreManager(GameConfig config) {
         this.config = config;
-        this.sizeToScoreMap = new HashMap<>();
+        this.sizeToScoreMap = new ConcurrentHashMap<>();
     }
 
     public void loadHighScores() {
         String filePath = config.getHighScoreFilePath();
+        if (filePath == null) {
+            return; // in memory only
+        }
         File file = new File(filePath);
 
         if (!file.exists()) {
@@ -53,28 +78,127 @@ public class HighScoreManager {
         }
     }
 
+    /**
+     * Writes the records now, or in write-behind mode, schedules them to be written.
+     */
     public void saveHighScores() {
+        dirty.set(true);
+        if (writer == null) {
+            flush();
+        }
+    }
+
+    /**
+     * Switches to write-behind: saves are coalesced in memory and written by a background
+     * thread at most every {@code flushIntervalMs}, and once more on close or JVM shutdown.
+     */
+    public synchronized void enableWriteBehind(long flushIntervalMs) {
+        if (writer != null) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "high-score-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::flush, "high-score-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Writes the records if anything changed since the last write.
+     */
+    public void flush() {
+        if (dirty.getAndSet(false)) {
+            writeFile();
+        }
+    }
+
+    /**
+     * Stops the background writer, if any, and writes any pending records.
+     */
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // already shutting down, the hook will flush too
+            }
+            shutdownHook = null;
+        }
+        flush();
+    }
+
+    private void writeFile() {
         String filePath = config.getHighScoreFilePath();
-        File file = new File(filePath);
+        if (filePath == null) {
+            return; // in memory only
+        }
+        synchronized (writeLock) {
+            writeFile(filePath);
+        }
+    }
+
+    private void writeFile(String filePath) {
+        Path file = new File(filePath).toPath();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        HighScoreSaveEvent event = new HighScoreSaveEvent();
+        event.begin();
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Map.Entry<Integer, Integer> entry : sizeToScoreMap.entrySet()) {
-                writer.write(entry.getKey() + "=" + entry.getValue());
-                writer.newLine();
+        Map<Integer, Integer> records = new TreeMap<>(sizeToScoreMap);
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp)) {
+                for (Map.Entry<Integer, Integer> entry : records.entrySet()) {
+                    out.write(entry.getKey() + "=" + entry.getValue());
+                    out.newLine();
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
             }
         } catch (IOException e) {
             System.err.println("Error writing high scores to: " + filePath);
+            dirty.set(true); // try again on the next flush
+        }
+        if (event.isEnabled()) {
+            event.file = filePath;
+            event.records = records.size();
+            event.commit();
         }
     }
 
+    /**
+     * Replays a game submitted from outside with {@code verifier}, and records its score only if
+     * its claimed score and status are genuine. Games played here set their records directly.
+     *
+     * @return the verdict; an accepted game only changes the record if it beats it
+     */
+    public ScoreVerifier.Verdict submit(ScoreSubmission submission, ScoreVerifier verifier) {
+        return verifier.verify(submission, game -> {
+            int boardSize = game.getXSize() * 10 + game.getYSize();
+            if (game.getScore() > getHighScoreFor(boardSize)) {
+                setHighScoreFor(boardSize, game.getScore());
+                saveHighScores();
+            }
+        });
+    }
+
     public int getHighScoreFor(int boardSize) {
         return sizeToScoreMap.getOrDefault(boardSize, 0);
     }
 
     public void setHighScoreFor(int boardSize, int newScore) {
-        int current = sizeToScoreMap.getOrDefault(boardSize, 0);
-        if (newScore > current) {
-            sizeToScoreMap.put(boardSize, newScore);
-        }
+        sizeToScoreMap.merge(boardSize, newScore, Math::max);
     }
 }
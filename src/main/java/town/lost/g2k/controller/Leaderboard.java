@@ -0,0 +1,276 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The top K completed games for each configuration, keyed by {@link GameConfig#configKey()}.
+ * <p>
+ * Each configuration has a bounded min-heap, so an insert is O(log K) and the K-th best
+ * score is always at the root. Once a heap is full, scores at or below that threshold are
+ * rejected with a single volatile read and no lock, which is nearly every game in a large run.
+ * Games can be submitted from many threads; only inserts into the same configuration contend.
+ * <p>
+ * The binary form is read with one call and parsed from a ByteBuffer:
+ * <pre>
+ * header: magic "G2KL", version, K, configurations
+ * per configuration: key, count, then count entries of score (8), max tile (4), moves (4), seed (8)
+ * </pre>
+ */
+public class Leaderboard {
+
+    public static final int DEFAULT_SIZE = 100;
+
+    private static final int MAGIC = 0x4C4B_3247; // "G2KL" in little-endian order
+    private static final int VERSION = 1;
+    private static final int ENTRY_SIZE = 24;
+
+    private final int size;
+    private final Map<Long, TopK> tables = new ConcurrentHashMap<>();
+
+    public Leaderboard() {
+        this(DEFAULT_SIZE);
+    }
+
+    public Leaderboard(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1, was " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Submits a finished game.
+     *
+     * @return true if it made the top K for its configuration
+     */
+    public boolean submit(GameConfig config, GameBoard game, long seed) {
+        return submit(config.configKey(), game.getScore(), game.getMaxTile(), game.getMoveCount(), seed);
+    }
+
+    /**
+     * Replays a game submitted from outside with {@code verifier}, and enters it under the verifier's rules
+     * only if its claimed score and status are genuine.
+     *
+     * @return the verdict; an accepted game still only enters if it makes the top K
+     */
+    public ScoreVerifier.Verdict submit(ScoreSubmission submission, ScoreVerifier verifier) {
+        return verifier.verify(submission, game -> submit(verifier.getRules(), game, submission.seed));
+    }
+
+    /**
+     * Submits a finished game.
+     *
+     * @return true if it made the top K for its configuration
+     */
+    public boolean submit(long configKey, long score, int maxTile, int moves, long seed) {
+        TopK table = tables.get(configKey);
+        if (table == null) {
+            table = tables.computeIfAbsent(configKey, k -> new TopK(size));
+        }
+        return table.offer(score, maxTile, moves, seed);
+    }
+
+    /**
+     * @return the entries for the configuration, best first
+     */
+    public List<LeaderboardEntry> top(long configKey) {
+        TopK table = tables.get(configKey);
+        return table == null ? Collections.emptyList() : table.sorted();
+    }
+
+    /**
+     * @return the score a game must beat to enter the configuration's table, or Long.MIN_VALUE if it isn't full
+     */
+    public long threshold(long configKey) {
+        TopK table = tables.get(configKey);
+        return table == null ? Long.MIN_VALUE : table.threshold;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Writes the leaderboard to a temporary file, then moves it into place.
+     */
+    public void save(Path path) throws IOException {
+        List<Map.Entry<Long, TopK>> snapshot = new ArrayList<>(tables.entrySet());
+        int capacity = 16 + snapshot.size() * (12 + size * ENTRY_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(snapshot.size());
+        for (Map.Entry<Long, TopK> entry : snapshot) {
+            buffer.putLong(entry.getKey());
+            entry.getValue().writeTo(buffer);
+        }
+        buffer.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static Leaderboard load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a leaderboard file: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported leaderboard version " + version + ": " + path);
+        }
+        try {
+            Leaderboard leaderboard = new Leaderboard(buffer.getInt());
+            int configurations = buffer.getInt();
+            // each configuration takes at least its key and count, so a larger figure means a damaged file
+            checkCount(configurations, buffer.remaining() / 12, path);
+            for (int i = 0; i < configurations; i++) {
+                long key = buffer.getLong();
+                int count = buffer.getInt();
+                checkCount(count, buffer.remaining() / ENTRY_SIZE, path);
+                for (int j = 0; j < count; j++) {
+                    leaderboard.submit(key, buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+                }
+            }
+            return leaderboard;
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException("Not a readable leaderboard file: " + path, e);
+        }
+    }
+
+    private static void checkCount(int count, int limit, Path path) throws IOException {
+        if (count < 0 || count > limit) {
+            throw new IOException("Not a readable leaderboard file, count " + count + " exceeds what remains: " + path);
+        }
+    }
+
+    /**
+     * A bounded min-heap held in parallel primitive arrays.
+     */
+    private static final class TopK {
+        private final long[] scores;
+        private final int[] maxTiles;
+        private final int[] moves;
+        private final long[] seeds;
+        private int count;
+        // the lowest score in a full heap, read without locking to reject most games
+        private volatile long threshold = Long.MIN_VALUE;
+
+        TopK(int size) {
+            scores = new long[size];
+            maxTiles = new int[size];
+            moves = new int[size];
+            seeds = new long[size];
+        }
+
+        boolean offer(long score, int maxTile, int moveCount, long seed) {
+            if (score <= threshold) {
+                return false;
+            }
+            synchronized (this) {
+                if (count < scores.length) {
+                    set(count, score, maxTile, moveCount, seed);
+                    siftUp(count++);
+                } else if (score > scores[0]) {
+                    set(0, score, maxTile, moveCount, seed);
+                    siftDown(0);
+                } else {
+                    return false;
+                }
+                if (count == scores.length) {
+                    threshold = scores[0];
+                }
+                return true;
+            }
+        }
+
+        synchronized List<LeaderboardEntry> sorted() {
+            List<LeaderboardEntry> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(new LeaderboardEntry(scores[i], maxTiles[i], moves[i], seeds[i]));
+            }
+            list.sort((a, b) -> Long.compare(b.score, a.score));
+            return list;
+        }
+
+        synchronized void writeTo(ByteBuffer buffer) {
+            buffer.putInt(count);
+            for (int i = 0; i < count; i++) {
+                buffer.putLong(scores[i]).putInt(maxTiles[i]).putInt(moves[i]).putLong(seeds[i]);
+            }
+        }
+
+        private void set(int i, long score, int maxTile, int moveCount, long seed) {
+            scores[i] = score;
+            maxTiles[i] = maxTile;
+            moves[i] = moveCount;
+            seeds[i] = seed;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= count) {
+                    return;
+                }
+                int smallest = left + 1 < count && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int maxTile = maxTiles[a];
+            maxTiles[a] = maxTiles[b];
+            maxTiles[b] = maxTile;
+            int moveCount = moves[a];
+            moves[a] = moves[b];
+            moves[b] = moveCount;
+            long seed = seeds[a];
+            seeds[a] = seeds[b];
+            seeds[b] = seed;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package town.lost.g2k.controller;
+
+/**
+ * One completed game on a Leaderboard.
+ */
+public class LeaderboardEntry {
+    public final long score;
+    public final int maxTile;
+    public final int moves;
+    public final long seed;
+
+    public LeaderboardEntry(long score, int maxTile, int moves, long seed) {
+        this.score = score;
+        this.maxTile = maxTile;
+        this.moves = moves;
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return "score=" + score + ", maxTile=" + maxTile + ", moves=" + moves + ", seed=" + seed;
+    }
+}
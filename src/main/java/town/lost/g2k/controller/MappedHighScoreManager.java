@@ -0,0 +1,42 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.GameConfig;
+
+/**
+ * A HighScoreManager backed by a MappedHighScoreStore shared between processes.
+ * <p>
+ * Records are keyed by the whole {@link GameConfig#configKey()} of the live config, so the
+ * {@code boardSize} argument used by the text format is ignored. Updates go straight into
+ * the mapped file, so loading and saving have nothing to do.
+ */
+public class MappedHighScoreManager extends HighScoreManager {
+
+    private final GameConfig config;
+    private final MappedHighScoreStore store;
+
+    public MappedHighScoreManager(GameConfig config, MappedHighScoreStore store) {
+        super(config);
+        this.config = config;
+        this.store = store;
+    }
+
+    @Override
+    public void loadHighScores() {
+        // always current
+    }
+
+    @Override
+    public void saveHighScores() {
+        // written on every update
+    }
+
+    @Override
+    public int getHighScoreFor(int boardSize) {
+        return (int) store.getHighScore(config.configKey());
+    }
+
+    @Override
+    public void setHighScoreFor(int boardSize, int newScore) {
+        store.offer(config.configKey(), newScore);
+    }
+}
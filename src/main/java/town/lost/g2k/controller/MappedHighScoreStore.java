@@ -0,0 +1,205 @@
+package town.lost.g2k.controller;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed-layout binary high-score file, memory-mapped and shared by any number of processes.
+ * <p>
+ * Records are keyed by {@link town.lost.g2k.model.GameConfig#configKey()}. The file is an
+ * open-addressing hash table of 32-byte slots; a slot is claimed by compare-and-set on its key,
+ * and a score is raised by compare-and-set-max, directly on the mapped memory. Every process
+ * mapping the file sees each update immediately, without locks or re-parsing.
+ * A {@link FileLock} is only held while the file is first created and sized.
+ * <pre>
+ * header (64 bytes): magic "G2KH", version, capacity (slots, a power of two)
+ * slot (32 bytes):   key, best score, update time (epoch ms), reserved
+ * </pre>
+ */
+public class MappedHighScoreStore implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAGIC = 0x484B_3247; // "G2KH" in little-endian order
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 32;
+    private static final int KEY_OFFSET = 0;
+    private static final int SCORE_OFFSET = 8;
+    private static final int TIME_OFFSET = 16;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private MappedHighScoreStore(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    public static MappedHighScoreStore open(Path path) throws IOException {
+        return open(path, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the store at {@code path}, creating it with {@code capacity} slots if it doesn't exist.
+     * An existing file keeps the capacity it was created with.
+     */
+    public static MappedHighScoreStore open(Path path, int capacity) throws IOException {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, was " + capacity);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int slots;
+            // held while the header is created or checked, so two processes never both create it
+            FileLock lock = channel.lock();
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                if (channel.size() == 0) {
+                    header.putInt(MAGIC).putInt(VERSION).putInt(capacity).rewind();
+                    channel.write(header, 0);
+                    // extend to the full size so every slot reads as empty
+                    channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) capacity * SLOT_SIZE - 1);
+                    slots = capacity;
+                } else {
+                    channel.read(header, 0);
+                    header.flip();
+                    if (header.remaining() < 12 || header.getInt() != MAGIC) {
+                        throw new IOException("Not a high score store: " + path);
+                    }
+                    int version = header.getInt();
+                    if (version != VERSION) {
+                        throw new IOException("Unsupported high score store version " + version + ": " + path);
+                    }
+                    slots = header.getInt();
+                }
+            } finally {
+                lock.release();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) slots * SLOT_SIZE);
+            return new MappedHighScoreStore(channel, buffer, slots);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the best score for the configuration, or 0 if there is none
+     */
+    public long getHighScore(long configKey) {
+        int slot = find(configKey, false);
+        return slot < 0 ? 0 : (long) LONGS.getVolatile(buffer, offset(slot) + SCORE_OFFSET);
+    }
+
+    /**
+     * Raises the record for the configuration to {@code score} if it is higher.
+     *
+     * @return true if this was a new record
+     * @throws IllegalStateException if every slot is taken by other configurations
+     */
+    public boolean offer(long configKey, long score) {
+        int slot = find(configKey, true);
+        if (slot < 0) {
+            throw new IllegalStateException("High score store is full, capacity " + capacity);
+        }
+        int scoreAt = offset(slot) + SCORE_OFFSET;
+        long current = (long) LONGS.getVolatile(buffer, scoreAt);
+        while (score > current) {
+            long witness = (long) LONGS.compareAndExchange(buffer, scoreAt, current, score);
+            if (witness == current) {
+                LONGS.setRelease(buffer, offset(slot) + TIME_OFFSET, System.currentTimeMillis());
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of configurations with a record
+     */
+    public int size() {
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if ((long) LONGS.getVolatile(buffer, offset(slot) + KEY_OFFSET) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Linear probing from the key's hash. With {@code claim}, an empty slot is taken for the key.
+     *
+     * @return the slot holding the key, or -1
+     */
+    private int find(long configKey, boolean claim) {
+        if (configKey == 0) {
+            throw new IllegalArgumentException("configKey 0 is reserved for empty slots");
+        }
+        int mask = capacity - 1;
+        int start = (int) mix(configKey) & mask;
+        for (int i = 0; i < capacity; i++) {
+            int slot = (start + i) & mask;
+            int keyAt = offset(slot) + KEY_OFFSET;
+            long key = (long) LONGS.getVolatile(buffer, keyAt);
+            if (key == configKey) {
+                return slot;
+            }
+            if (key == 0) {
+                if (!claim) {
+                    return -1;
+                }
+                long witness = (long) LONGS.compareAndExchange(buffer, keyAt, 0L, configKey);
+                if (witness == 0 || witness == configKey) {
+                    return slot;
+                }
+                // another process claimed it for a different key, keep probing
+            }
+        }
+        return -1;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Forces updates to storage. Other processes see them without this; it only matters for a host crash.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,48 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+
+/**
+ * A claimed score with the evidence to check it: the config and seed the game was played
+ * with and every direction the player chose, packed 2 bits each, four to a byte,
+ * first move in the lowest bits.
+ */
+public class ScoreSubmission {
+
+    public final GameConfig config;
+    public final long seed;
+    public final byte[] moveLog;
+    public final int moveCount;
+    public final int claimedScore;
+    public final GameStatus claimedStatus;
+
+    public ScoreSubmission(GameConfig config, long seed, byte[] moveLog, int moveCount,
+                           int claimedScore, GameStatus claimedStatus) {
+        this.config = config;
+        this.seed = seed;
+        this.moveLog = moveLog;
+        this.moveCount = moveCount;
+        this.claimedScore = claimedScore;
+        this.claimedStatus = claimedStatus;
+    }
+
+    /**
+     * Packs directions into a move log.
+     */
+    public static byte[] packMoves(Direction[] moves, int count) {
+        byte[] log = new byte[(count + 3) / 4];
+        for (int i = 0; i < count; i++) {
+            log[i >> 2] |= (byte) (moves[i].ordinal() << ((i & 3) * 2));
+        }
+        return log;
+    }
+
+    /**
+     * @return the direction of move {@code i} in a packed log
+     */
+    public static int moveAt(byte[] log, int i) {
+        return (log[i >> 2] >> ((i & 3) * 2)) & 3;
+    }
+}
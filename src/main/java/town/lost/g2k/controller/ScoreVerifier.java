@@ -0,0 +1,195 @@
+package town.lost.g2k.controller;
+
+import town.lost.g2k.model.BatchResult;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Checks score submissions by replaying their move logs through GameBoard, seeded as the
+ * original game was, so the spawns and therefore the scores are exactly reproduced.
+ * <p>
+ * Games are replayed under the verifier's own rules, never the submitted config, which only
+ * has to agree with them: otherwise a submitter could choose rules that spawn only large tiles.
+ * <p>
+ * Cheap checks run first: the log's length must match its move count, the padding bits
+ * must be zero, the submitted config must have the verifier's {@link GameConfig#configKey()}
+ * and the claimed score must be a possible one for that many moves. Only then is the game replayed, stopping as soon as the log moves
+ * past the end of the game. Submissions are independent, so {@link #verifyAll(List)}
+ * replays them on a fixed pool of worker threads.
+ */
+public class ScoreVerifier implements AutoCloseable {
+
+    /**
+     * The outcome of checking a submission.
+     */
+    public enum Verdict {
+        ACCEPTED,
+        // the log, its length or the config can't describe a game
+        MALFORMED,
+        // the game was played under other rules than the verifier's
+        WRONG_RULES,
+        // no game of that many moves could score that much
+        SCORE_OUT_OF_RANGE,
+        // the log continues after the game ended
+        MOVES_AFTER_GAME_OVER,
+        // the replay ends with a different score or status
+        MISMATCH
+    }
+
+    // larger boards than this aren't playable in the clients
+    private static final int MAX_SIDE = 100;
+
+    private final GameConfig rules;
+    private final ExecutorService workers;
+
+    /**
+     * @param rules the rules every game must have been played under, such as the server's own config
+     * @throws IllegalArgumentException if no game can be played under them
+     */
+    public ScoreVerifier(GameConfig rules) {
+        this(rules, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScoreVerifier(GameConfig rules, int threads) {
+        if (rules.getXSize() < 2 || rules.getYSize() < 2 || rules.getXSize() > MAX_SIDE || rules.getYSize() > MAX_SIDE
+                || maxSpawn(rules) < 0) {
+            throw new IllegalArgumentException("Unplayable rules: " + rules.getXSize() + "x" + rules.getYSize()
+                    + ", spawns " + rules.getTileSpawnProbabilities());
+        }
+        this.rules = rules;
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "score-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public GameConfig getRules() {
+        return rules;
+    }
+
+    /**
+     * Checks one submission on the calling thread.
+     */
+    public Verdict verify(ScoreSubmission submission) {
+        return verify(submission, null);
+    }
+
+    /**
+     * Checks one submission on the calling thread, and if it is accepted, hands the replayed game to {@code onAccepted}.
+     */
+    public Verdict verify(ScoreSubmission submission, Consumer<GameBoard> onAccepted) {
+        Verdict precheck = precheck(submission);
+        if (precheck != null) {
+            return precheck;
+        }
+        GameBoard board = new GameBoard(rules, submission.seed);
+        BatchResult result = board.moveAllPacked(submission.moveLog, 0, submission.moveCount, null);
+        if (result.stop == BatchResult.Stop.GAME_OVER) {
+            return Verdict.MOVES_AFTER_GAME_OVER;
+        }
+        if (board.getScore() != submission.claimedScore || board.getStatus() != submission.claimedStatus) {
+            return Verdict.MISMATCH;
+        }
+        if (onAccepted != null) {
+            onAccepted.accept(board);
+        }
+        return Verdict.ACCEPTED;
+    }
+
+    /**
+     * @return the largest tile the rules spawn, or -1 if they have no spawns or one isn't a power of two
+     */
+    private static int maxSpawn(GameConfig rules) {
+        Map<Integer, Double> spawns = rules.getTileSpawnProbabilities();
+        if (spawns == null || spawns.isEmpty()) {
+            return -1;
+        }
+        int maxSpawn = 0;
+        for (int value : spawns.keySet()) {
+            if (value < 2 || Integer.bitCount(value) != 1) {
+                return -1;
+            }
+            maxSpawn = Math.max(maxSpawn, value);
+        }
+        return maxSpawn;
+    }
+
+    /**
+     * @return the verdict if the submission fails a check that needs no replay, otherwise null
+     */
+    Verdict precheck(ScoreSubmission submission) {
+        if (submission.config == null || submission.moveLog == null || submission.claimedStatus == null
+                || submission.moveCount < 0 || submission.moveLog.length != (submission.moveCount + 3) / 4) {
+            return Verdict.MALFORMED;
+        }
+        int usedBits = (submission.moveCount & 3) * 2;
+        if (usedBits != 0 && (submission.moveLog[submission.moveLog.length - 1] >> usedBits) != 0) {
+            return Verdict.MALFORMED;
+        }
+        if (submission.config.configKey() != rules.configKey()) {
+            return Verdict.WRONG_RULES;
+        }
+        int maxSpawn = maxSpawn(rules);
+
+        int score = submission.claimedScore;
+        // every merge makes a power of two of at least 4
+        if (score < 0 || score % 4 != 0) {
+            return Verdict.SCORE_OUT_OF_RANGE;
+        }
+        // at most mass * log2(mass), where mass is the total of every tile ever spawned
+        double mass = (2.0 + submission.moveCount) * maxSpawn;
+        if (score > mass * (Math.log(mass) / Math.log(2))) {
+            return Verdict.SCORE_OUT_OF_RANGE;
+        }
+        if (submission.moveCount == 0 && score != 0) {
+            return Verdict.SCORE_OUT_OF_RANGE;
+        }
+        return null;
+    }
+
+    /**
+     * Checks a submission on a worker thread.
+     */
+    public CompletableFuture<Verdict> submit(ScoreSubmission submission) {
+        return CompletableFuture.supplyAsync(() -> verify(submission), workers);
+    }
+
+    /**
+     * Checks the submissions in parallel.
+     *
+     * @return the verdicts, in the same order
+     */
+    public List<Verdict> verifyAll(List<ScoreSubmission> submissions) {
+        List<CompletableFuture<Verdict>> futures = new ArrayList<>(submissions.size());
+        for (ScoreSubmission submission : submissions) {
+            // rejecting on the calling thread is cheaper than handing off
+            Verdict precheck = precheck(submission);
+            futures.add(precheck != null ? CompletableFuture.completedFuture(precheck) : submit(submission));
+        }
+        List<Verdict> verdicts = new ArrayList<>(futures.size());
+        for (CompletableFuture<Verdict> future : futures) {
+            verdicts.add(future.join());
+        }
+        return verdicts;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package town.lost.g2k.ipc;
+
+import town.lost.g2k.broadcast.WaitStrategy;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static town.lost.g2k.ipc.BotIpcFormat.*;
+
+/**
+ * The reference bot side of the {@link BotIpcFormat} protocol: sends one command at a time to a
+ * {@link BotHost}, usually in another process, and reads the state it publishes in reply.
+ * Bots in other languages map the same file and follow the same steps.
+ */
+public class BotClient implements AutoCloseable {
+
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final WaitStrategy waitStrategy;
+    private final int xSize;
+    private final int ySize;
+    private long sequence;
+
+    private BotClient(FileChannel channel, MappedByteBuffer buffer, WaitStrategy waitStrategy) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.waitStrategy = waitStrategy;
+        this.xSize = buffer.getInt(XSIZE);
+        this.ySize = buffer.getInt(YSIZE);
+        this.sequence = (long) LONG.getAcquire(buffer, COMMAND_SEQUENCE);
+    }
+
+    /**
+     * Maps a file a BotHost has opened.
+     *
+     * @throws IOException if the file isn't a bot IPC file, or its host has closed
+     */
+    public static BotClient open(Path path, WaitStrategy waitStrategy) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < CELLS) {
+                throw new IOException("Not a bot IPC file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if ((int) INT.getAcquire(buffer, 0) != MAGIC) {
+                throw new IOException("Not a bot IPC file: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported bot IPC version " + version + ": " + path);
+            }
+            if ((int) INT.getAcquire(buffer, HOST_OPEN) == 0) {
+                throw new IOException("Bot host has closed: " + path);
+            }
+            return new BotClient(channel, buffer, waitStrategy);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves and waits for the host's reply.
+     *
+     * @return true if the move changed the board
+     */
+    public boolean move(Direction dir) {
+        send(dir.ordinal());
+        return buffer.getInt(MOVED) != 0;
+    }
+
+    public void undo() {
+        send(UNDO);
+    }
+
+    public void reset() {
+        send(RESET);
+    }
+
+    private void send(int command) {
+        long next = sequence + 1;
+        buffer.putInt(COMMAND, command);
+        LONG.setRelease(buffer, COMMAND_SEQUENCE, next);
+        sequence = next;
+        while ((long) LONG.getAcquire(buffer, STATE_SEQUENCE) != next) {
+            if ((int) INT.getOpaque(buffer, HOST_OPEN) == 0) {
+                throw new IllegalStateException("Bot host has closed");
+            }
+            waitStrategy.idle();
+        }
+    }
+
+    public int getScore() {
+        return buffer.getInt(SCORE);
+    }
+
+    public int getMoveCount() {
+        return buffer.getInt(MOVES);
+    }
+
+    public GameStatus getStatus() {
+        return STATUSES[buffer.getInt(STATUS)];
+    }
+
+    /**
+     * @return the tile's value, or 0 if the cell is empty
+     */
+    public int getTile(int row, int col) {
+        int exponent = buffer.get(CELLS + row * xSize + col);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    public int getXSize() {
+        return xSize;
+    }
+
+    public int getYSize() {
+        return ySize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
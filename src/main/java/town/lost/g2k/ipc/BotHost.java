@@ -0,0 +1,186 @@
+package town.lost.g2k.ipc;
+
+import town.lost.g2k.broadcast.WaitStrategy;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static town.lost.g2k.ipc.BotIpcFormat.*;
+
+/**
+ * Serves one GameBoard to a bot in another process through a memory-mapped file,
+ * laid out as described in {@link BotIpcFormat}.
+ * <p>
+ * The host polls the command slot with a {@link WaitStrategy}, either on its own thread with {@link #start}
+ * or from the caller's loop with {@link #serveOnce()}, and publishes the state after every command.
+ * See {@link BotClient} for the bot's side.
+ * <p>
+ * Run standalone with {@code BotHost <file> [XxY] [seed] [BUSY_SPIN|YIELD|PARK]}.
+ */
+public class BotHost implements AutoCloseable {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final GameBoard model;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final byte[] cells;
+    private long lastCommand;
+    private volatile boolean running;
+    private Thread thread;
+
+    private BotHost(GameBoard model, FileChannel channel, MappedByteBuffer buffer) {
+        this.model = model;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.cells = new byte[model.getXSize() * model.getYSize()];
+    }
+
+    /**
+     * Creates or overwrites the file at {@code path} and publishes the board's state as sequence 0.
+     * The host then owns the board.
+     */
+    public static BotHost open(Path path, GameBoard model) throws IOException {
+        int size = fileSize(model.getXSize(), model.getYSize());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(XSIZE, model.getXSize())
+                    .putInt(YSIZE, model.getYSize());
+            BotHost host = new BotHost(model, channel, buffer);
+            host.publish(0, false);
+            INT.setRelease(buffer, HOST_OPEN, 1);
+            // written last, so a bot which sees the magic sees a complete file
+            buffer.putInt(4, VERSION);
+            INT.setRelease(buffer, 0, MAGIC);
+            return host;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BotHost <file> [XxY] [seed] [BUSY_SPIN|YIELD|PARK]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        GameConfig config = new GameConfig();
+        if (args.length > 1) {
+            String[] xy = args[1].split("x");
+            config.setBoardSize(Integer.parseInt(xy[0]), Integer.parseInt(xy[1]));
+        }
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        GameBoard model = args.length > 2 ? new GameBoard(config, Long.parseLong(args[2])) : new GameBoard(config);
+        WaitStrategy waitStrategy = args.length > 3 ? WaitStrategy.valueOf(args[3]) : WaitStrategy.YIELD;
+
+        BotHost host = open(file, model);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                host.close();
+            } catch (IOException e) {
+                System.err.println("Error closing the bot IPC file: " + e);
+            }
+        }, "bot-host-shutdown"));
+        System.out.println("Serving a " + config.getXSize() + "x" + config.getYSize() + " game to bots through "
+                + file + ", waiting with " + waitStrategy);
+        host.start(waitStrategy);
+        // the serving thread is a daemon, so wait for it until the shutdown hook stops it
+        try {
+            host.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serves commands on a new daemon thread until closed.
+     */
+    public synchronized void start(WaitStrategy waitStrategy) {
+        if (thread != null) {
+            throw new IllegalStateException("Already started");
+        }
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                if (!serveOnce()) {
+                    waitStrategy.idle();
+                }
+            }
+        }, "bot-host");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Applies the bot's command and publishes the new state, if there is a new command.
+     *
+     * @return true if a command was served
+     */
+    public boolean serveOnce() {
+        long sequence = (long) LONG.getAcquire(buffer, COMMAND_SEQUENCE);
+        if (sequence == lastCommand) {
+            return false;
+        }
+        lastCommand = sequence;
+        int command = buffer.getInt(COMMAND);
+        boolean moved = false;
+        if (command >= 0 && command < DIRECTIONS.length) {
+            int before = model.getMoveCount();
+            model.move(DIRECTIONS[command]);
+            moved = model.getMoveCount() != before;
+        } else if (command == UNDO) {
+            model.undo();
+        } else if (command == RESET) {
+            model.reset();
+        } else {
+            System.err.println("Ignoring unknown bot command " + command);
+        }
+        publish(sequence, moved);
+        return true;
+    }
+
+    private void publish(long sequence, boolean moved) {
+        model.packCells(cells);
+        buffer.position(CELLS);
+        buffer.put(cells);
+        buffer.putInt(SCORE, model.getScore())
+                .putInt(MOVES, model.getMoveCount())
+                .putInt(STATUS, model.getStatus().ordinal())
+                .putInt(MOVED, moved ? 1 : 0);
+        LONG.setRelease(buffer, STATE_SEQUENCE, sequence);
+    }
+
+    /**
+     * Stops serving, tells the bot the host has gone, and closes the file. The board is the caller's again.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread serving;
+        synchronized (this) {
+            running = false;
+            serving = thread;
+        }
+        if (serving != null) {
+            try {
+                serving.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        INT.setRelease(buffer, HOST_OPEN, 0);
+        channel.close();
+    }
+}
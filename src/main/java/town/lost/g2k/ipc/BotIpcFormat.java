@@ -0,0 +1,56 @@
+package town.lost.g2k.ipc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The layout of the memory-mapped file shared by a BotHost and its bot. All values are little-endian,
+ * and the two sequence numbers are 8-byte aligned on their own cache lines.
+ * <pre>
+ *   0  magic "G2KB" (int), version (int), xSize (int), ySize (int),
+ *      host open (int, 1 while the host serves, 0 once it has closed)
+ *  64  command sequence (long), written last by the bot with release semantics
+ *  72  command (int): a Direction ordinal (UP 0, DOWN 1, LEFT 2, RIGHT 3), UNDO 4 or RESET 5
+ * 128  state sequence (long), the command sequence this state answers, written last by the host
+ * 136  score (int), move count (int), status (int, RUNNING 0, WON 1, LOST 2),
+ *      moved (int, 1 if the command changed the board)
+ * 152  the exponent of every cell, one byte each, row by row, 0 for empty
+ * </pre>
+ * One command is in flight at a time: the bot writes the command, then its sequence, one more than the
+ * last, and waits for the state sequence to match; the host waits for a new command sequence, applies the
+ * command, writes the state, then the state sequence. Each side reads the other's sequence with acquire
+ * semantics before the data it guards, so no locks or system calls are needed.
+ */
+final class BotIpcFormat {
+
+    static final int MAGIC = 0x424B_3247; // "G2KB" in little-endian order
+    static final int VERSION = 1;
+
+    static final int XSIZE = 8;
+    static final int YSIZE = 12;
+    static final int HOST_OPEN = 16;
+
+    static final int COMMAND_SEQUENCE = 64;
+    static final int COMMAND = 72;
+
+    static final int STATE_SEQUENCE = 128;
+    static final int SCORE = 136;
+    static final int MOVES = 140;
+    static final int STATUS = 144;
+    static final int MOVED = 148;
+    static final int CELLS = 152;
+
+    static final int UNDO = 4;
+    static final int RESET = 5;
+
+    static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private BotIpcFormat() {
+    }
+
+    static int fileSize(int xSize, int ySize) {
+        return (CELLS + xSize * ySize + 63) & ~63;
+    }
+}
@@ -0,0 +1,246 @@
+package town.lost.g2k.journal;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only binary journal of the games played on one board, enough to replay them
+ * exactly with {@link GameReplayer}.
+ * <p>
+ * The header holds the GameConfig and the RNG seed, then each move is a fixed 12-byte record
+ * of its direction, the tile it spawned and the resulting score and status. Records are
+ * collected in a direct buffer and written to the FileChannel when it fills, on
+ * {@link #flush()} and on close, so recording a move is a few puts and no system call.
+ * <p>
+ * Every {@code keyframeInterval} moves the whole board is written as a keyframe, and its
+ * position is added to a side index file, so {@link GameReplayer#seek(long)} can reach any
+ * move by restoring the nearest keyframe and replaying at most that many moves.
+ * Not thread-safe; a journal is written by the thread playing the game.
+ */
+public class GameJournal implements AutoCloseable {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INDEX_BUFFER_SIZE = 4 * 1024;
+
+    private final FileChannel channel;
+    private final FileChannel indexChannel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer index;
+    private final int keyframeInterval;
+    private final long headerSize;
+    private long records;
+    private long moves;
+
+    private GameJournal(FileChannel channel, FileChannel indexChannel, int keyframeInterval, long headerSize) {
+        this.channel = channel;
+        this.indexChannel = indexChannel;
+        this.keyframeInterval = keyframeInterval;
+        this.headerSize = headerSize;
+        this.index = indexChannel == null ? null
+                : ByteBuffer.allocateDirect(INDEX_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates or truncates the journal at {@code path} and writes its header.
+     *
+     * @param seed the seed of the board being recorded, see {@link GameBoard#getSeed()}
+     */
+    public static GameJournal create(Path path, GameConfig config, long seed) throws IOException {
+        return create(path, config, seed, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates or truncates the journal at {@code path} and writes its header.
+     *
+     * @param seed             the seed of the board being recorded, see {@link GameBoard#getSeed()}
+     * @param keyframeInterval moves between keyframes, or 0 for no keyframes and no index file
+     */
+    public static GameJournal create(Path path, GameConfig config, long seed, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 0) {
+            throw new IllegalArgumentException("keyframeInterval must not be negative, was " + keyframeInterval);
+        }
+        FileChannel channel = open(path);
+        FileChannel indexChannel = null;
+        try {
+            Path indexPath = JournalFormat.indexPath(path);
+            if (keyframeInterval > 0) {
+                indexChannel = open(indexPath);
+            } else {
+                Files.deleteIfExists(indexPath); // it would describe an older journal
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        GameJournal journal = new GameJournal(channel, indexChannel, keyframeInterval, JournalFormat.headerSize(config));
+        JournalFormat.writeHeader(journal.buffer, config, seed);
+        if (journal.index != null) {
+            journal.index.putInt(JournalFormat.INDEX_MAGIC).putInt(JournalFormat.VERSION)
+                    .putInt(keyframeInterval).putInt(0);
+        }
+        return journal;
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Records a new game: the board's size and each of its starting tiles.
+     */
+    public void recordReset(GameBoard board) {
+        record(JournalFormat.RESET, board.getXSize(), board.getYSize(), board, -1, 0);
+        int[][] tiles = board.getBoard();
+        for (int r = 0; r < tiles.length; r++) {
+            for (int c = 0; c < tiles[r].length; c++) {
+                if (tiles[r][c] != 0) {
+                    record(JournalFormat.SPAWN, 0, JournalFormat.exponentOf(tiles[r][c]), board,
+                            r * board.getXSize() + c, board.getScore());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a move just applied to the board, including moves which changed nothing.
+     */
+    public void recordMove(Direction dir, GameBoard board) {
+        int cell = board.getLastSpawnCell();
+        int exponent = cell < 0 ? 0 : JournalFormat.exponentOf(board.getLastSpawnValue());
+        record(JournalFormat.MOVE, dir.ordinal(), exponent, board, cell, board.getScore());
+        moves++;
+        if (keyframeInterval > 0 && moves % keyframeInterval == 0) {
+            recordKeyframe(board);
+        }
+    }
+
+    public void recordUndo(GameBoard board) {
+        record(JournalFormat.UNDO, 0, 0, board, -1, board.getScore());
+    }
+
+    /**
+     * Writes the whole board, and the board an undo would restore, then indexes them by move number.
+     */
+    private void recordKeyframe(GameBoard board) {
+        if (index.remaining() < JournalFormat.INDEX_ENTRY_SIZE) {
+            drainIndex();
+        }
+        index.putLong(moves).putLong(headerSize + records * JournalFormat.RECORD_SIZE);
+
+        record(JournalFormat.KEYFRAME, board.getXSize(), board.getYSize(), board,
+                board.getMoveCount(), board.getScore());
+        recordCells(board.getBoard());
+        int[][] undoBoard = board.getUndoBoard();
+        if (undoBoard != null) {
+            record(JournalFormat.UNDO_FRAME, board.getXSize(), board.getYSize(), board,
+                    board.getUndoMoveCount(), board.getUndoScore());
+            recordCells(undoBoard);
+        }
+    }
+
+    private void recordCells(int[][] tiles) {
+        int cellRecords = JournalFormat.cellRecords(tiles[0].length, tiles.length);
+        if (buffer.remaining() < cellRecords * JournalFormat.RECORD_SIZE) {
+            drain();
+        }
+        int end = buffer.position() + cellRecords * JournalFormat.RECORD_SIZE;
+        for (int[] row : tiles) {
+            for (int value : row) {
+                buffer.put((byte) JournalFormat.exponentOf(value));
+            }
+        }
+        while (buffer.position() < end) {
+            buffer.put((byte) 0);
+        }
+        records += cellRecords;
+    }
+
+    private void record(byte type, int direction, int exponent, GameBoard board, int cell, int score) {
+        if (buffer.remaining() < JournalFormat.RECORD_SIZE) {
+            drain();
+        }
+        buffer.put(type)
+                .put((byte) direction)
+                .put((byte) exponent)
+                .put((byte) board.getStatus().ordinal())
+                .putInt(cell)
+                .putInt(score);
+        records++;
+    }
+
+    /**
+     * @return the number of records written, including those still buffered
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * @return the number of moves recorded
+     */
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Writes the buffered records, then the index, to the files. They reach the OS, not necessarily the disk.
+     * The journal goes first, so the index never points past the end of it.
+     */
+    public void flush() {
+        if (index != null) {
+            drainIndex();
+        } else {
+            drain();
+        }
+    }
+
+    private void drain() {
+        write(channel, buffer);
+    }
+
+    private void drainIndex() {
+        // an indexed keyframe may still be in the journal's buffer
+        drain();
+        write(indexChannel, index);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing game journal", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        }
+    }
+}
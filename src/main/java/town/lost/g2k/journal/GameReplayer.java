@@ -0,0 +1,291 @@
+package town.lost.g2k.journal;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reconstructs the games in a {@link GameJournal} by applying its records to a GameBoard,
+ * with no view or controller involved.
+ * <p>
+ * The journal is memory-mapped and read in place. Spawns are placed from the records
+ * rather than drawn from the RNG, and the score and status after every move are checked
+ * against the journal, so a journal that doesn't match the game rules is rejected.
+ * A partial record at the end, left by a crash mid-write, is ignored.
+ * <p>
+ * If the journal has an index file, {@link #seek(long)} restores the nearest keyframe at or
+ * before the move and replays only the moves after it.
+ */
+public class GameReplayer {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    private final ByteBuffer journal;
+    private final long seed;
+    private final int recordsStart;
+    private final int recordCount;
+    private final ByteBuffer index;
+    private final int keyframeCount;
+
+    private GameReplayer(ByteBuffer journal, ByteBuffer index) {
+        this.journal = journal;
+        JournalFormat.readConfig(journal);
+        this.seed = journal.getLong();
+        this.recordsStart = journal.position();
+        this.recordCount = journal.remaining() / JournalFormat.RECORD_SIZE;
+        this.index = index;
+        this.keyframeCount = index == null ? 0 : countKeyframes();
+    }
+
+    public static GameReplayer open(Path path) throws IOException {
+        ByteBuffer journal = map(path);
+        ByteBuffer index = null;
+        Path indexPath = JournalFormat.indexPath(path);
+        if (Files.exists(indexPath)) {
+            index = map(indexPath);
+            if (index.remaining() < JournalFormat.INDEX_HEADER_SIZE || index.getInt(0) != JournalFormat.INDEX_MAGIC) {
+                throw new IOException("Not a game journal index: " + indexPath);
+            }
+        }
+        try {
+            return new GameReplayer(journal, index);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException("Not a readable game journal: " + path, e);
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Counts the index entries whose keyframe is complete in the journal; the index may
+     * have been written further than the journal before a crash.
+     */
+    private int countKeyframes() {
+        int entries = (index.capacity() - JournalFormat.INDEX_HEADER_SIZE) / JournalFormat.INDEX_ENTRY_SIZE;
+        while (entries > 0) {
+            int record = recordAt(keyframeOffset(entries - 1));
+            if (record >= 0 && record < recordCount) {
+                int xSize = journal.get(recordsStart + record * JournalFormat.RECORD_SIZE + 1) & 0xFF;
+                int ySize = journal.get(recordsStart + record * JournalFormat.RECORD_SIZE + 2) & 0xFF;
+                if (record + JournalFormat.cellRecords(xSize, ySize) < recordCount) {
+                    break;
+                }
+            }
+            entries--;
+        }
+        return entries;
+    }
+
+    /**
+     * @return a new copy of the configuration the journal was recorded with
+     */
+    public GameConfig getConfig() {
+        return JournalFormat.readConfig(journal.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(0));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the number of usable keyframes in the index, 0 if there is none
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * @return the board as it was at the end of the journal
+     */
+    public GameBoard replay() {
+        return replay(Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays from the start of the journal, checking every move.
+     *
+     * @return the board as it was after the first {@code moves} move records of the journal
+     * @throws IllegalStateException if the journal diverges from the game rules
+     */
+    public GameBoard replay(long moves) {
+        GameConfig config = getConfig();
+        GameBoard board = new GameBoard(config, seed);
+        apply(board, config, 0, moves);
+        return board;
+    }
+
+    /**
+     * Restores the last keyframe at or before {@code move}, then replays the moves after it,
+     * so at most one keyframe interval of moves is applied however long the journal is.
+     * Without an index this is {@link #replay(long)}.
+     *
+     * @return the board as it was after the first {@code move} move records of the journal
+     * @throws IllegalStateException if the journal diverges from the game rules
+     */
+    public GameBoard seek(long move) {
+        GameConfig config = getConfig();
+        GameBoard board = new GameBoard(config, seed);
+        int keyframe = findKeyframe(move);
+        if (keyframe < 0) {
+            apply(board, config, 0, move);
+        } else {
+            int next = restoreKeyframe(board, config, recordAt(keyframeOffset(keyframe)));
+            apply(board, config, next, move - keyframeMove(keyframe));
+        }
+        return board;
+    }
+
+    /**
+     * @return the last index entry at or before the move, or -1
+     */
+    private int findKeyframe(long move) {
+        int low = 0;
+        int high = keyframeCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keyframeMove(mid) <= move) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long keyframeMove(int entry) {
+        return index.getLong(JournalFormat.INDEX_HEADER_SIZE + entry * JournalFormat.INDEX_ENTRY_SIZE);
+    }
+
+    private long keyframeOffset(int entry) {
+        return index.getLong(JournalFormat.INDEX_HEADER_SIZE + entry * JournalFormat.INDEX_ENTRY_SIZE + 8);
+    }
+
+    private int recordAt(long offset) {
+        return (int) ((offset - recordsStart) / JournalFormat.RECORD_SIZE);
+    }
+
+    /**
+     * Restores the board from the KEYFRAME record at {@code record} and any UNDO_FRAME after it.
+     *
+     * @return the index of the record after the keyframe
+     */
+    private int restoreKeyframe(GameBoard board, GameConfig config, int record) {
+        int at = recordsStart + record * JournalFormat.RECORD_SIZE;
+        if (journal.get(at) != JournalFormat.KEYFRAME) {
+            throw new IllegalStateException("Index points at record " + record + ", which isn't a keyframe");
+        }
+        int xSize = journal.get(at + 1) & 0xFF;
+        int ySize = journal.get(at + 2) & 0xFF;
+        if (board.getXSize() != xSize || board.getYSize() != ySize) {
+            config.setBoardSize(xSize, ySize);
+            board.reset();
+        }
+        board.restoreState(readCells(at, xSize, ySize), journal.getInt(at + 8), journal.getInt(at + 4),
+                STATUSES[journal.get(at + 3)]);
+        int next = record + 1 + JournalFormat.cellRecords(xSize, ySize);
+        at = recordsStart + next * JournalFormat.RECORD_SIZE;
+        if (next < recordCount && journal.get(at) == JournalFormat.UNDO_FRAME) {
+            board.restoreUndo(readCells(at, xSize, ySize), journal.getInt(at + 8), journal.getInt(at + 4));
+            next += 1 + JournalFormat.cellRecords(xSize, ySize);
+        }
+        return next;
+    }
+
+    private int[][] readCells(int frameAt, int xSize, int ySize) {
+        int[][] tiles = new int[ySize][xSize];
+        int at = frameAt + JournalFormat.RECORD_SIZE;
+        for (int r = 0; r < ySize; r++) {
+            for (int c = 0; c < xSize; c++) {
+                tiles[r][c] = JournalFormat.valueOf(journal.get(at++) & 0xFF);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Applies records to the board, starting at record {@code first}, until {@code moves} move records
+     * have been applied or the journal ends. A reset to a different size resizes the board's config.
+     *
+     * @return the index of the next record
+     */
+    int apply(GameBoard board, GameConfig config, int first, long moves) {
+        ByteBuffer records = journal.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int[][] pending = null;
+        int record = first;
+        long applied = 0;
+        for (; record < recordCount; record++) {
+            int at = recordsStart + record * JournalFormat.RECORD_SIZE;
+            byte type = records.get(at);
+            if (pending != null && type != JournalFormat.SPAWN) {
+                board.setBoardState(pending);
+                pending = null;
+            }
+            if (type == JournalFormat.MOVE && applied == moves) {
+                break;
+            }
+            int direction = records.get(at + 1) & 0xFF;
+            int exponent = records.get(at + 2) & 0xFF;
+            int status = records.get(at + 3);
+            int cell = records.getInt(at + 4);
+            int score = records.getInt(at + 8);
+            switch (type) {
+                case JournalFormat.MOVE:
+                    board.replayMove(DIRECTIONS[direction], cell, JournalFormat.valueOf(exponent));
+                    applied++;
+                    break;
+                case JournalFormat.UNDO:
+                    board.undo();
+                    break;
+                case JournalFormat.RESET:
+                    // a reset carries the board's width and height
+                    config.setBoardSize(direction, exponent);
+                    board.reset();
+                    pending = new int[exponent][direction];
+                    break;
+                case JournalFormat.SPAWN:
+                    if (pending == null) {
+                        throw new IllegalStateException("Spawn record " + record + " doesn't follow a reset");
+                    }
+                    int width = pending[0].length;
+                    pending[cell / width][cell % width] = JournalFormat.valueOf(exponent);
+                    continue;
+                case JournalFormat.KEYFRAME:
+                case JournalFormat.UNDO_FRAME:
+                    // the moves before it already produced this position
+                    record += JournalFormat.cellRecords(direction, exponent);
+                    continue;
+                default:
+                    throw new IllegalStateException("Unknown record type " + type + " at record " + record);
+            }
+            if (board.getScore() != score || board.getStatus() != STATUSES[status]) {
+                throw new IllegalStateException("Journal diverges at record " + record + ": expected score "
+                        + score + " " + STATUSES[status] + ", replayed " + board.getScore() + " " + board.getStatus());
+            }
+        }
+        if (pending != null) {
+            board.setBoardState(pending);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,109 @@
+package town.lost.g2k.journal;
+
+import town.lost.g2k.model.GameConfig;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The binary layout shared by GameJournal and GameReplayer. All values are little-endian.
+ * <pre>
+ * header: magic "G2KJ", version, xSize, ySize, winTileValue, flags (bit 0 undoEnabled),
+ *         spawn entries, then (value int, probability double) per entry, RNG seed (long)
+ * record (12 bytes): type, direction, spawn exponent, status, spawn cell (int, -1 for none), score (int)
+ * a RESET record carries the board width and height in its direction and exponent bytes
+ * a KEYFRAME record is laid out like a RESET, with the move count in place of the spawn cell,
+ *   followed by the exponent of every cell, one byte each, padded to whole records;
+ *   an UNDO_FRAME in the same form may follow it with the board an undo would restore
+ *
+ * index file (journal name + ".idx"): magic "G2KI", version, keyframe interval, reserved,
+ *   then per keyframe: journal move number (long), byte offset of its KEYFRAME record (long)
+ * </pre>
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x4A4B_3247; // "G2KJ" in little-endian order
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 12;
+
+    // record types
+    static final byte MOVE = 0;
+    static final byte UNDO = 1;
+    // a new game, followed by one SPAWN record per starting tile
+    static final byte RESET = 2;
+    static final byte SPAWN = 3;
+    static final byte KEYFRAME = 4;
+    static final byte UNDO_FRAME = 5;
+
+    static final int INDEX_MAGIC = 0x494B_3247; // "G2KI" in little-endian order
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    private JournalFormat() {
+    }
+
+    static int headerSize(GameConfig config) {
+        return 7 * Integer.BYTES + config.getTileSpawnProbabilities().size() * (Integer.BYTES + Double.BYTES) + Long.BYTES;
+    }
+
+    static void writeHeader(ByteBuffer buffer, GameConfig config, long seed) {
+        Map<Integer, Double> spawns = new TreeMap<>(config.getTileSpawnProbabilities());
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(config.getXSize())
+                .putInt(config.getYSize())
+                .putInt(config.getWinTileValue())
+                .putInt(config.isUndoEnabled() ? 1 : 0)
+                .putInt(spawns.size());
+        for (Map.Entry<Integer, Double> entry : spawns.entrySet()) {
+            buffer.putInt(entry.getKey()).putDouble(entry.getValue());
+        }
+        buffer.putLong(seed);
+    }
+
+    /**
+     * Reads a header, leaving the buffer positioned at the seed.
+     */
+    static GameConfig readConfig(ByteBuffer buffer) {
+        if (buffer.remaining() < 7 * Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a game journal");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported journal version " + version);
+        }
+        int xSize = buffer.getInt();
+        int ySize = buffer.getInt();
+        int winTile = buffer.getInt();
+        boolean undoEnabled = (buffer.getInt() & 1) != 0;
+        int entries = buffer.getInt();
+        // spawn order matters to GameBoard, so keep the sorted order they were written in
+        Map<Integer, Double> spawns = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            spawns.put(buffer.getInt(), buffer.getDouble());
+        }
+        return new GameConfig(xSize, ySize, winTile, undoEnabled, false, null, spawns);
+    }
+
+    static Path indexPath(Path journal) {
+        return journal.resolveSibling(journal.getFileName() + ".idx");
+    }
+
+    /**
+     * @return the number of records following a KEYFRAME or UNDO_FRAME record which hold its cells
+     */
+    static int cellRecords(int xSize, int ySize) {
+        return (xSize * ySize + RECORD_SIZE - 1) / RECORD_SIZE;
+    }
+
+    static int exponentOf(int value) {
+        return value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+    }
+
+    static int valueOf(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+}
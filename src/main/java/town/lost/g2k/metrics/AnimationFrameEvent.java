@@ -0,0 +1,16 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for one AnimationManager timer tick.
+ */
+@Name("town.lost.g2k.AnimationFrame")
+@Label("Animation Frame")
+@Category({"2048", "View"})
+@StackTrace(false)
+public class AnimationFrameEvent extends Event {
+
+    @Label("Active Animations")
+    public int activeAnimations;
+}
@@ -0,0 +1,177 @@
+package town.lost.g2k.metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency histograms and counters for the model, controller and view.
+ * <p>
+ * Timing is bracketed with {@link #start()} and {@link #stop(Timer, long)}. When recording
+ * is disabled, {@code start()} returns 0 without reading the clock and {@code stop()}
+ * does nothing, so the instrumented code pays a single volatile read.
+ * Recording is enabled unless the system property {@code g2k.metrics=false} is set.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+
+    public static final String OBJECT_NAME = "town.lost.g2k:type=GameMetrics";
+
+    /**
+     * The timed sections.
+     */
+    public enum Timer {
+        MOVE,
+        SPAWN,
+        WIN_LOSE_CHECK,
+        MOVEMENT_DIFF,
+        RENDER,
+        HIGH_SCORE_SAVE
+    }
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private static volatile boolean enabled = !"false".equals(System.getProperty("g2k.metrics"));
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Timer.values().length];
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder undos = new LongAdder();
+    private final LongAdder gamesPlayed = new LongAdder();
+
+    private GameMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public static GameMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBeanServer, if not already registered.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // registered concurrently, which is fine
+        } catch (JMException e) {
+            System.err.println("Unable to register " + OBJECT_NAME + ": " + e);
+        }
+    }
+
+    /**
+     * @return the start time to pass to {@link #stop(Timer, long)}, or 0 if recording is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(Timer timer, long start) {
+        if (start != 0L) {
+            INSTANCE.histograms[timer.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts moves which changed the board and the merges they made, one at a time or a whole batch at once.
+     */
+    public static void countMoves(int moves, int merges) {
+        if (enabled) {
+            INSTANCE.moves.add(moves);
+            INSTANCE.merges.add(merges);
+        }
+    }
+
+    public static void countUndo() {
+        if (enabled) {
+            INSTANCE.undos.increment();
+        }
+    }
+
+    public static void countGamePlayed() {
+        if (enabled) {
+            INSTANCE.gamesPlayed.increment();
+        }
+    }
+
+    public LatencyHistogram histogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        GameMetrics.enabled = enabled;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getMerges() {
+        return merges.sum();
+    }
+
+    @Override
+    public long getUndos() {
+        return undos.sum();
+    }
+
+    @Override
+    public long getGamesPlayed() {
+        return gamesPlayed.sum();
+    }
+
+    @Override
+    public LatencySnapshot getMoveLatency() {
+        return histogram(Timer.MOVE).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getSpawnLatency() {
+        return histogram(Timer.SPAWN).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getWinLoseCheckLatency() {
+        return histogram(Timer.WIN_LOSE_CHECK).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getMovementDiffLatency() {
+        return histogram(Timer.MOVEMENT_DIFF).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getRenderLatency() {
+        return histogram(Timer.RENDER).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getHighScoreSaveLatency() {
+        return histogram(Timer.HIGH_SCORE_SAVE).snapshot();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        moves.reset();
+        merges.reset();
+        undos.reset();
+        gamesPlayed.reset();
+    }
+}
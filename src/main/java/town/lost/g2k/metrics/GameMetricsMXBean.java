@@ -0,0 +1,46 @@
+package town.lost.g2k.metrics;
+
+/**
+ * The JMX view of GameMetrics, registered as {@value GameMetrics#OBJECT_NAME}.
+ * Latencies are in nanoseconds.
+ */
+public interface GameMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getMoves();
+
+    long getMerges();
+
+    long getUndos();
+
+    long getGamesPlayed();
+
+    /**
+     * The whole of GameBoard.move, including the spawn and win/lose check.
+     */
+    LatencySnapshot getMoveLatency();
+
+    LatencySnapshot getSpawnLatency();
+
+    LatencySnapshot getWinLoseCheckLatency();
+
+    /**
+     * The controller's before/after board diff used to build animations.
+     */
+    LatencySnapshot getMovementDiffLatency();
+
+    /**
+     * The controller's refreshView, i.e. pushing the whole state to the view.
+     */
+    LatencySnapshot getRenderLatency();
+
+    LatencySnapshot getHighScoreSaveLatency();
+
+    /**
+     * Clears all histograms and counters.
+     */
+    void reset();
+}
@@ -0,0 +1,19 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for HighScoreManager writing its records.
+ */
+@Name("town.lost.g2k.HighScoreSave")
+@Label("High Score Save")
+@Category({"2048", "Controller"})
+@StackTrace(false)
+public class HighScoreSaveEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Records")
+    public int records;
+}
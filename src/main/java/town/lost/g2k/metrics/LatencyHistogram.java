@@ -0,0 +1,165 @@
+package town.lost.g2k.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, giving
+ * roughly 6% precision from nanoseconds to minutes in a fixed array.
+ * Recording a sample is one increment of a bucket, one LongAdder add, and a read of the
+ * maximum, which is only written when the sample beats it; it never allocates.
+ * The buckets are striped by thread, up to one set per processor, so threads recording
+ * at once rarely touch the same cache line. The count is the sum of the buckets.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values up to 2^40 ns (~18 minutes) are bucketed, anything larger lands in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 8;
+
+    private final AtomicLongArray[] stripes;
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param stripes the number of bucket sets, rounded up to a power of two
+     */
+    LatencyHistogram(int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        this.stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos the latency in nanoseconds, negative values count as zero
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        AtomicLongArray[] stripes = this.stripes;
+        stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)].incrementAndGet(bucketFor(nanos));
+        total.add(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return the highest value which falls into the bucket, so percentiles never under-report
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return sum(mergedCounts());
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        return mean(sum(mergedCounts()));
+    }
+
+    /**
+     * Returns an upper bound on the given percentile, e.g. 99.9.
+     * The buckets are read one at a time, so concurrent recording can skew the result slightly.
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = mergedCounts();
+        return percentile(counts, sum(counts), percentile);
+    }
+
+    private long[] mergedCounts() {
+        long[] counts = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+
+    private static long sum(long[] counts) {
+        long n = 0;
+        for (long count : counts) {
+            n += count;
+        }
+        return n;
+    }
+
+    private double mean(long n) {
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    private long percentile(long[] counts, long n, double percentile) {
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Reads every stripe once, so the count, mean and percentiles agree with each other.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = mergedCounts();
+        long n = sum(counts);
+        return new LatencySnapshot(n, mean(n), percentile(counts, n, 50), percentile(counts, n, 90),
+                percentile(counts, n, 99), percentile(counts, n, 99.9), getMax());
+    }
+
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        total.reset();
+        max.set(0);
+    }
+}
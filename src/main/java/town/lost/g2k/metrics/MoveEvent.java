@@ -0,0 +1,22 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for one GameBoard.move, whether or not the board changed.
+ */
+@Name("town.lost.g2k.Move")
+@Label("Move")
+@Category({"2048", "Model"})
+@StackTrace(false)
+public class MoveEvent extends Event {
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Changed")
+    public boolean changed;
+
+    @Label("Score Delta")
+    public int scoreDelta;
+}
@@ -0,0 +1,19 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for GameController.refreshView pushing the whole state to the view.
+ */
+@Name("town.lost.g2k.RefreshView")
+@Label("Refresh View")
+@Category({"2048", "Controller"})
+@StackTrace(false)
+public class RefreshViewEvent extends Event {
+
+    @Label("Score")
+    public int score;
+
+    @Label("Status")
+    public String status;
+}
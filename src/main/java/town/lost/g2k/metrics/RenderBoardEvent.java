@@ -0,0 +1,22 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for SwingGameView updating the tile labels, all of them or only those which changed.
+ */
+@Name("town.lost.g2k.RenderBoard")
+@Label("Render Board")
+@Category({"2048", "View"})
+@StackTrace(false)
+public class RenderBoardEvent extends Event {
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Tiles Changed")
+    public int tilesChanged;
+}
@@ -0,0 +1,22 @@
+package town.lost.g2k.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for a tile spawned by GameBoard.
+ */
+@Name("town.lost.g2k.Spawn")
+@Label("Spawn")
+@Category({"2048", "Model"})
+@StackTrace(false)
+public class SpawnEvent extends Event {
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+
+    @Label("Value")
+    public int value;
+}
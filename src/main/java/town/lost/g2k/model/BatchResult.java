@@ -0,0 +1,40 @@
+package town.lost.g2k.model;
+
+/**
+ * What a batch of moves did, from {@link GameBoard#moveAll} or {@link GameBoard#moveAllPacked}.
+ */
+public class BatchResult {
+
+    /**
+     * Why the batch stopped.
+     */
+    public enum Stop {
+        COMPLETED, // every move was applied
+        GAME_OVER, // the game was won or lost with moves left over
+        CONDITION  // the stop condition accepted the board
+    }
+
+    /** Moves applied, including those which didn't change the board. */
+    public final int applied;
+    /** Moves which changed the board. */
+    public final int changed;
+    public final int scoreGained;
+    public final int score;
+    public final GameStatus status;
+    public final Stop stop;
+
+    public BatchResult(int applied, int changed, int scoreGained, int score, GameStatus status, Stop stop) {
+        this.applied = applied;
+        this.changed = changed;
+        this.scoreGained = scoreGained;
+        this.score = score;
+        this.status = status;
+        this.stop = stop;
+    }
+
+    @Override
+    public String toString() {
+        return applied + " moves (" + changed + " changed the board), +" + scoreGained
+                + " to " + score + ", " + status + ", " + stop;
+    }
+}
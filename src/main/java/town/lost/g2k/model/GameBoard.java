@@ -1,9 +1,12 @@
 package town.lost.g2k.model;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import town.lost.g2k.metrics.GameMetrics;
+import town.lost.g2k.metrics.MoveEvent;
+import town.lost.g2k.metrics.SpawnEvent;
+
+import java.util.Arrays;
 import java.util.Random;
+import java.util.function.Predicate;
 
 /**
  * The main logic for a 2048 puzzle board, allowing NxN dimension,
@@ -11,18 +14,34 @@ import java.util.Random;
  */
 public class GameBoard {
 
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private final GameConfig config;
 
     private int xSize;
     private int ySize;
     private int[][] board;
     private int score;
+    private int moveCount;
     private GameStatus status;
-    private final Random random;
+    private final GameRandom random;
+    private final long seed;
+
+    // The most recent spawn, as row * xSize + col, or -1 if the last move didn't spawn
+    private int lastSpawnCell = -1;
+    private int lastSpawnValue;
+    // The merges of the last move, as row * xSize + col of the merged tile and its new value
+    private int[] lastMergeCells = new int[0];
+    private int[] lastMergeValues = new int[0];
+    private int lastMergeCount;
+    // When replaying, the recorded spawn to place instead of drawing one from the RNG
+    private int forcedSpawnCell = -1;
+    private int forcedSpawnValue;
 
     // Single-step undo snapshots
     private int[][] prevBoard;
     private int prevScore;
+    private int prevMoveCount;
     private boolean canUndo;
 
     /**
@@ -33,17 +52,26 @@ public class GameBoard {
     }
 
     /**
-     * Constructs using the provided GameConfig.
+     * Constructs using the provided GameConfig and a randomly chosen seed, see getSeed().
      * NxN dimension is config.getBoardSize().
      */
     public GameBoard(GameConfig config) {
+        this(config, new Random().nextLong());
+    }
+
+    /**
+     * Constructs using the provided GameConfig and a seeded random number generator,
+     * so the same seed and moves always produce the same spawns.
+     */
+    public GameBoard(GameConfig config, long seed) {
         this.config = config;
+        this.seed = seed;
         this.xSize = config.getXSize();
         this.ySize = config.getYSize();
         this.board = new int[ySize][xSize];
         this.score = 0;
         this.status = GameStatus.RUNNING;
-        this.random = new Random();
+        this.random = new GameRandom(seed);
 
         prevBoard = null;
         prevScore = 0;
@@ -57,10 +85,11 @@ public class GameBoard {
         this.ySize = config.getYSize(); // re-check if changed
         this.board = new int[ySize][xSize];
         this.score = 0;
+        this.moveCount = 0;
         this.status = GameStatus.RUNNING;
 
-        spawnNewTile();
-        spawnNewTile();
+        spawnRecorded();
+        spawnRecorded();
 
         prevBoard = null;
         prevScore = 0;
@@ -69,11 +98,140 @@ public class GameBoard {
 
     /**
      * Shifts/merges in the given direction, spawns a new tile if changed, checks for win/lose.
+     * Each move is counted and timed in {@link GameMetrics} and recorded as flight recorder events.
      */
     public void move(Direction dir) {
         if (status != GameStatus.RUNNING) {
             return;
         }
+        long start = GameMetrics.start();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        int scoreBefore = score;
+        // the same steps as applyMove, each instrumented
+        boolean boardChanged = slide(dir);
+        if (boardChanged) {
+            moveCount++;
+            spawnRecorded();
+            GameMetrics.countMoves(1, lastMergeCount);
+        }
+        long check = GameMetrics.start();
+        updateStatus(boardChanged);
+        GameMetrics.stop(GameMetrics.Timer.WIN_LOSE_CHECK, check);
+        if (isGameOver()) {
+            GameMetrics.countGamePlayed();
+        }
+        GameMetrics.stop(GameMetrics.Timer.MOVE, start);
+        if (event.isEnabled()) {
+            event.direction = dir.name();
+            event.changed = boardChanged;
+            event.scoreDelta = score - scoreBefore;
+            event.commit();
+        }
+    }
+
+    /**
+     * Applies {@code count} directions from {@code dirs}, starting at {@code from}, in one loop.
+     * Stops early when the game ends or, after any move, when {@code stopWhen} accepts the board.
+     * <p>
+     * Each move has the same effect as {@link #move(Direction)}, and undo afterwards reverts the
+     * last one, but nothing is timed and no flight recorder events are taken. The moves, merges
+     * and any game played are added to {@link GameMetrics} once, after the batch.
+     *
+     * @param stopWhen checked after each move, or null to play every direction
+     */
+    public BatchResult moveAll(Direction[] dirs, int from, int count, Predicate<GameBoard> stopWhen) {
+        boolean running = status == GameStatus.RUNNING;
+        int scoreBefore = score;
+        int changed = 0;
+        int merges = 0;
+        int i = 0;
+        BatchResult.Stop stop = BatchResult.Stop.COMPLETED;
+        for (; i < count; i++) {
+            if (status != GameStatus.RUNNING) {
+                stop = BatchResult.Stop.GAME_OVER;
+                break;
+            }
+            if (applyMove(dirs[from + i])) {
+                changed++;
+                merges += lastMergeCount;
+            }
+            if (stopWhen != null && stopWhen.test(this)) {
+                i++;
+                stop = BatchResult.Stop.CONDITION;
+                break;
+            }
+        }
+        countBatch(running, changed, merges);
+        return new BatchResult(i, changed, score - scoreBefore, score, status, stop);
+    }
+
+    public BatchResult moveAll(Direction[] dirs) {
+        return moveAll(dirs, 0, dirs.length, null);
+    }
+
+    /**
+     * Like {@link #moveAll(Direction[], int, int, Predicate)}, for moves packed four to a byte,
+     * two bits each holding the direction's ordinal, lowest bits first.
+     */
+    public BatchResult moveAllPacked(byte[] moves, int from, int count, Predicate<GameBoard> stopWhen) {
+        Direction[] directions = DIRECTIONS;
+        boolean running = status == GameStatus.RUNNING;
+        int scoreBefore = score;
+        int changed = 0;
+        int merges = 0;
+        int i = 0;
+        BatchResult.Stop stop = BatchResult.Stop.COMPLETED;
+        for (; i < count; i++) {
+            if (status != GameStatus.RUNNING) {
+                stop = BatchResult.Stop.GAME_OVER;
+                break;
+            }
+            int index = from + i;
+            if (applyMove(directions[(moves[index >> 2] >> ((index & 3) * 2)) & 3])) {
+                changed++;
+                merges += lastMergeCount;
+            }
+            if (stopWhen != null && stopWhen.test(this)) {
+                i++;
+                stop = BatchResult.Stop.CONDITION;
+                break;
+            }
+        }
+        countBatch(running, changed, merges);
+        return new BatchResult(i, changed, score - scoreBefore, score, status, stop);
+    }
+
+    private void countBatch(boolean wasRunning, int changed, int merges) {
+        GameMetrics.countMoves(changed, merges);
+        if (wasRunning && isGameOver()) {
+            GameMetrics.countGamePlayed();
+        }
+    }
+
+    /**
+     * The rules of one move, for the batch methods; {@link #move} takes the same steps, instrumented.
+     *
+     * @return true if the board changed
+     */
+    private boolean applyMove(Direction dir) {
+        boolean boardChanged = slide(dir);
+        if (boardChanged) {
+            moveCount++;
+            spawnNewTile();
+        }
+        updateStatus(boardChanged);
+        return boardChanged;
+    }
+
+    /**
+     * Saves the undo snapshot, then slides and merges the tiles, without spawning.
+     *
+     * @return true if the board changed
+     */
+    private boolean slide(Direction dir) {
+        lastSpawnCell = -1;
+        lastMergeCount = 0;
         if (config.isUndoEnabled()) {
             saveUndoSnapshot();
         }
@@ -93,23 +251,120 @@ public class GameBoard {
                 boardChanged = moveDown();
                 break;
         }
+        // no move => discard undo
+        if (!boardChanged && config.isUndoEnabled()) {
+            canUndo = false;
+        }
+        return boardChanged;
+    }
 
+    private void updateStatus(boolean boardChanged) {
         if (boardChanged) {
-            spawnNewTile();
             checkForWin();
+        }
+        if (isBoardFull() && !canMergeAny()) {
+            status = GameStatus.LOST;
+        }
+    }
 
-            if (isBoardFull() && !canMergeAny()) {
-                status = GameStatus.LOST;
-            }
-        } else {
-            // no move => discard undo
-            if (config.isUndoEnabled()) {
-                canUndo = false;
+    /**
+     * Applies a recorded move, placing the recorded spawn rather than drawing one from the RNG.
+     * Used to replay journals, so the RNG is left untouched.
+     *
+     * @param spawnCell  row * xSize + col of the spawned tile, or -1 if the move didn't spawn
+     * @param spawnValue the spawned tile's value
+     * @throws IllegalStateException if the board changed and the recorded cell isn't empty
+     */
+    public void replayMove(Direction dir, int spawnCell, int spawnValue) {
+        forcedSpawnCell = spawnCell;
+        forcedSpawnValue = spawnValue;
+        try {
+            move(dir);
+        } finally {
+            forcedSpawnCell = -1;
+        }
+    }
+
+    /**
+     * What {@code dir} would do, leaving this board untouched: no tile is spawned, the RNG,
+     * undo snapshot and move count are unchanged, and no metrics or flight recorder events
+     * are recorded. For bots which look ahead before choosing a move.
+     *
+     * @param into filled with the tiles after the move, before its spawn, or null if only the
+     *             gain is wanted; must be ySize by xSize
+     * @return the score the move would gain, or -1 if it wouldn't change the board
+     */
+    public int previewMove(Direction dir, int[][] into) {
+        boolean horizontal = dir == Direction.LEFT || dir == Direction.RIGHT;
+        int lines = horizontal ? ySize : xSize;
+        int length = horizontal ? xSize : ySize;
+        int gain = 0;
+        boolean changed = false;
+        for (int line = 0; line < lines; line++) {
+            int n = 0;
+            int last = 0;
+            // the last tile placed, which may still merge with the next one
+            boolean canMerge = false;
+            for (int i = 0; i < length; i++) {
+                int val = tileAt(board, dir, line, i);
+                if (val == 0) {
+                    continue;
+                }
+                if (canMerge && last == val) {
+                    last = val * 2;
+                    gain += last;
+                    changed = true;
+                    canMerge = false;
+                    setTile(into, dir, line, n - 1, last);
+                } else {
+                    changed |= i != n;
+                    last = val;
+                    canMerge = true;
+                    setTile(into, dir, line, n++, val);
+                }
             }
-            if (isBoardFull() && !canMergeAny()) {
-                status = GameStatus.LOST;
+            for (; n < length; n++) {
+                setTile(into, dir, line, n, 0);
             }
         }
+        return changed ? gain : -1;
+    }
+
+    /**
+     * @param line the row, or the column when moving up or down
+     * @param i    the position along the line, counted from where tiles slide to
+     */
+    private static int tileAt(int[][] tiles, Direction dir, int line, int i) {
+        switch (dir) {
+            case LEFT:
+                return tiles[line][i];
+            case RIGHT:
+                return tiles[line][tiles[line].length - 1 - i];
+            case UP:
+                return tiles[i][line];
+            default:
+                return tiles[tiles.length - 1 - i][line];
+        }
+    }
+
+    private static void setTile(int[][] tiles, Direction dir, int line, int i, int val) {
+        if (tiles == null) {
+            return;
+        }
+        switch (dir) {
+            case LEFT:
+                tiles[line][i] = val;
+                break;
+            case RIGHT:
+                tiles[line][tiles[line].length - 1 - i] = val;
+                break;
+            case UP:
+                tiles[i][line] = val;
+                break;
+            default:
+                tiles[tiles.length - 1 - i][line] = val;
+                break;
+        }
     }
 
     /**
@@ -120,6 +375,7 @@ public class GameBoard {
             return;
         }
         restoreUndoSnapshot();
+        GameMetrics.countUndo();
     }
 
     public void reset() {
@@ -136,7 +392,7 @@ public class GameBoard {
         boolean changed = false;
         for (int r = 0; r < board.length; r++) {
             int[] row = board[r];
-            int[] merged = compressAndMerge(row);
+            int[] merged = compressAndMerge(row, r * xSize, 1);
             if (!rowsEqual(row, merged)) {
                 board[r] = merged;
                 changed = true;
@@ -149,7 +405,7 @@ public class GameBoard {
         boolean changed = false;
         for (int r = 0; r < board.length; r++) {
             int[] reversed = reverseArray(board[r]);
-            int[] merged = compressAndMerge(reversed);
+            int[] merged = compressAndMerge(reversed, r * xSize + xSize - 1, -1);
             int[] newRow = reverseArray(merged);
             if (!rowsEqual(board[r], newRow)) {
                 board[r] = newRow;
@@ -163,7 +419,7 @@ public class GameBoard {
         boolean changed = false;
         for (int c = 0; c < board[0].length; c++) {
             int[] col = extractColumn(c);
-            int[] merged = compressAndMerge(col);
+            int[] merged = compressAndMerge(col, c, xSize);
             if (!rowsEqual(col, merged)) {
                 putColumn(c, merged);
                 changed = true;
@@ -177,7 +433,7 @@ public class GameBoard {
         for (int c = 0; c < board[0].length; c++) {
             int[] col = extractColumn(c);
             int[] reversed = reverseArray(col);
-            int[] merged = compressAndMerge(reversed);
+            int[] merged = compressAndMerge(reversed, (ySize - 1) * xSize + c, -xSize);
             int[] newCol = reverseArray(merged);
             if (!rowsEqual(col, newCol)) {
                 putColumn(c, newCol);
@@ -187,56 +443,92 @@ public class GameBoard {
         return changed;
     }
 
-    private int[] compressAndMerge(int[] row) {
-        List<Integer> filtered = new ArrayList<>();
+    /**
+     * @param firstCell row * xSize + col of the line's first cell, where tiles slide to
+     * @param step      the difference in cell number from one cell of the line to the next
+     */
+    private int[] compressAndMerge(int[] row, int firstCell, int step) {
+        int[] newRow = new int[row.length];
+        int n = 0;
+        // the last tile placed, which may still merge with the next one
+        boolean canMerge = false;
         for (int val : row) {
-            if (val != 0) {
-                filtered.add(val);
+            if (val == 0) {
+                continue;
             }
-        }
-
-        for (int i = 0; i < filtered.size() - 1; i++) {
-            if (filtered.get(i).equals(filtered.get(i + 1))) {
-                int mergedVal = filtered.get(i) * 2;
+            if (canMerge && newRow[n - 1] == val) {
+                int mergedVal = val * 2;
+                newRow[n - 1] = mergedVal;
                 score += mergedVal;
-                filtered.set(i, mergedVal);
-                filtered.remove(i + 1);
+                recordMerge(firstCell + (n - 1) * step, mergedVal);
+                canMerge = false;
+            } else {
+                newRow[n++] = val;
+                canMerge = true;
             }
         }
+        return newRow;
+    }
 
-        int[] newRow = new int[row.length];
-        for (int i = 0; i < filtered.size(); i++) {
-            newRow[i] = filtered.get(i);
+    private void recordMerge(int cell, int value) {
+        if (lastMergeCount == lastMergeCells.length) {
+            // at most one merge for every two cells, though the board may have grown since
+            int capacity = Math.max(xSize * ySize / 2, lastMergeCount + 1);
+            lastMergeCells = Arrays.copyOf(lastMergeCells, capacity);
+            lastMergeValues = Arrays.copyOf(lastMergeValues, capacity);
         }
-        return newRow;
+        lastMergeCells[lastMergeCount] = cell;
+        lastMergeValues[lastMergeCount++] = value;
     }
 
     // -- Spawning & Checks --
 
-     void spawnNewTile() {
-        List<int[]> emptyCells = getEmptyCells();
-        if (emptyCells.isEmpty()) {
-            return;
+    /**
+     * {@link #spawnNewTile()}, timed and recorded as a flight recorder event.
+     */
+    private void spawnRecorded() {
+        long start = GameMetrics.start();
+        SpawnEvent event = new SpawnEvent();
+        event.begin();
+        lastSpawnCell = -1;
+        spawnNewTile();
+        if (lastSpawnCell >= 0 && event.isEnabled()) {
+            event.row = lastSpawnCell / xSize;
+            event.column = lastSpawnCell % xSize;
+            event.value = lastSpawnValue;
+            event.commit();
         }
-        int[] cell = emptyCells.get(random.nextInt(emptyCells.size()));
-        board[cell[0]][cell[1]] = chooseRandomTileValue();
+        GameMetrics.stop(GameMetrics.Timer.SPAWN, start);
     }
 
-    private int chooseRandomTileValue() {
-        Map<Integer, Double> probs = config.getTileSpawnProbabilities();
-        double roll = random.nextDouble();
-        double cumulative = 0.0;
-        int chosenValue = 2; // fallback
-
-        for (int tileValue : probs.keySet()) {
-            double p = probs.get(tileValue);
-            cumulative += p;
-            if (roll <= cumulative) {
-                chosenValue = tileValue;
-                break;
+    void spawnNewTile() {
+        int row = -1;
+        int col = -1;
+        if (forcedSpawnCell >= 0) {
+            row = forcedSpawnCell / xSize;
+            col = forcedSpawnCell % xSize;
+            if (row >= ySize || board[row][col] != 0) {
+                throw new IllegalStateException("Recorded spawn cell " + forcedSpawnCell + " is not empty");
+            }
+            board[row][col] = forcedSpawnValue;
+        } else {
+            // the same draw as picking from a list of the empty cells in row order, without the list
+            int empty = countEmptyCells();
+            if (empty > 0) {
+                int cell = nthEmptyCell(random.nextInt(empty));
+                row = cell / xSize;
+                col = cell % xSize;
+                board[row][col] = chooseRandomTileValue();
             }
         }
-        return chosenValue;
+        if (row >= 0) {
+            lastSpawnCell = row * xSize + col;
+            lastSpawnValue = board[row][col];
+        }
+    }
+
+    private int chooseRandomTileValue() {
+        return config.spawnValueFor(random.nextDouble());
     }
 
     private void checkForWin() {
@@ -262,7 +554,7 @@ public class GameBoard {
         return true;
     }
 
-    private boolean canMergeAny() {
+    boolean canMergeAny() {
         // horizontal check
         for (int r = 0; r < board.length; r++) {
             for (int c = 0; c < board[r].length - 1; c++) {
@@ -282,26 +574,44 @@ public class GameBoard {
         return false;
     }
 
-    private List<int[]> getEmptyCells() {
-        List<int[]> list = new ArrayList<>();
+    private int countEmptyCells() {
+        int count = 0;
+        for (int[] row : board) {
+            for (int val : row) {
+                if (val == 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return row * xSize + col of the empty cell with the given rank, counting in row order
+     */
+    private int nthEmptyCell(int rank) {
         for (int r = 0; r < board.length; r++) {
             for (int c = 0; c < board[r].length; c++) {
-                if (board[r][c] == 0) {
-                    list.add(new int[]{r, c});
+                if (board[r][c] == 0 && rank-- == 0) {
+                    return r * xSize + c;
                 }
             }
         }
-        return list;
+        throw new IllegalStateException("No empty cell");
     }
 
     // -- Undo Snapshots --
 
     private void saveUndoSnapshot() {
-        prevBoard = new int[board.length][board[0].length];
+        // reused from move to move, since getUndoBoard() and restoreUndo() copy
+        if (prevBoard == null || prevBoard.length != board.length || prevBoard[0].length != board[0].length) {
+            prevBoard = new int[board.length][board[0].length];
+        }
         for (int r = 0; r < board.length; r++) {
             System.arraycopy(board[r], 0, prevBoard[r], 0, board[r].length);
         }
         prevScore = score;
+        prevMoveCount = moveCount;
         canUndo = true;
     }
 
@@ -310,6 +620,7 @@ public class GameBoard {
             System.arraycopy(prevBoard[r], 0, board[r], 0, board[r].length);
         }
         score = prevScore;
+        moveCount = prevMoveCount;
         status = GameStatus.RUNNING;
         canUndo = false;
     }
@@ -368,10 +679,148 @@ public class GameBoard {
         }
     }
 
+    /**
+     * Restores a recorded position, such as a journal keyframe or a saved game.
+     * Discards any undo snapshot; see {@link #restoreUndo(int[][], int, int)}.
+     */
+    public void restoreState(int[][] tiles, int score, int moveCount, GameStatus status) {
+        setBoardState(tiles);
+        this.score = score;
+        this.moveCount = moveCount;
+        this.status = status;
+        canUndo = false;
+    }
+
+    /**
+     * Restores the single-step undo snapshot after {@link #restoreState}, or clears it if {@code tiles} is null.
+     */
+    public void restoreUndo(int[][] tiles, int score, int moveCount) {
+        if (tiles == null) {
+            canUndo = false;
+            return;
+        }
+        if (tiles.length != ySize || tiles[0].length != xSize) {
+            throw new IllegalArgumentException("Dimension mismatch; must be " + xSize + "x" + ySize);
+        }
+        prevBoard = new int[ySize][xSize];
+        for (int r = 0; r < ySize; r++) {
+            System.arraycopy(tiles[r], 0, prevBoard[r], 0, xSize);
+        }
+        prevScore = score;
+        prevMoveCount = moveCount;
+        canUndo = config.isUndoEnabled();
+    }
+
+    /**
+     * @return a copy of the board a single-step undo would restore, or null if undo isn't available
+     */
+    public int[][] getUndoBoard() {
+        if (!canUndo) {
+            return null;
+        }
+        int[][] copy = new int[ySize][xSize];
+        for (int r = 0; r < ySize; r++) {
+            System.arraycopy(prevBoard[r], 0, copy[r], 0, xSize);
+        }
+        return copy;
+    }
+
+    public int getUndoScore() {
+        return prevScore;
+    }
+
+    public int getUndoMoveCount() {
+        return prevMoveCount;
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Writes each cell's exponent, 0 for empty, row by row, without copying the board first.
+     *
+     * @param cells at least xSize * ySize bytes
+     */
+    public void packCells(byte[] cells) {
+        for (int r = 0, i = 0; r < ySize; r++) {
+            for (int c = 0; c < xSize; c++, i++) {
+                int val = board[r][c];
+                cells[i] = (byte) (val == 0 ? 0 : Integer.numberOfTrailingZeros(val));
+            }
+        }
+    }
+
     public int getScore() {
         return score;
     }
 
+    /**
+     * @return the number of moves which changed the board since the last reset, less any undone
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return the highest tile on the board, or 0 if it is empty
+     */
+    public int getMaxTile() {
+        int max = 0;
+        for (int[] row : board) {
+            for (int val : row) {
+                max = Math.max(max, val);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the seed of the RNG this board was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return row * xSize + col of the tile spawned by the last move, or -1 if it didn't spawn one
+     */
+    public int getLastSpawnCell() {
+        return lastSpawnCell;
+    }
+
+    /**
+     * @return the value of the tile spawned by the last move
+     */
+    public int getLastSpawnValue() {
+        return lastSpawnValue;
+    }
+
+    /**
+     * @return the number of merges the last move made
+     */
+    public int getLastMergeCount() {
+        return lastMergeCount;
+    }
+
+    /**
+     * @return row * xSize + col of the tile made by the last move's i-th merge
+     */
+    public int getLastMergeCell(int i) {
+        return lastMergeCells[i];
+    }
+
+    /**
+     * @return the value of the tile made by the last move's i-th merge
+     */
+    public int getLastMergeValue(int i) {
+        return lastMergeValues[i];
+    }
+
     public GameStatus getStatus() {
         return status;
     }
@@ -2,6 +2,7 @@ package town.lost.g2k.model;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Holds configuration settings for a 2048 game:
@@ -20,6 +21,8 @@ public class GameConfig {
     private boolean animationsEnabled;
     private String highScoreFilePath;
     private Map<Integer, Double> tileSpawnProbabilities;
+    // the spawn probabilities in ascending tile order, built from the map when first drawn from
+    private volatile SpawnTable spawnTable;
 
     /**
      * Default constructor for classic 4x4, 2048, single-step undo disabled, etc.
@@ -106,11 +109,88 @@ public class GameConfig {
         this.highScoreFilePath = highScoreFilePath;
     }
 
+    /**
+     * To change the probabilities once games have been played, set a new map rather than changing this one,
+     * since spawns are drawn from a table built from the map the first time.
+     */
     public Map<Integer, Double> getTileSpawnProbabilities() {
         return tileSpawnProbabilities;
     }
 
     public void setTileSpawnProbabilities(Map<Integer, Double> tileSpawnProbabilities) {
         this.tileSpawnProbabilities = tileSpawnProbabilities;
+        this.spawnTable = null;
+    }
+
+    /**
+     * Picks the value of a spawned tile: the first tile, in ascending order, whose cumulative probability
+     * reaches {@code roll}, or 2 if none does. The order is fixed, unlike the map's iteration order, which
+     * differs between map types and, for {@code Map.of}, between runs; so a seed alone decides every spawn,
+     * as {@link #configKey()} assumes.
+     *
+     * @param roll uniformly distributed in [0, 1)
+     */
+    public int spawnValueFor(double roll) {
+        SpawnTable table = spawnTable;
+        if (table == null) {
+            table = new SpawnTable(tileSpawnProbabilities);
+            spawnTable = table;
+        }
+        double[] cumulative = table.cumulative;
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll <= cumulative[i]) {
+                return table.values[i];
+            }
+        }
+        return 2;
+    }
+
+    private static final class SpawnTable {
+        final int[] values;
+        final double[] cumulative;
+
+        SpawnTable(Map<Integer, Double> probabilities) {
+            Map<Integer, Double> sorted = probabilities == null ? new TreeMap<>() : new TreeMap<>(probabilities);
+            values = new int[sorted.size()];
+            cumulative = new double[sorted.size()];
+            double sum = 0;
+            int i = 0;
+            for (Map.Entry<Integer, Double> entry : sorted.entrySet()) {
+                sum += entry.getValue();
+                values[i] = entry.getKey();
+                cumulative[i++] = sum;
+            }
+        }
+    }
+
+    // ================================
+    // Record Keys
+    // ================================
+
+    /**
+     * A hash of the spawn probabilities which doesn't depend on the map's iteration order.
+     */
+    public int spawnProfileHash() {
+        int hash = 1;
+        for (Map.Entry<Integer, Double> entry : new TreeMap<>(tileSpawnProbabilities).entrySet()) {
+            hash = 31 * hash + entry.getKey();
+            hash = 31 * hash + Double.hashCode(entry.getValue());
+        }
+        return hash;
+    }
+
+    /**
+     * Identifies the rules a score was achieved under, for keying records:
+     * xSize and ySize (12 bits each), the win tile as the exponent of the power of two
+     * it requires (8 bits) and the spawn profile hash (32 bits).
+     * Unlike {@code xSize * 10 + ySize}, this doesn't collide for dimensions of 10 or more.
+     */
+    public long configKey() {
+        // tiles are powers of two, so reaching winTileValue means reaching the next power of two at or above it
+        int winExponent = 32 - Integer.numberOfLeadingZeros(Math.max(1, winTileValue) - 1);
+        return ((long) (xSize & 0xFFF) << 52)
+                | ((long) (ySize & 0xFFF) << 40)
+                | ((long) winExponent << 32)
+                | (spawnProfileHash() & 0xFFFFFFFFL);
     }
 }
@@ -0,0 +1,53 @@
+package town.lost.g2k.model;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose state can be read and restored, so a saved game spawns the same
+ * tiles after it is resumed.
+ * <p>
+ * It uses the same 48-bit linear congruential generator as java.util.Random, so a given
+ * seed produces exactly the same sequence. Unlike Random it is not thread-safe;
+ * each GameBoard uses its own.
+ */
+public class GameRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // set by setSeed from the superclass constructor, so it has no initialiser
+    private long state;
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * @return the generator's 48-bit state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restores a state returned by {@link #getState()}.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
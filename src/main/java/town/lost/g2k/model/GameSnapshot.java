@@ -0,0 +1,193 @@
+package town.lost.g2k.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Saves and resumes the complete state of a game: its config, board, score, status,
+ * undo snapshot and RNG state, so a resumed game continues exactly as it would have.
+ * <p>
+ * The format is a versioned, fixed layout for a given config, little-endian,
+ * with one byte per cell holding the tile's exponent:
+ * <pre>
+ * header: magic "G2KS", version, xSize, ySize, winTileValue,
+ *         flags (bit 0 undoEnabled, bit 1 animationsEnabled, bit 2 undo available),
+ *         spawn entries, high score file path length in bytes (-1 for none)
+ * then:   (value int, probability double) per spawn entry, the path in UTF-8,
+ *         seed (long), RNG state (long), score, move count, status, undo score, undo move count,
+ *         the board's cells, row by row, then the undo board's cells if undo is available
+ * </pre>
+ * A snapshot is written with one buffer and one channel write, and read with one file read.
+ */
+public final class GameSnapshot {
+
+    private static final int MAGIC = 0x534B_3247; // "G2KS" in little-endian order
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * @return the size in bytes of the board's snapshot
+     */
+    public static int size(GameBoard board) {
+        GameConfig config = board.getConfig();
+        String path = config.getHighScoreFilePath();
+        int cells = board.getXSize() * board.getYSize();
+        return HEADER_SIZE
+                + config.getTileSpawnProbabilities().size() * (Integer.BYTES + Double.BYTES)
+                + (path == null ? 0 : path.getBytes(StandardCharsets.UTF_8).length)
+                + 2 * Long.BYTES + 5 * Integer.BYTES
+                + (board.getUndoBoard() == null ? cells : 2 * cells);
+    }
+
+    /**
+     * Writes the board's snapshot at the buffer's position, which must be little-endian.
+     */
+    public static void write(GameBoard board, ByteBuffer buffer) {
+        GameConfig config = board.getConfig();
+        Map<Integer, Double> spawns = config.getTileSpawnProbabilities();
+        byte[] path = config.getHighScoreFilePath() == null ? null
+                : config.getHighScoreFilePath().getBytes(StandardCharsets.UTF_8);
+        int[][] undoBoard = board.getUndoBoard();
+        int flags = (config.isUndoEnabled() ? 1 : 0)
+                | (config.isAnimationsEnabled() ? 2 : 0)
+                | (undoBoard != null ? 4 : 0);
+
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(board.getXSize())
+                .putInt(board.getYSize())
+                .putInt(config.getWinTileValue())
+                .putInt(flags)
+                .putInt(spawns.size())
+                .putInt(path == null ? -1 : path.length);
+        for (Map.Entry<Integer, Double> entry : spawns.entrySet()) {
+            buffer.putInt(entry.getKey()).putDouble(entry.getValue());
+        }
+        if (path != null) {
+            buffer.put(path);
+        }
+        buffer.putLong(board.getSeed())
+                .putLong(board.getRandom().getState())
+                .putInt(board.getScore())
+                .putInt(board.getMoveCount())
+                .putInt(board.getStatus().ordinal())
+                .putInt(board.getUndoScore())
+                .putInt(board.getUndoMoveCount());
+        putCells(buffer, board.getBoard());
+        if (undoBoard != null) {
+            putCells(buffer, undoBoard);
+        }
+    }
+
+    /**
+     * Reads a snapshot from the buffer's position, which must be little-endian.
+     *
+     * @return a new board, with its own config, in the saved state
+     * @throws IllegalArgumentException if the buffer doesn't hold a snapshot this version can read
+     */
+    public static GameBoard read(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a saved game");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported saved game version " + version);
+        }
+        int xSize = buffer.getInt();
+        int ySize = buffer.getInt();
+        int winTile = buffer.getInt();
+        int flags = buffer.getInt();
+        int entries = buffer.getInt();
+        int pathLength = buffer.getInt();
+        // spawn order decides which value a roll picks, so keep the order they were written in
+        Map<Integer, Double> spawns = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            spawns.put(buffer.getInt(), buffer.getDouble());
+        }
+        String path = null;
+        if (pathLength >= 0) {
+            byte[] bytes = new byte[pathLength];
+            buffer.get(bytes);
+            path = new String(bytes, StandardCharsets.UTF_8);
+        }
+        GameConfig config = new GameConfig(xSize, ySize, winTile, (flags & 1) != 0, (flags & 2) != 0, path, spawns);
+
+        GameBoard board = new GameBoard(config, buffer.getLong());
+        long randomState = buffer.getLong();
+        int score = buffer.getInt();
+        int moveCount = buffer.getInt();
+        GameStatus status = GameStatus.values()[buffer.getInt()];
+        int undoScore = buffer.getInt();
+        int undoMoveCount = buffer.getInt();
+        board.restoreState(getCells(buffer, xSize, ySize), score, moveCount, status);
+        if ((flags & 4) != 0) {
+            board.restoreUndo(getCells(buffer, xSize, ySize), undoScore, undoMoveCount);
+        }
+        board.getRandom().setState(randomState);
+        return board;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, then moves it into place.
+     */
+    public static void save(GameBoard board, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size(board)).order(ByteOrder.LITTLE_ENDIAN);
+        write(board, buffer);
+        buffer.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static GameBoard load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return read(buffer);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Not a readable saved game: " + path, e);
+        }
+    }
+
+    private static void putCells(ByteBuffer buffer, int[][] tiles) {
+        for (int[] row : tiles) {
+            for (int value : row) {
+                buffer.put((byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value)));
+            }
+        }
+    }
+
+    private static int[][] getCells(ByteBuffer buffer, int xSize, int ySize) {
+        int[][] tiles = new int[ySize][xSize];
+        for (int r = 0; r < ySize; r++) {
+            for (int c = 0; c < xSize; c++) {
+                int exponent = buffer.get() & 0xFF;
+                tiles[r][c] = exponent == 0 ? 0 : 1 << exponent;
+            }
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,64 @@
+package town.lost.g2k.model;
+
+/**
+ * An immutable copy of a game's visible state, packed one exponent byte per cell,
+ * numbered with the sequence of its publication.
+ * <p>
+ * Unlike a GameBoard it can be read from any thread once published, without locks or further copies.
+ */
+public final class GameState {
+
+    public final long sequence;
+    public final int xSize;
+    public final int ySize;
+    public final int score;
+    public final int moveCount;
+    public final GameStatus status;
+    private final byte[] cells;
+
+    private GameState(long sequence, int xSize, int ySize, int score, int moveCount, GameStatus status, byte[] cells) {
+        this.sequence = sequence;
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.score = score;
+        this.moveCount = moveCount;
+        this.status = status;
+        this.cells = cells;
+    }
+
+    /**
+     * Packs the board's current state. Must be called on the thread which owns the board.
+     */
+    public static GameState of(GameBoard board, long sequence) {
+        byte[] cells = new byte[board.getXSize() * board.getYSize()];
+        board.packCells(cells);
+        return new GameState(sequence, board.getXSize(), board.getYSize(), board.getScore(),
+                board.getMoveCount(), board.getStatus(), cells);
+    }
+
+    /**
+     * @return the tile's value, or 0 if the cell is empty
+     */
+    public int getTile(int row, int col) {
+        int exponent = cells[row * xSize + col];
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    /**
+     * @return the board as GameBoard.getBoard() returned it
+     */
+    public int[][] toBoard() {
+        int[][] board = new int[ySize][xSize];
+        for (int r = 0; r < ySize; r++) {
+            for (int c = 0; c < xSize; c++) {
+                board[r][c] = getTile(r, c);
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + xSize + "x" + ySize + ", score " + score + ", " + moveCount + " moves, " + status;
+    }
+}
@@ -0,0 +1,326 @@
+package town.lost.g2k.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parks many games of one config as fixed-size records in a single off-heap buffer,
+ * either direct memory or a memory-mapped file, indexed by id.
+ * <p>
+ * A parked game costs one record and no heap objects, so millions of idle games add nothing
+ * for the garbage collector to trace. {@link #inflate(int)} turns a record back into a live
+ * {@link GameBoard} to play, and {@link #park(int, GameBoard)} writes it back. A mapped store
+ * reopens in one scan of the in-use flags, with every parked game ready to inflate.
+ * <pre>
+ * header (64 bytes): magic "G2KP", version, xSize, ySize, capacity, record size, config key (long)
+ * record:            flags (bit 0 in use, bit 1 undo available), status, 2 reserved bytes,
+ *                    score, move count, undo score, undo move count, generation,
+ *                    seed (long), RNG state (long),
+ *                    one exponent byte per cell, then the undo board's if the config allows undo,
+ *                    padded to a multiple of 8 bytes
+ * </pre>
+ * Records for different ids may be parked and inflated from different threads at once;
+ * callers must not use the same id from two threads at once.
+ */
+public class PackedGameStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x504B_3247; // "G2KP" in little-endian order
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int FLAGS = 0;
+    private static final int STATUS = 1;
+    private static final int SCORE = 4;
+    private static final int MOVES = 8;
+    private static final int UNDO_SCORE = 12;
+    private static final int UNDO_MOVES = 16;
+    private static final int GENERATION = 20;
+    private static final int SEED = 24;
+    private static final int RANDOM = 32;
+    private static final int CELLS = 40;
+
+    private static final int IN_USE = 1;
+    private static final int UNDO_AVAILABLE = 2;
+
+    private final GameConfig config;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int recordSize;
+    private final int cells;
+
+    // unused ids, lowest on top, guarded by this
+    private final int[] free;
+    private int freeCount;
+
+    private PackedGameStore(GameConfig config, FileChannel channel, ByteBuffer buffer, int capacity) {
+        this.config = config;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.cells = config.getXSize() * config.getYSize();
+        this.recordSize = recordSize(config);
+        this.free = new int[capacity];
+        for (int id = capacity - 1; id >= 0; id--) {
+            if ((buffer.get(offset(id) + FLAGS) & IN_USE) == 0) {
+                free[freeCount++] = id;
+            }
+        }
+    }
+
+    /**
+     * @return the size in bytes of one record for the config
+     */
+    public static int recordSize(GameConfig config) {
+        int cells = config.getXSize() * config.getYSize();
+        return (CELLS + (config.isUndoEnabled() ? 2 * cells : cells) + 7) & ~7;
+    }
+
+    /**
+     * Creates a store in direct memory, which lasts as long as the process.
+     */
+    public static PackedGameStore allocate(GameConfig config, int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(checkedSize(config, capacity)).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(buffer, config, capacity);
+        return new PackedGameStore(config, null, buffer, capacity);
+    }
+
+    /**
+     * Opens the store at {@code path}, creating it with room for {@code capacity} games if it doesn't exist.
+     * An existing file keeps the capacity it was created with.
+     *
+     * @throws IOException if the file isn't a store, or was created for a different config
+     */
+    public static PackedGameStore open(Path path, GameConfig config, int capacity) throws IOException {
+        int size = checkedSize(config, capacity);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < 32 || header.getInt() != MAGIC) {
+                    throw new IOException("Not a game store: " + path);
+                }
+                int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported game store version " + version + ": " + path);
+                }
+                int xSize = header.getInt();
+                int ySize = header.getInt();
+                capacity = header.getInt();
+                int storedRecordSize = header.getInt();
+                long configKey = header.getLong();
+                if (xSize != config.getXSize() || ySize != config.getYSize()
+                        || storedRecordSize != recordSize(config) || configKey != config.configKey()) {
+                    throw new IOException("Game store was created for a different config: " + path);
+                }
+                size = checkedSize(config, capacity);
+                if (channel.size() < size) {
+                    throw new IOException("Game store is truncated: " + path);
+                }
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                writeHeader(buffer, config, capacity);
+            }
+            return new PackedGameStore(config, channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int checkedSize(GameConfig config, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+        }
+        long size = HEADER_SIZE + (long) capacity * recordSize(config);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A store of " + capacity + " games needs " + size
+                    + " bytes, more than one buffer can map");
+        }
+        return (int) size;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, GameConfig config, int capacity) {
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, config.getXSize())
+                .putInt(12, config.getYSize())
+                .putInt(16, capacity)
+                .putInt(20, recordSize(config))
+                .putLong(24, config.configKey());
+    }
+
+    /**
+     * @return true if games played under {@code other} can be parked here
+     */
+    public boolean accepts(GameConfig other) {
+        return other.getXSize() == config.getXSize() && other.getYSize() == config.getYSize()
+                && other.isUndoEnabled() == config.isUndoEnabled() && other.configKey() == config.configKey();
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Parks a new game under an unused id.
+     *
+     * @return the game's id
+     * @throws IllegalStateException if the store is full
+     */
+    public int add(GameBoard board) {
+        int id;
+        synchronized (this) {
+            if (freeCount == 0) {
+                throw new IllegalStateException("Game store is full, capacity " + capacity);
+            }
+            id = free[--freeCount];
+            int at = offset(id);
+            buffer.putInt(at + GENERATION, (buffer.getInt(at + GENERATION) + 1) & Integer.MAX_VALUE);
+        }
+        park(id, board);
+        return id;
+    }
+
+    /**
+     * Ids are reused, lowest first, so a caller handing ids out to others should tell the holders
+     * of one id apart by its generation. It survives removal and, in a mapped store, reopening.
+     *
+     * @return how many times {@link #add(GameBoard)} has handed out the id, wrapping to 0 after
+     * {@code Integer.MAX_VALUE}
+     */
+    public int getGeneration(int id) {
+        return buffer.getInt(offset(id) + GENERATION);
+    }
+
+    /**
+     * Writes the board's state into its record, replacing whatever was parked there.
+     */
+    public void park(int id, GameBoard board) {
+        int at = offset(id);
+        int[][] undo = board.getUndoBoard();
+        buffer.put(at + STATUS, (byte) board.getStatus().ordinal())
+                .putInt(at + SCORE, board.getScore())
+                .putInt(at + MOVES, board.getMoveCount())
+                .putInt(at + UNDO_SCORE, board.getUndoScore())
+                .putInt(at + UNDO_MOVES, board.getUndoMoveCount())
+                .putLong(at + SEED, board.getSeed())
+                .putLong(at + RANDOM, board.getRandom().getState());
+        putCells(at + CELLS, board.getBoard());
+        boolean hasUndo = undo != null && config.isUndoEnabled();
+        if (hasUndo) {
+            putCells(at + CELLS + cells, undo);
+        }
+        // the flags go last, so a record is never marked in use before it is complete
+        buffer.put(at + FLAGS, (byte) (IN_USE | (hasUndo ? UNDO_AVAILABLE : 0)));
+    }
+
+    /**
+     * Builds a live board from a parked game. The record stays as it is until it is parked again or removed.
+     *
+     * @throws IllegalArgumentException if no game is parked under the id
+     */
+    public GameBoard inflate(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("No game parked under id " + id);
+        }
+        int at = offset(id);
+        int flags = buffer.get(at + FLAGS);
+        GameBoard board = new GameBoard(config, buffer.getLong(at + SEED));
+        board.restoreState(getCells(at + CELLS), buffer.getInt(at + SCORE), buffer.getInt(at + MOVES),
+                GameStatus.values()[buffer.get(at + STATUS)]);
+        if ((flags & UNDO_AVAILABLE) != 0) {
+            board.restoreUndo(getCells(at + CELLS + cells), buffer.getInt(at + UNDO_SCORE), buffer.getInt(at + UNDO_MOVES));
+        }
+        board.getRandom().setState(buffer.getLong(at + RANDOM));
+        return board;
+    }
+
+    /**
+     * @return true if a game is parked under the id
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < capacity && (buffer.get(offset(id) + FLAGS) & IN_USE) != 0;
+    }
+
+    /**
+     * Frees the id for reuse.
+     *
+     * @return true if a game was parked under it
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        synchronized (this) {
+            if (!contains(id)) {
+                return false;
+            }
+            buffer.put(offset(id) + FLAGS, (byte) 0);
+            free[freeCount++] = id;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of games in the store
+     */
+    public synchronized int size() {
+        return capacity - freeCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Forces a mapped store's records to storage. Does nothing for a store in direct memory.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+
+    private int offset(int id) {
+        return HEADER_SIZE + id * recordSize;
+    }
+
+    private void putCells(int at, int[][] tiles) {
+        for (int[] row : tiles) {
+            for (int value : row) {
+                buffer.put(at++, (byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value)));
+            }
+        }
+    }
+
+    private int[][] getCells(int at) {
+        int[][] tiles = new int[config.getYSize()][config.getXSize()];
+        for (int[] row : tiles) {
+            for (int c = 0; c < row.length; c++) {
+                int exponent = buffer.get(at++) & 0xFF;
+                row[c] = exponent == 0 ? 0 : 1 << exponent;
+            }
+        }
+        return tiles;
+    }
+}
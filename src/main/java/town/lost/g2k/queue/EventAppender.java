@@ -0,0 +1,242 @@
+package town.lost.g2k.queue;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static town.lost.g2k.queue.EventQueueFormat.*;
+
+/**
+ * The single writer of an append-only event queue: a directory of memory-mapped segments of fixed-size
+ * records, laid out as described in {@link EventQueueFormat}. Any number of {@link EventTailer}s, in this
+ * process or others, can read it at the same time without slowing it down.
+ * <p>
+ * Appending is a few stores into the mapped segment; when one fills up, the next is created and mapped.
+ * Records reach the page cache as they are written, so they survive the process dying; {@link #force()}
+ * makes them survive the machine dying too, and {@link #close()} forces them.
+ * <p>
+ * Only one appender may write to a queue at a time, and it is not thread-safe: use one queue per game thread,
+ * or stripe sessions across queues by id.
+ */
+public class EventAppender implements AutoCloseable {
+
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long index;
+
+    private EventAppender(Path dir, int recordsPerSegment) {
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+    }
+
+    public static EventAppender open(Path dir) throws IOException {
+        return open(dir, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * Opens the queue in {@code dir}, creating it if needed, and continues after its last record.
+     * An existing queue keeps its segment size.
+     *
+     * @throws IOException if the directory holds a segment which isn't one
+     */
+    public static EventAppender open(Path dir, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment < 1 || segmentSize(recordsPerSegment) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Records per segment must be from 1 to "
+                    + (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE + ", was " + recordsPerSegment);
+        }
+        Files.createDirectories(dir);
+        long last = lastSegment(dir);
+        EventAppender appender;
+        if (last < 0) {
+            appender = new EventAppender(dir, recordsPerSegment);
+            appender.map(0, true);
+        } else {
+            Path path = segmentPath(dir, last);
+            int existing;
+            try (FileChannel probe = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer header = probe.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(probe.size(), HEADER_SIZE));
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                existing = readHeader(header, path, last);
+            }
+            appender = new EventAppender(dir, existing);
+            appender.map(last, false);
+            appender.index = last + appender.firstUnwritten();
+        }
+        return appender;
+    }
+
+    /**
+     * @return the first index of the last segment in the directory, or -1 if there are none
+     */
+    static long lastSegment(Path dir) throws IOException {
+        long last = -1;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path path : segments) {
+                String name = path.getFileName().toString();
+                try {
+                    last = Math.max(last, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        return last;
+    }
+
+    private void map(long firstIndex, boolean create) throws IOException {
+        Path path = segmentPath(dir, firstIndex);
+        FileChannel next = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = next.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize(recordsPerSegment));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (create) {
+                writeHeader(buffer, recordsPerSegment, firstIndex);
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            channel = next;
+            segment = buffer;
+            segmentStart = firstIndex;
+        } catch (IOException | RuntimeException e) {
+            next.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the slot of the first record in the segment not yet written; the written ones come first
+     */
+    private int firstUnwritten() {
+        int low = 0;
+        int high = recordsPerSegment;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segment.getInt(HEADER_SIZE + mid * RECORD_SIZE) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Appends one record.
+     *
+     * @param direction the move's direction, or null
+     * @param cell      row * xSize + col, or -1
+     * @return the record's index
+     */
+    public long append(GameEventType type, long gameId, Direction direction, int cell, int value,
+                       int score, int moveCount, GameStatus status) {
+        if (index - segmentStart == recordsPerSegment) {
+            try {
+                map(index, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error starting event queue segment " + index + " in " + dir, e);
+            }
+        }
+        int at = HEADER_SIZE + (int) (index - segmentStart) * RECORD_SIZE;
+        segment.putInt(at + CELL, cell)
+                .putInt(at + VALUE, value)
+                .putInt(at + SCORE, score)
+                .putInt(at + MOVES, moveCount)
+                .putLong(at + GAME_ID, gameId)
+                .putLong(at + TIME, System.currentTimeMillis());
+        int header = (type.ordinal() + 1)
+                | (direction == null ? NO_DIRECTION : direction.ordinal()) << 8
+                | status.ordinal() << 16;
+        INT.setRelease(segment, at + HEADER, header);
+        return index++;
+    }
+
+    /**
+     * Appends a START, then a SPAWN for each tile on the board.
+     */
+    public void appendStart(long gameId, GameBoard board) {
+        appendNewGame(GameEventType.START, gameId, board);
+    }
+
+    /**
+     * Appends a RESET, then a SPAWN for each tile on the new board.
+     */
+    public void appendReset(long gameId, GameBoard board) {
+        appendNewGame(GameEventType.RESET, gameId, board);
+    }
+
+    private void appendNewGame(GameEventType type, long gameId, GameBoard board) {
+        GameStatus status = board.getStatus();
+        append(type, gameId, null, -1, board.getXSize() << 16 | board.getYSize(),
+                board.getScore(), board.getMoveCount(), status);
+        int[][] tiles = board.getBoard();
+        for (int r = 0, cell = 0; r < tiles.length; r++) {
+            for (int c = 0; c < tiles[r].length; c++, cell++) {
+                if (tiles[r][c] != 0) {
+                    append(GameEventType.SPAWN, gameId, null, cell, tiles[r][c],
+                            board.getScore(), board.getMoveCount(), status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the move just made on the board, then its MERGEs and SPAWN, then an END if it finished the game.
+     */
+    public void appendMove(long gameId, Direction dir, GameBoard board) {
+        int score = board.getScore();
+        int moves = board.getMoveCount();
+        GameStatus status = board.getStatus();
+        append(GameEventType.MOVE, gameId, dir, -1, 0, score, moves, status);
+        for (int i = 0; i < board.getLastMergeCount(); i++) {
+            append(GameEventType.MERGE, gameId, dir, board.getLastMergeCell(i), board.getLastMergeValue(i),
+                    score, moves, status);
+        }
+        if (board.getLastSpawnCell() >= 0) {
+            append(GameEventType.SPAWN, gameId, dir, board.getLastSpawnCell(), board.getLastSpawnValue(),
+                    score, moves, status);
+        }
+        if (board.isGameOver()) {
+            append(GameEventType.END, gameId, null, -1, board.getMaxTile(), score, moves, status);
+        }
+    }
+
+    public void appendUndo(long gameId, GameBoard board) {
+        append(GameEventType.UNDO, gameId, null, -1, 0, board.getScore(), board.getMoveCount(), board.getStatus());
+    }
+
+    /**
+     * @return the index the next record will have
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Writes the current segment's records to the disk.
+     */
+    public void force() {
+        segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,85 @@
+package town.lost.g2k.queue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * The layout shared by EventAppender and EventTailer. All values are little-endian.
+ * <p>
+ * A queue is a directory of segment files, each named after the index of its first record,
+ * {@code 00000000000000000000.g2kq}, and holding the same number of fixed-size records:
+ * <pre>
+ * segment header (64 bytes): magic "G2KQ", version, record size, records per segment, first index (long)
+ * record (40 bytes): header (int: type ordinal + 1, direction ordinal << 8 or 0xFF00 for none, status << 16),
+ *                    cell (int, -1 for none), value (int), score (int), move count (int), reserved (int),
+ *                    game id (long), time in epoch milliseconds (long)
+ * </pre>
+ * A record's header is written last, with release semantics, and is zero until then,
+ * so a reader which finds a non-zero header with acquire semantics can read the whole record.
+ */
+final class EventQueueFormat {
+
+    static final int MAGIC = 0x514B_3247; // "G2KQ" in little-endian order
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 40;
+    static final String SUFFIX = ".g2kq";
+
+    // record fields
+    static final int HEADER = 0;
+    static final int CELL = 4;
+    static final int VALUE = 8;
+    static final int SCORE = 12;
+    static final int MOVES = 16;
+    static final int GAME_ID = 24;
+    static final int TIME = 32;
+
+    static final int NO_DIRECTION = 0xFF;
+
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private EventQueueFormat() {
+    }
+
+    static long segmentSize(int recordsPerSegment) {
+        return HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+    }
+
+    static Path segmentPath(Path dir, long firstIndex) {
+        return dir.resolve(String.format("%020d", firstIndex) + SUFFIX);
+    }
+
+    /**
+     * Writes the segment header, with the magic last, so a reader which sees the magic sees the rest.
+     */
+    static void writeHeader(ByteBuffer segment, int recordsPerSegment, long firstIndex) {
+        segment.putInt(4, VERSION)
+                .putInt(8, RECORD_SIZE)
+                .putInt(12, recordsPerSegment)
+                .putLong(16, firstIndex);
+        INT.setRelease(segment, 0, MAGIC);
+    }
+
+    /**
+     * @return the segment's records per segment
+     * @throws IOException if it isn't a segment, or doesn't start at {@code firstIndex}
+     */
+    static int readHeader(ByteBuffer segment, Path path, long firstIndex) throws IOException {
+        if (segment.capacity() < HEADER_SIZE || segment.getInt(0) != MAGIC) {
+            throw new IOException("Not an event queue segment: " + path);
+        }
+        int version = segment.getInt(4);
+        if (version != VERSION || segment.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Unsupported event queue version " + version + ": " + path);
+        }
+        if (segment.getLong(16) != firstIndex) {
+            throw new IOException("Event queue segment starts at " + segment.getLong(16)
+                    + " instead of " + firstIndex + ": " + path);
+        }
+        return segment.getInt(12);
+    }
+}
@@ -0,0 +1,160 @@
+package town.lost.g2k.queue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static town.lost.g2k.queue.EventQueueFormat.*;
+
+/**
+ * An independent reader of an event queue, with its own position. It never blocks and never writes,
+ * so any number of tailers, in any process, can follow a queue while its {@link EventAppender} writes.
+ * <p>
+ * {@link #next(GameEvent)} reads the record at the position if it has been written, or returns false;
+ * a live tailer calls it again later, while a replay stops there. Not thread-safe.
+ */
+public class EventTailer implements AutoCloseable {
+
+    private final Path dir;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int recordsPerSegment;
+    private long segmentStart = -1;
+    private long index;
+
+    private EventTailer(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Opens a tailer positioned at the queue's first record.
+     */
+    public static EventTailer open(Path dir) throws IOException {
+        return open(dir, 0);
+    }
+
+    /**
+     * Opens a tailer positioned at {@code index}, which may be a record not written yet.
+     *
+     * @throws IOException if the queue doesn't exist or its first segment isn't one
+     */
+    public static EventTailer open(Path dir, long index) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("No event queue at " + dir);
+        }
+        EventTailer tailer = new EventTailer(dir);
+        try {
+            tailer.recordsPerSegment = tailer.readRecordsPerSegment();
+            tailer.seek(index);
+        } catch (IOException | RuntimeException e) {
+            tailer.close();
+            throw e;
+        }
+        return tailer;
+    }
+
+    private int readRecordsPerSegment() throws IOException {
+        long last = EventAppender.lastSegment(dir);
+        if (last < 0) {
+            throw new IOException("No event queue at " + dir);
+        }
+        Path path = segmentPath(dir, last);
+        try (FileChannel probe = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = probe.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(probe.size(), HEADER_SIZE));
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            return readHeader(header, path, last);
+        }
+    }
+
+    /**
+     * Moves to the record at {@code index}, which need not exist yet.
+     */
+    public void seek(long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Negative index " + index);
+        }
+        this.index = index;
+    }
+
+    /**
+     * @return the index of the next record to read
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Reads the record at the current position into {@code event} and moves past it.
+     *
+     * @return false if the record hasn't been written yet
+     * @throws UncheckedIOException if a segment can't be read
+     */
+    public boolean next(GameEvent event) {
+        long start = index - index % recordsPerSegment;
+        if (start != segmentStart && !mapSegment(start)) {
+            return false;
+        }
+        int at = HEADER_SIZE + (int) (index - segmentStart) * RECORD_SIZE;
+        int header = (int) INT.getAcquire(segment, at + HEADER);
+        if (header == 0) {
+            return false;
+        }
+        event.index = index;
+        event.header = header;
+        event.cell = segment.getInt(at + CELL);
+        event.value = segment.getInt(at + VALUE);
+        event.score = segment.getInt(at + SCORE);
+        event.moveCount = segment.getInt(at + MOVES);
+        event.gameId = segment.getLong(at + GAME_ID);
+        event.timeMillis = segment.getLong(at + TIME);
+        index++;
+        return true;
+    }
+
+    /**
+     * @return false if the segment hasn't been created yet, or not to its full size
+     */
+    private boolean mapSegment(long start) {
+        Path path = segmentPath(dir, start);
+        long size = segmentSize(recordsPerSegment);
+        try {
+            if (!Files.exists(path) || Files.size(path) < size) {
+                return false;
+            }
+            FileChannel next = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                MappedByteBuffer buffer = next.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if ((int) INT.getAcquire(buffer, 0) == 0) {
+                    // the appender hasn't written the header yet
+                    next.close();
+                    return false;
+                }
+                readHeader(buffer, path, start);
+                close();
+                channel = next;
+                segment = buffer;
+                segmentStart = start;
+                return true;
+            } catch (IOException | RuntimeException e) {
+                next.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading event queue segment " + path, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
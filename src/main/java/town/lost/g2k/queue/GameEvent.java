@@ -0,0 +1,82 @@
+package town.lost.g2k.queue;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameStatus;
+
+/**
+ * One record read from an event queue. An {@link EventTailer} fills the same instance again
+ * for every record, so copy out anything to keep.
+ */
+public class GameEvent {
+
+    private static final GameEventType[] TYPES = GameEventType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    long index;
+    int header;
+    int cell;
+    int value;
+    int score;
+    int moveCount;
+    long gameId;
+    long timeMillis;
+
+    public long getIndex() {
+        return index;
+    }
+
+    public GameEventType getType() {
+        return TYPES[(header & 0xFF) - 1];
+    }
+
+    /**
+     * @return the direction of the move this record belongs to, or null
+     */
+    public Direction getDirection() {
+        int dir = header >>> 8 & 0xFF;
+        return dir < DIRECTIONS.length ? DIRECTIONS[dir] : null;
+    }
+
+    public GameStatus getStatus() {
+        return STATUSES[header >>> 16 & 0xFF];
+    }
+
+    /**
+     * @return row * xSize + col of a SPAWN or MERGE, or -1
+     */
+    public int getCell() {
+        return cell;
+    }
+
+    /**
+     * @return the tile of a SPAWN or MERGE, the board size of a START or RESET, the highest tile of an END
+     */
+    public int getValue() {
+        return value;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    @Override
+    public String toString() {
+        Direction dir = getDirection();
+        return "#" + index + " game " + gameId + " " + getType() + (dir == null ? "" : " " + dir)
+                + (cell >= 0 ? " cell " + cell + " value " + value : "")
+                + ", score " + score + ", " + moveCount + " moves, " + getStatus();
+    }
+}
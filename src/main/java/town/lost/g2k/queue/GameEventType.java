@@ -0,0 +1,14 @@
+package town.lost.g2k.queue;
+
+/**
+ * The kinds of record in an event queue. Stored as the ordinal plus one, so a zero marks a record not yet written.
+ */
+public enum GameEventType {
+    START,  // a game was started or resumed, its value xSize << 16 | ySize, followed by a SPAWN for each tile
+    MOVE,   // a move, with its direction and the score, move count and status after it
+    SPAWN,  // a tile appeared, with its cell and value
+    MERGE,  // two tiles merged, with the cell and value of the new tile
+    UNDO,   // the last move was undone, with the score and move count restored
+    RESET,  // a new game replaced the last one, laid out like a START
+    END     // the game was won or lost, with the final score and the highest tile as its value
+}
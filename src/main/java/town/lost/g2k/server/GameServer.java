@@ -0,0 +1,306 @@
+package town.lost.g2k.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.PackedGameStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Serves many independent games over HTTP/JSON, using the JDK's built-in HTTP server.
+ * <pre>
+ * POST   /games[?size=5x4][&amp;seed=N]  start a game, 201 with its state
+ * GET    /games/{id}                   the game's state
+ * POST   /games/{id}/move?dir=LEFT     play a move, the state includes "moved"
+ * POST   /games/{id}/undo              undo the last move
+ * POST   /games/{id}/reset             start the game again
+ * DELETE /games/{id}                   end the session, 204
+ * </pre>
+ * A state is {@code {"id":1,"score":0,"moves":0,"status":"RUNNING","board":[[0,2,...],...]}}.
+ * Errors are {@code {"error":"..."}} with 400, 404, 405 or 503.
+ * <p>
+ * Requests run on a fixed pool of daemon threads; requests for one session are serialised by
+ * the session, and requests for different sessions never wait for each other.
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8048;
+    public static final int MAX_SIDE = 16;
+    public static final int DEFAULT_STORE_CAPACITY = 1_000_000;
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    static {
+        // replies are small, so without TCP_NODELAY each one waits on the client's delayed ACK (~40 ms);
+        // the JDK server reads this once, so it must be set before the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionManager sessions;
+    private final Map<String, GameConfig> configs = new ConcurrentHashMap<>();
+
+    private GameServer(HttpServer server, ExecutorService executor, SessionManager sessions) {
+        this.server = server;
+        this.executor = executor;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Starts a server on {@code address}; port 0 picks a free port.
+     *
+     * @param threads the size of the request pool
+     */
+    public static GameServer start(InetSocketAddress address, int threads, SessionManager sessions) throws IOException {
+        HttpServer server = HttpServer.create(address, 1024);
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "game-server-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        GameServer gameServer = new GameServer(server, executor, sessions);
+        server.createContext("/games", gameServer::handle);
+        server.setExecutor(executor);
+        server.start();
+        return gameServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public SessionManager getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for those in progress, and closes the sessions.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessions.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            // path[0] is empty and path[1] is "games"
+            if (path.length == 2) {
+                if (!"POST".equals(method)) {
+                    send(exchange, 405, error("Use POST to start a game"));
+                    return;
+                }
+                create(exchange, query);
+                return;
+            }
+            if (path.length > 4) {
+                send(exchange, 404, error("No such resource"));
+                return;
+            }
+            long id;
+            try {
+                id = Long.parseLong(path[2]);
+            } catch (NumberFormatException e) {
+                send(exchange, 404, error("No such game: " + path[2]));
+                return;
+            }
+            if (path.length == 3 && "DELETE".equals(method)) {
+                if (sessions.remove(id)) {
+                    send(exchange, 204, null);
+                } else {
+                    send(exchange, 404, error("No such game: " + id));
+                }
+                return;
+            }
+            String action = path.length == 4 ? path[3] : "";
+            String expected = action.isEmpty() ? "GET" : "POST";
+            if (!expected.equals(method)) {
+                send(exchange, 405, error("Use " + expected + (action.isEmpty() ? " for a game's state" : " to " + action)));
+                return;
+            }
+            Function<GameSession, String> call;
+            switch (action) {
+                case "":
+                    call = GameSession::state;
+                    break;
+                case "move":
+                    Direction dir = parseDirection(query.get("dir"));
+                    call = session -> session.move(dir);
+                    break;
+                case "undo":
+                    call = GameSession::undo;
+                    break;
+                case "reset":
+                    call = GameSession::reset;
+                    break;
+                default:
+                    send(exchange, 404, error("No such action: " + action));
+                    return;
+            }
+            String reply = sessions.withSession(id, call);
+            if (reply == null) {
+                send(exchange, 404, error("No such game: " + id));
+            } else {
+                send(exchange, 200, reply);
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            send(exchange, 503, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, error("Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void create(HttpExchange exchange, Map<String, String> query) throws IOException {
+        GameConfig config = configFor(query.getOrDefault("size", "4x4"));
+        String seed = query.get("seed");
+        long value;
+        try {
+            value = seed == null ? ThreadLocalRandom.current().nextLong() : Long.parseLong(seed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad seed: " + seed);
+        }
+        send(exchange, 201, sessions.create(config, value).state());
+    }
+
+    /**
+     * Sessions of the same size share one config, which is never modified once created.
+     */
+    private GameConfig configFor(String size) {
+        int x = size.indexOf('x');
+        int cols, rows;
+        try {
+            cols = Integer.parseInt(size.substring(0, Math.max(0, x)));
+            rows = Integer.parseInt(size.substring(x + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad size, expected e.g. 4x4: " + size);
+        }
+        if (cols < 2 || rows < 2 || cols > MAX_SIDE || rows > MAX_SIDE) {
+            throw new IllegalArgumentException("Size must be from 2x2 to " + MAX_SIDE + "x" + MAX_SIDE + ": " + size);
+        }
+        return configs.computeIfAbsent(cols + "x" + rows, k -> serverConfig(cols, rows));
+    }
+
+    /**
+     * The config games of a size are played under: undo enabled, no animations and no high score file.
+     */
+    static GameConfig serverConfig(int cols, int rows) {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(cols, rows);
+        config.setUndoEnabled(true);
+        config.setAnimationsEnabled(false);
+        config.setHighScoreFilePath(null);
+        return config;
+    }
+
+    private static Direction parseDirection(String dir) {
+        if (dir == null) {
+            throw new IllegalArgumentException("Missing dir, one of UP, DOWN, LEFT or RIGHT");
+        }
+        try {
+            return Direction.valueOf(dir.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bad dir, expected UP, DOWN, LEFT or RIGHT: " + dir);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Runs a server on loopback until the process is stopped.
+     * Arguments: [port] [threads] [idle timeout in seconds] [game store file].
+     * With a store file, only 4x4 games are hosted, idle games are parked in the file,
+     * and the games in it are resumed when the server restarts.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        long idleSeconds = args.length > 2 ? Long.parseLong(args[2]) : 600;
+        PackedGameStore store = null;
+        if (args.length > 3) {
+            Path file = Paths.get(args[3]);
+            store = PackedGameStore.open(file, serverConfig(4, 4), DEFAULT_STORE_CAPACITY);
+            System.out.println("Parking games in " + file + ", " + store.size() + " of " + store.capacity() + " in use");
+        }
+        SessionManager sessions = new SessionManager(TimeUnit.SECONDS.toMillis(idleSeconds),
+                SessionManager.DEFAULT_MAX_SESSIONS, store);
+        GameServer server = start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads, sessions);
+        PackedGameStore parked = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (parked != null) {
+                try {
+                    parked.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing the game store: " + e);
+                }
+            }
+        }, "game-server-shutdown"));
+        System.out.println("Serving games on http://localhost:" + server.getPort() + "/games with "
+                + threads + " threads");
+    }
+}
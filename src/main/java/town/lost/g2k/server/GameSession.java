@@ -0,0 +1,112 @@
+package town.lost.g2k.server;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+
+/**
+ * One player's game on a {@link GameServer}.
+ * <p>
+ * Every call on a session is serialised on the session's own monitor, so any number of sessions
+ * are played at once without a shared lock, while a board is only ever touched by one request
+ * thread at a time. Each call renders the state as JSON under the same lock, so the reply always
+ * matches the move that produced it.
+ * <p>
+ * Once a session is parked or removed its calls return null; the caller should look the id up
+ * again, see {@link SessionManager#withSession}.
+ */
+public class GameSession {
+
+    private final long id;
+    private GameBoard board;
+    private volatile long lastAccess;
+
+    GameSession(long id, GameBoard board, long now) {
+        this.id = id;
+        this.board = board;
+        this.lastAccess = now;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the System.nanoTime of the last request for this session
+     */
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    /**
+     * Takes the board away from this session, once its last call has finished.
+     *
+     * @return the board, or null if it was already taken
+     */
+    synchronized GameBoard detach() {
+        GameBoard detached = board;
+        board = null;
+        return detached;
+    }
+
+    /**
+     * Plays a move.
+     *
+     * @return the state after the move, with whether the board changed, or null if the session was detached
+     */
+    public synchronized String move(Direction dir) {
+        if (board == null) {
+            return null;
+        }
+        int before = board.getMoveCount();
+        board.move(dir);
+        return toJson(board.getMoveCount() != before);
+    }
+
+    public synchronized String undo() {
+        if (board == null) {
+            return null;
+        }
+        board.undo();
+        return toJson(null);
+    }
+
+    public synchronized String reset() {
+        if (board == null) {
+            return null;
+        }
+        board.reset();
+        return toJson(null);
+    }
+
+    public synchronized String state() {
+        return board == null ? null : toJson(null);
+    }
+
+    private String toJson(Boolean moved) {
+        int[][] tiles = board.getBoard();
+        StringBuilder json = new StringBuilder(64 + tiles.length * tiles[0].length * 5);
+        json.append("{\"id\":").append(id);
+        if (moved != null) {
+            json.append(",\"moved\":").append(moved.booleanValue());
+        }
+        json.append(",\"score\":").append(board.getScore())
+                .append(",\"moves\":").append(board.getMoveCount())
+                .append(",\"status\":\"").append(board.getStatus()).append('"')
+                .append(",\"board\":[");
+        for (int r = 0; r < tiles.length; r++) {
+            json.append(r == 0 ? "[" : ",[");
+            for (int c = 0; c < tiles[r].length; c++) {
+                if (c > 0) {
+                    json.append(',');
+                }
+                json.append(tiles[r][c]);
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+}
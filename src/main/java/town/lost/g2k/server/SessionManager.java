@@ -0,0 +1,243 @@
+package town.lost.g2k.server;
+
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.PackedGameStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Holds the games of many players, each in its own {@link GameSession}.
+ * <p>
+ * Sessions live in a ConcurrentHashMap, so looking one up never blocks on another, and each
+ * session serialises its own requests. A daemon thread evicts sessions which haven't had a
+ * request for the idle timeout.
+ * <p>
+ * With a {@link PackedGameStore}, eviction parks a game instead of dropping it: only the games being
+ * played have a live GameBoard, and a request for a parked game inflates it again. A session id is
+ * then a store id in the low 32 bits and the id's generation above them. The store reuses ids, so
+ * the generation keeps an old session's id from reaching the next game parked under the same
+ * store id. Parking, inflating and removing an id all happen inside the map's per-key compute, so
+ * they never overlap for one id and never block other ids.
+ */
+public class SessionManager implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final PackedGameStore store;
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * @param idleTimeoutMs how long a session may go without a request, or 0 to keep sessions until removed
+     */
+    public SessionManager(long idleTimeoutMs) {
+        this(idleTimeoutMs, DEFAULT_MAX_SESSIONS, null);
+    }
+
+    public SessionManager(long idleTimeoutMs, int maxSessions) {
+        this(idleTimeoutMs, maxSessions, null);
+    }
+
+    /**
+     * @param maxSessions the most games played at once; with a store, parked games don't count
+     * @param store       where idle games are parked, or null to drop them
+     */
+    public SessionManager(long idleTimeoutMs, int maxSessions, PackedGameStore store) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be at least 1, was " + maxSessions);
+        }
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.store = store;
+        if (idleTimeoutMs > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, idleTimeoutMs / 4);
+            evictor.scheduleWithFixedDelay(() -> evictIdle(System.nanoTime()), period, period, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @throws IllegalArgumentException if there is a store and it can't hold games of this config
+     * @throws IllegalStateException    if maxSessions games are already being played, or the store is full
+     */
+    public GameSession create(GameConfig config, long seed) {
+        if (store != null && !store.accepts(config)) {
+            GameConfig stored = store.getConfig();
+            throw new IllegalArgumentException("Only " + stored.getXSize() + "x" + stored.getYSize()
+                    + " games are hosted here");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Too many sessions, limit " + maxSessions);
+        }
+        GameBoard board = new GameBoard(config, seed);
+        long id;
+        if (store == null) {
+            id = nextId.getAndIncrement();
+        } else {
+            int storeId = store.add(board);
+            id = (long) store.getGeneration(storeId) << 32 | storeId;
+        }
+        GameSession session = new GameSession(id, board, System.nanoTime());
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * Looks up a session, inflating it if it was parked, and marks it as used.
+     *
+     * @return the session, or null if there is none or it was evicted
+     */
+    public GameSession get(long id) {
+        GameSession session = sessions.get(id);
+        if (session == null && isParked(id)) {
+            session = sessions.computeIfAbsent(id, k -> isParked(k)
+                    ? new GameSession(k, store.inflate(storeIdOf(k)), System.nanoTime()) : null);
+        }
+        if (session != null) {
+            session.touch(System.nanoTime());
+        }
+        return session;
+    }
+
+    /**
+     * Runs {@code action} on the session, looking it up again if it was parked or removed
+     * between the lookup and the action.
+     *
+     * @param action a call on the session, such as {@code s -> s.move(dir)}, which returns null
+     *               if the session was detached
+     * @return the action's result, or null if there is no such session
+     */
+    public <T> T withSession(long id, Function<GameSession, T> action) {
+        while (true) {
+            GameSession session = get(id);
+            if (session == null) {
+                return null;
+            }
+            T result = action.apply(session);
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Ends a session, and frees its id in the store.
+     *
+     * @return true if there was such a session
+     */
+    public boolean remove(long id) {
+        boolean[] removed = new boolean[1];
+        sessions.compute(id, (k, session) -> {
+            if (session != null) {
+                session.detach();
+                removed[0] = true;
+            }
+            if (isStoreId(k) && store.remove(storeIdOf(k))) {
+                removed[0] = true;
+            }
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * @return the number of games being played, not counting parked ones
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Evicts every session whose last request was more than the idle timeout before {@code now},
+     * parking it if there is a store.
+     *
+     * @return the number of sessions evicted
+     */
+    int evictIdle(long now) {
+        if (idleTimeoutNanos <= 0) {
+            return 0;
+        }
+        int evicted = 0;
+        for (GameSession session : sessions.values()) {
+            if (now - session.getLastAccess() > idleTimeoutNanos && park(session, now)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean park(GameSession session, long now) {
+        boolean[] parked = new boolean[1];
+        sessions.computeIfPresent(session.getId(), (k, current) -> {
+            // a request may have touched it since the scan
+            if (current != session || now - current.getLastAccess() <= idleTimeoutNanos) {
+                return current;
+            }
+            detachAndPark(current);
+            parked[0] = true;
+            return null;
+        });
+        return parked[0];
+    }
+
+    private void detachAndPark(GameSession session) {
+        GameBoard board = session.detach();
+        if (board != null && store != null) {
+            store.park(storeIdOf(session.getId()), board);
+        }
+    }
+
+    private static int storeIdOf(long id) {
+        return (int) id;
+    }
+
+    /**
+     * @return true if the id is a store id with its current generation, whether or not a game is parked there
+     */
+    private boolean isStoreId(long id) {
+        if (store == null || id < 0) {
+            return false;
+        }
+        int storeId = storeIdOf(id);
+        return storeId >= 0 && storeId < store.capacity() && store.getGeneration(storeId) == (int) (id >>> 32);
+    }
+
+    private boolean isParked(long id) {
+        return isStoreId(id) && store.contains(storeIdOf(id));
+    }
+
+    /**
+     * Stops the evictor and ends every session, parking them if there is a store.
+     * The store itself is left open.
+     */
+    @Override
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (Long id : sessions.keySet()) {
+            sessions.computeIfPresent(id, (k, session) -> {
+                detachAndPark(session);
+                return null;
+            });
+        }
+    }
+}
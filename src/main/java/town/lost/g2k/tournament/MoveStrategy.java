@@ -0,0 +1,18 @@
+package town.lost.g2k.tournament;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+
+/**
+ * A bot which chooses each move of one game. A tournament creates a new instance for every game,
+ * so a strategy may keep state between moves, and is only ever called from one thread.
+ */
+@FunctionalInterface
+public interface MoveStrategy {
+
+    /**
+     * @param board the game, which is running; it must not be changed
+     * @return the next move
+     */
+    Direction chooseMove(GameBoard board);
+}
@@ -0,0 +1,91 @@
+package town.lost.g2k.tournament;
+
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reference strategies, to play tournaments from the command line and to compare new strategies with.
+ */
+public final class Strategies {
+
+    /**
+     * The names accepted by {@link #named(String)}.
+     */
+    public static final List<String> NAMES = Arrays.asList("corner", "greedy", "random");
+
+    private static final Direction[] CORNER_ORDER = {Direction.DOWN, Direction.LEFT, Direction.RIGHT, Direction.UP};
+
+    private Strategies() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code name} isn't one of {@link #NAMES}
+     */
+    public static Supplier<MoveStrategy> named(String name) {
+        switch (name) {
+            case "corner":
+                return Strategies::corner;
+            case "greedy":
+                return Strategies::greedy;
+            case "random":
+                return Strategies::random;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name + ", expected one of " + NAMES);
+        }
+    }
+
+    /**
+     * Keeps the big tiles in the bottom-left corner: down, else left, else right, else up,
+     * taking the first which changes the board.
+     */
+    public static MoveStrategy corner() {
+        return board -> {
+            for (Direction dir : CORNER_ORDER) {
+                if (board.previewMove(dir, null) >= 0) {
+                    return dir;
+                }
+            }
+            return Direction.UP;
+        };
+    }
+
+    /**
+     * Takes the move which scores the most now, preferring the corner order on a tie.
+     */
+    public static MoveStrategy greedy() {
+        return board -> {
+            Direction best = Direction.UP;
+            int bestGain = -1;
+            for (Direction dir : CORNER_ORDER) {
+                int gain = board.previewMove(dir, null);
+                if (gain > bestGain) {
+                    best = dir;
+                    bestGain = gain;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Moves at random, from a generator seeded with the game's seed so the game can be replayed.
+     */
+    public static MoveStrategy random() {
+        return new MoveStrategy() {
+            private SplittableRandom random;
+
+            @Override
+            public Direction chooseMove(GameBoard board) {
+                if (random == null) {
+                    random = new SplittableRandom(board.getSeed());
+                }
+                return CORNER_ORDER[random.nextInt(CORNER_ORDER.length)];
+            }
+        };
+    }
+}
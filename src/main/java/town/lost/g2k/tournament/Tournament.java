@@ -0,0 +1,341 @@
+package town.lost.g2k.tournament;
+
+import town.lost.g2k.analytics.ForkJoinTasks;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Plays every strategy against every seed, so each strategy faces the same starting board and the
+ * same stream of spawn random numbers, and compares them seed by seed in a {@link TournamentReport}.
+ * <p>
+ * Games are separate tasks on a ForkJoinPool, see {@link ForkJoinTasks}, with a new strategy instance
+ * and board for each. Every finished game is appended to a CSV results file straight away; running the
+ * tournament again with the same file reads those games back and plays only the rest, so a long
+ * tournament can be stopped and resumed.
+ * Games are queued seed by seed and each worker takes a run of the queue in order, so an interrupted
+ * run leaves only a few seeds played by some strategies and not others.
+ * <pre>
+ * java -cp g2k.jar town.lost.g2k.tournament.Tournament &lt;results.csv&gt; &lt;seeds&gt; &lt;strategy,...&gt; [threads] [XxY]
+ * </pre>
+ */
+public class Tournament {
+
+    /**
+     * A game ends early, as it stands, after this many moves in a row which don't change the board.
+     */
+    public static final int MAX_WASTED_MOVES = 1000;
+
+    static final String COLUMNS = "strategy,seed,score,moves,max_tile,status";
+    private static final double Z_95 = 1.959964;
+
+    private final GameConfig config;
+    private final List<String> names;
+    private final List<Supplier<MoveStrategy>> strategies;
+    private final long[] seeds;
+    private final Map<Long, Integer> seedIndex = new HashMap<>();
+
+    // indexed by strategy, then seed; a score of -1 is a game not played yet
+    private final int[][] scores;
+    private final int[][] moves;
+    private final boolean[][] won;
+
+    /**
+     * @param strategies the strategies by name, in the order to report them; names must not contain commas
+     * @throws IllegalArgumentException if there are no strategies or seeds, or a seed is repeated
+     */
+    public Tournament(GameConfig config, Map<String, Supplier<MoveStrategy>> strategies, long[] seeds) {
+        if (strategies.isEmpty() || seeds.length == 0) {
+            throw new IllegalArgumentException("A tournament needs at least one strategy and one seed");
+        }
+        if ((long) strategies.size() * seeds.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many games: " + strategies.size() + " x " + seeds.length);
+        }
+        for (String name : strategies.keySet()) {
+            if (name.isEmpty() || name.indexOf(',') >= 0 || name.indexOf('\n') >= 0) {
+                throw new IllegalArgumentException("Invalid strategy name: " + name);
+            }
+        }
+        for (int i = 0; i < seeds.length; i++) {
+            if (seedIndex.put(seeds[i], i) != null) {
+                throw new IllegalArgumentException("Seed " + seeds[i] + " is repeated");
+            }
+        }
+        this.config = config;
+        this.names = new ArrayList<>(strategies.keySet());
+        this.strategies = new ArrayList<>(strategies.values());
+        this.seeds = seeds.clone();
+        scores = new int[names.size()][seeds.length];
+        moves = new int[names.size()][seeds.length];
+        won = new boolean[names.size()][seeds.length];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: Tournament <results.csv> <seeds> <strategy,...> [threads] [XxY]");
+            System.err.println("Strategies: " + Strategies.NAMES);
+            System.exit(2);
+        }
+        long[] seeds = new long[Integer.parseInt(args[1])];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = i + 1;
+        }
+        Map<String, Supplier<MoveStrategy>> strategies = new LinkedHashMap<>();
+        for (String name : args[2].split(",")) {
+            strategies.put(name, Strategies.named(name));
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        GameConfig config = new GameConfig();
+        if (args.length > 4) {
+            String[] size = args[4].split("x");
+            config.setBoardSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        }
+        config.setHighScoreFilePath(null);
+
+        new Tournament(config, strategies, seeds).run(Paths.get(args[0]), threads).print(System.out);
+    }
+
+    /**
+     * Plays every game not already in {@code results} on {@code threads} threads, appending each to it.
+     *
+     * @throws IOException if the results file can't be read or written, or is for other rules
+     */
+    public TournamentReport run(Path results, int threads) throws IOException, InterruptedException {
+        for (int[] row : scores) {
+            Arrays.fill(row, -1);
+        }
+        int resumed = readResults(results);
+
+        // seed by seed, so the games for one seed are played close together
+        int[] pending = new int[names.size() * seeds.length - resumed];
+        int count = 0;
+        for (int seed = 0; seed < seeds.length; seed++) {
+            for (int strategy = 0; strategy < names.size(); strategy++) {
+                if (scores[strategy][seed] < 0) {
+                    pending[count++] = strategy * seeds.length + seed;
+                }
+            }
+        }
+
+        AtomicInteger played = new AtomicInteger();
+        LongAdder movesPlayed = new LongAdder();
+        long start = System.nanoTime();
+        try (BufferedWriter out = openResults(results)) {
+            try {
+                ForkJoinTasks.run(threads, () -> Arrays.stream(pending).parallel().forEach(game -> {
+                    int strategy = game / seeds.length;
+                    int seed = game % seeds.length;
+                    GameBoard board = play(strategies.get(strategy).get(), new GameBoard(config, seeds[seed]));
+                    scores[strategy][seed] = board.getScore();
+                    moves[strategy][seed] = board.getMoveCount();
+                    won[strategy][seed] = board.getStatus() == GameStatus.WON;
+                    played.incrementAndGet();
+                    movesPlayed.add(board.getMoveCount());
+                    String line = names.get(strategy) + "," + seeds[seed] + "," + board.getScore() + ","
+                            + board.getMoveCount() + "," + board.getMaxTile() + "," + board.getStatus();
+                    synchronized (out) {
+                        try {
+                            out.write(line);
+                            out.newLine();
+                            out.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Error writing results to " + results, e);
+                        }
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return report(resumed, played.get(), movesPlayed.sum(), System.nanoTime() - start, threads);
+    }
+
+    /**
+     * Plays one game to its end, or until the strategy wastes {@value #MAX_WASTED_MOVES} moves in a row.
+     *
+     * @return the board, as the game ended
+     */
+    static GameBoard play(MoveStrategy strategy, GameBoard board) {
+        int wasted = 0;
+        while (!board.isGameOver() && wasted < MAX_WASTED_MOVES) {
+            Direction dir = strategy.chooseMove(board);
+            int before = board.getMoveCount();
+            board.move(dir);
+            wasted = board.getMoveCount() == before ? wasted + 1 : 0;
+        }
+        return board;
+    }
+
+    String describeRules() {
+        return "# board " + config.getXSize() + "x" + config.getYSize() + ", win tile " + config.getWinTileValue()
+                + ", rules " + Long.toHexString(config.configKey());
+    }
+
+    /**
+     * Fills in the games already in the results file, ignoring those for other strategies or seeds.
+     *
+     * @return the number of games filled in
+     */
+    private int readResults(Path results) throws IOException {
+        if (!Files.exists(results)) {
+            return 0;
+        }
+        int resumed = 0;
+        try (BufferedReader in = Files.newBufferedReader(results)) {
+            String rules = in.readLine();
+            if (rules == null) {
+                return 0;
+            }
+            if (!rules.equals(describeRules())) {
+                throw new IOException("Results in " + results + " are for other rules: " + rules);
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.equals(COLUMNS)) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                try {
+                    if (parts.length != 6) {
+                        throw new IllegalArgumentException();
+                    }
+                    int strategy = names.indexOf(parts[0]);
+                    Integer seed = seedIndex.get(Long.parseLong(parts[1]));
+                    if (strategy < 0 || seed == null) {
+                        continue;
+                    }
+                    int score = Integer.parseInt(parts[2]);
+                    int moveCount = Integer.parseInt(parts[3]);
+                    GameStatus status = GameStatus.valueOf(parts[5]);
+                    if (scores[strategy][seed] < 0) {
+                        resumed++;
+                    }
+                    scores[strategy][seed] = score;
+                    moves[strategy][seed] = moveCount;
+                    won[strategy][seed] = status == GameStatus.WON;
+                } catch (IllegalArgumentException e) {
+                    // includes a last line cut short when a run was stopped
+                    System.err.println("Malformed line: " + line);
+                }
+            }
+        }
+        return resumed;
+    }
+
+    /**
+     * Opens the results file for appending, writing the rules and column names first if it is new,
+     * and ending any line a stopped run cut short.
+     */
+    private BufferedWriter openResults(Path results) throws IOException {
+        boolean fresh = !Files.exists(results) || Files.size(results) == 0;
+        boolean cutShort = false;
+        if (!fresh) {
+            try (SeekableByteChannel channel = Files.newByteChannel(results)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.position(channel.size() - 1).read(last);
+                cutShort = last.get(0) != '\n';
+            }
+        }
+        BufferedWriter out = Files.newBufferedWriter(results, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (fresh) {
+            out.write(describeRules());
+            out.newLine();
+            out.write(COLUMNS);
+            out.newLine();
+        } else if (cutShort) {
+            out.newLine();
+        }
+        out.flush();
+        return out;
+    }
+
+    private TournamentReport report(int resumed, int played, long movesPlayed, long nanos, int threads) {
+        List<TournamentReport.Standing> standings = new ArrayList<>();
+        for (int strategy = 0; strategy < names.size(); strategy++) {
+            int games = 0;
+            long scoreSum = 0;
+            long moveSum = 0;
+            int wins = 0;
+            for (int seed = 0; seed < seeds.length; seed++) {
+                if (scores[strategy][seed] >= 0) {
+                    games++;
+                    scoreSum += scores[strategy][seed];
+                    moveSum += moves[strategy][seed];
+                    wins += won[strategy][seed] ? 1 : 0;
+                }
+            }
+            standings.add(new TournamentReport.Standing(names.get(strategy), games, mean(scoreSum, games),
+                    mean(moveSum, games), mean(wins, games)));
+        }
+
+        List<TournamentReport.Comparison> comparisons = new ArrayList<>();
+        for (int first = 0; first < names.size(); first++) {
+            for (int second = first + 1; second < names.size(); second++) {
+                comparisons.add(compare(first, second));
+            }
+        }
+        return new TournamentReport(standings, comparisons, resumed, played, movesPlayed, nanos, threads);
+    }
+
+    /**
+     * Compares two strategies over the seeds both have played, as the mean and confidence interval
+     * of the per-seed differences in score and in winning (1, 0 or -1).
+     */
+    private TournamentReport.Comparison compare(int first, int second) {
+        int n = 0;
+        double scoreSum = 0;
+        double scoreSquares = 0;
+        double winSum = 0;
+        double winSquares = 0;
+        for (int seed = 0; seed < seeds.length; seed++) {
+            if (scores[first][seed] >= 0 && scores[second][seed] >= 0) {
+                n++;
+                double score = scores[first][seed] - scores[second][seed];
+                scoreSum += score;
+                scoreSquares += score * score;
+                int win = (won[first][seed] ? 1 : 0) - (won[second][seed] ? 1 : 0);
+                winSum += win;
+                winSquares += win * win;
+            }
+        }
+        return new TournamentReport.Comparison(names.get(first), names.get(second), n,
+                mean(scoreSum, n), margin(scoreSum, scoreSquares, n),
+                mean(winSum, n), margin(winSum, winSquares, n));
+    }
+
+    private static double mean(double sum, int n) {
+        return n == 0 ? Double.NaN : sum / n;
+    }
+
+    /**
+     * @return half the width of the 95% confidence interval for the mean, from the sample variance
+     */
+    private static double margin(double sum, double squares, int n) {
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double variance = Math.max(0, (squares - sum * sum / n) / (n - 1));
+        return Z_95 * Math.sqrt(variance / n);
+    }
+}
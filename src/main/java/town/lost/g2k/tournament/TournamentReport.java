@@ -0,0 +1,143 @@
+package town.lost.g2k.tournament;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The outcome of a {@link Tournament}: each strategy's results, each pair of strategies compared
+ * seed by seed, and how fast the games were played.
+ * <p>
+ * Confidence intervals are 95% intervals from the normal approximation, mean ± 1.96 standard errors,
+ * which needs a few dozen seeds to mean much. They are NaN with fewer than two.
+ */
+public class TournamentReport {
+
+    /**
+     * One strategy's results over every seed it has played.
+     */
+    public static class Standing {
+        public final String strategy;
+        public final int games;
+        public final double meanScore;
+        public final double meanMoves;
+        public final double winRate;
+
+        Standing(String strategy, int games, double meanScore, double meanMoves, double winRate) {
+            this.strategy = strategy;
+            this.games = games;
+            this.meanScore = meanScore;
+            this.meanMoves = meanMoves;
+            this.winRate = winRate;
+        }
+    }
+
+    /**
+     * Strategy {@code first} against {@code second}, over the seeds both have played.
+     * Differences are first minus second.
+     */
+    public static class Comparison {
+        public final String first;
+        public final String second;
+        public final int seeds;
+        public final double meanScoreDifference;
+        // half the width of the confidence interval around meanScoreDifference
+        public final double scoreMargin;
+        public final double winRateDifference;
+        public final double winRateMargin;
+
+        Comparison(String first, String second, int seeds, double meanScoreDifference, double scoreMargin,
+                   double winRateDifference, double winRateMargin) {
+            this.first = first;
+            this.second = second;
+            this.seeds = seeds;
+            this.meanScoreDifference = meanScoreDifference;
+            this.scoreMargin = scoreMargin;
+            this.winRateDifference = winRateDifference;
+            this.winRateMargin = winRateMargin;
+        }
+    }
+
+    private final List<Standing> standings;
+    private final List<Comparison> comparisons;
+    private final int gamesResumed;
+    private final int gamesPlayed;
+    private final long movesPlayed;
+    private final long nanos;
+    private final int threads;
+
+    TournamentReport(List<Standing> standings, List<Comparison> comparisons, int gamesResumed,
+                     int gamesPlayed, long movesPlayed, long nanos, int threads) {
+        this.standings = Collections.unmodifiableList(standings);
+        this.comparisons = Collections.unmodifiableList(comparisons);
+        this.gamesResumed = gamesResumed;
+        this.gamesPlayed = gamesPlayed;
+        this.movesPlayed = movesPlayed;
+        this.nanos = nanos;
+        this.threads = threads;
+    }
+
+    /**
+     * @return one standing per strategy, in the tournament's order
+     */
+    public List<Standing> getStandings() {
+        return standings;
+    }
+
+    /**
+     * @return every pair of strategies, each strategy against those after it
+     */
+    public List<Comparison> getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return the games read back from the results file instead of being played
+     */
+    public int getGamesResumed() {
+        return gamesResumed;
+    }
+
+    /**
+     * @return the games played by this run
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * @return the moves which changed the board in the games played by this run
+     */
+    public long getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    public double getGamesPerSecond() {
+        return nanos == 0 ? 0 : gamesPlayed / getSeconds();
+    }
+
+    public double getMovesPerSecond() {
+        return nanos == 0 ? 0 : movesPlayed / getSeconds();
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%-12s %8s %12s %10s %9s%n", "strategy", "games", "mean score", "mean moves", "win rate");
+        for (Standing standing : standings) {
+            out.printf(Locale.ROOT, "%-12s %8d %12.1f %10.1f %8.2f%%%n", standing.strategy, standing.games,
+                    standing.meanScore, standing.meanMoves, standing.winRate * 100);
+        }
+        for (Comparison comparison : comparisons) {
+            out.printf(Locale.ROOT, "%s - %s over %d seeds: score %+.1f +/- %.1f, win rate %+.2f%% +/- %.2f%%%n",
+                    comparison.first, comparison.second, comparison.seeds,
+                    comparison.meanScoreDifference, comparison.scoreMargin,
+                    comparison.winRateDifference * 100, comparison.winRateMargin * 100);
+        }
+        out.printf(Locale.ROOT, "%d games played (%d resumed) on %d threads in %.2f s: %.0f games/s, %.0f moves/s%n",
+                gamesPlayed, gamesResumed, threads, getSeconds(), getGamesPerSecond(), getMovesPerSecond());
+    }
+}
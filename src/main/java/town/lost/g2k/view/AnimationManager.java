@@ -1,5 +1,7 @@
 package town.lost.g2k.view;
 
+import town.lost.g2k.metrics.AnimationFrameEvent;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -27,6 +29,9 @@ public class AnimationManager {
     // Example default ~16ms for ~60fps
     private static final int FRAME_INTERVAL_MS = 16; 
 
+    // Real tick intervals, paint times and late frames, measured with System.nanoTime
+    private final FrameStats frameStats = new FrameStats(FRAME_INTERVAL_MS * 1_000_000L);
+
     /**
      * Constructs a new AnimationManager for a given parent component.
      *
@@ -54,6 +59,7 @@ public class AnimationManager {
         animations.add(animation);
         // If the timer is not already running, start it.
         if (!animationTimer.isRunning()) {
+            frameStats.restart();
             animationTimer.start();
         }
     }
@@ -70,11 +76,30 @@ public class AnimationManager {
         }
     }
 
+    /**
+     * Records how long the parent component took to paint a frame, including the animations.
+     *
+     * @param nanos the paint duration measured with System.nanoTime
+     */
+    public void recordPaint(long nanos) {
+        frameStats.recordPaint(nanos);
+    }
+
+    /**
+     * @return rolling tick, paint and dropped-frame statistics, read on the Event Dispatch Thread
+     */
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
     /**
      * The timer callback. Updates or removes animations that have finished,
      * then repaints the parent component.
      */
     private void onTimerTick() {
+        AnimationFrameEvent event = new AnimationFrameEvent();
+        event.begin();
+        frameStats.recordTick(System.nanoTime(), animations.size());
         boolean anyActive = false;
 
         // Use an iterator to remove completed animations in one pass
@@ -96,6 +121,10 @@ public class AnimationManager {
         if (!anyActive) {
             animationTimer.stop();
         }
+        if (event.isEnabled()) {
+            event.activeAnimations = animations.size();
+            event.commit();
+        }
     }
 
     /**
@@ -1,7 +1,9 @@
 package town.lost.g2k.view;
 
+import java.io.*;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 import town.lost.g2k.controller.GameController;
@@ -13,45 +15,68 @@ import town.lost.g2k.model.GameStatus;
  * A console-based view that prompts for board size,
  * captures moves (W/A/S/D, R=reset, U=undo, Q=quit),
  * and displays the board ASCII style.
+ * <p>
+ * All output goes through one buffered writer, flushed before reading input.
+ * {@link #playBatch(Reader, int)} applies a stream of move characters back to back,
+ * printing only every Nth board and the final result.
  */
 public class ConsoleGameView implements GameView {
 
+    private static final int CELL_WIDTH = 5;
+    private static final int BATCH_CHUNK = 8192;
+
     private final Scanner scanner;
+    private final PrintWriter out;
     private final GameController controller;
     private final GameBoard model;
 
+    // set while playing a batch, so the controller's per-move refreshes print nothing
+    private boolean quiet;
+    // set when the input ends, after which there are no more moves to capture
+    private boolean inputEnded;
+
     public ConsoleGameView(GameController controller, GameBoard model) {
-        this.scanner = new Scanner(System.in);
+        this(controller, model, new InputStreamReader(System.in), new OutputStreamWriter(System.out));
+    }
+
+    public ConsoleGameView(GameController controller, GameBoard model, Reader in, Writer out) {
+        this.scanner = new Scanner(in);
+        this.out = new PrintWriter(new BufferedWriter(out));
         this.controller = controller;
         this.model = model;
     }
 
     @Override
     public void initializeView() {
-        System.out.println("==========================================");
-        System.out.println("         Welcome to 2048 (Console)        ");
-        System.out.println("   Use W/A/S/D or arrow keys (if mapped)  ");
+        out.println("==========================================");
+        out.println("         Welcome to 2048 (Console)        ");
+        out.println("   Use W/A/S/D or arrow keys (if mapped)  ");
         if (controller.getConfig().isUndoEnabled()) {
-            System.out.println("   Type 'U' for undo.                     ");
+            out.println("   Type 'U' for undo.                     ");
         }
-        System.out.println("   Type 'R' to reset, 'Q' to quit.        ");
-        System.out.println("==========================================");
+        out.println("   Type 'R' to reset, 'Q' to quit.        ");
+        out.println("==========================================");
 
         pickBoardSizeAtStartup();
     }
 
     private void pickBoardSizeAtStartup() {
         int sizeChoice = 4;
-        System.out.print("Please enter board size (4, 5, 6): ");
+        out.print("Please enter board size (4, 5, 6): ");
+        out.flush();
         try {
             sizeChoice = scanner.nextInt();
             if (sizeChoice < 2 || sizeChoice > 100) {
-                System.out.println("Invalid size; defaulting to 4.");
+                out.println("Invalid size; defaulting to 4.");
                 sizeChoice = 4;
             }
         } catch (InputMismatchException e) {
-            System.out.println("Invalid input; defaulting to 4.");
+            out.println("Invalid input; defaulting to 4.");
             scanner.nextLine();
+        } catch (NoSuchElementException e) {
+            out.println();
+            out.println("No input; defaulting to 4.");
+            inputEnded = true;
         }
         // Set config, then reset game
         controller.getConfig().setBoardSize(sizeChoice, sizeChoice);
@@ -60,57 +85,79 @@ public class ConsoleGameView implements GameView {
 
     @Override
     public void renderBoard(int[][] board) {
-        int gridSize = board.length;
-        int cellWidth = 5;
-
-        for (int r = 0; r < gridSize; r++) {
-            // separator line
-            StringBuilder sep = new StringBuilder();
-            for (int c = 0; c < gridSize; c++) {
-                sep.append("+");
-                for (int w = 0; w < cellWidth; w++) {
-                    sep.append("-");
-                }
+        if (!quiet) {
+            printBoard(board);
+        }
+    }
+
+    /**
+     * Draws the board in one StringBuilder and a single write; rows and columns may differ.
+     */
+    private void printBoard(int[][] board) {
+        int rows = board.length;
+        int cols = board[0].length;
+
+        StringBuilder sep = new StringBuilder();
+        for (int c = 0; c < cols; c++) {
+            sep.append('+');
+            for (int w = 0; w < CELL_WIDTH; w++) {
+                sep.append('-');
             }
-            sep.append("+");
-            System.out.println(sep);
+        }
+        sep.append("+\n");
 
-            // row content
-            StringBuilder rowStr = new StringBuilder();
-            for (int c = 0; c < gridSize; c++) {
+        StringBuilder text = new StringBuilder(sep.length() * (2 * rows + 1));
+        for (int r = 0; r < rows; r++) {
+            text.append(sep);
+            for (int c = 0; c < cols; c++) {
                 int val = board[r][c];
                 String cellStr = (val == 0) ? "" : String.valueOf(val);
-                rowStr.append("|");
-                rowStr.append(String.format("%" + cellWidth + "s", cellStr));
-            }
-            rowStr.append("|");
-            System.out.println(rowStr);
-        }
-        // final separator
-        StringBuilder finalSep = new StringBuilder();
-        for (int c = 0; c < gridSize; c++) {
-            finalSep.append("+");
-            for (int w = 0; w < cellWidth; w++) {
-                finalSep.append("-");
+                text.append('|');
+                for (int pad = cellStr.length(); pad < CELL_WIDTH; pad++) {
+                    text.append(' ');
+                }
+                text.append(cellStr);
             }
+            text.append("|\n");
         }
-        finalSep.append("+");
-        System.out.println(finalSep);
+        text.append(sep);
+        out.print(text);
     }
 
     @Override
     public void displayScore(int score) {
-        System.out.println("Score: " + score);
+        if (!quiet) {
+            out.println("Score: " + score);
+        }
     }
 
     @Override
     public void displayGameStatus(GameStatus status) {
-        System.out.println("Game Status: " + status);
+        if (!quiet) {
+            // the last of a refresh's board, score and status, so they reach the console in one write
+            out.println("Game Status: " + status);
+            out.flush();
+        }
     }
 
+    /**
+     * Reads and applies one command. At the end of the input, such as Ctrl-D or a closed pipe,
+     * it says so and sets {@link #isInputEnded()} instead, and reads nothing more.
+     */
     @Override
     public void captureUserMove() {
-        System.out.print("Your move (W/A/S/D, R=reset, U=undo, Q=quit): ");
+        if (inputEnded) {
+            return;
+        }
+        out.print("Your move (W/A/S/D, R=reset, U=undo, Q=quit): ");
+        out.flush();
+        if (!scanner.hasNextLine()) {
+            inputEnded = true;
+            out.println();
+            out.println("End of input, quitting the game...");
+            out.flush();
+            return;
+        }
         String input = scanner.nextLine().trim().toUpperCase();
 
         switch (input) {
@@ -130,45 +177,145 @@ public class ConsoleGameView implements GameView {
                 if (controller.getConfig().isUndoEnabled()) {
                     controller.onUndo();
                 } else {
-                    System.out.println("Undo disabled.");
+                    out.println("Undo disabled.");
                 }
                 break;
             case "R":
                 controller.resetGame();
                 break;
             case "Q":
-                System.out.println("Quitting the game...");
+                out.println("Quitting the game...");
+                out.flush();
                 System.exit(0);
                 break;
             default:
-                System.out.println("Invalid input! Please try again.");
+                out.println("Invalid input! Please try again.");
         }
     }
 
+    /**
+     * @return true once the input has ended, so the caller should stop capturing moves
+     */
+    public boolean isInputEnded() {
+        return inputEnded;
+    }
+
     @Override
     public void displayEndScreen(GameStatus finalStatus, int finalScore) {
-        System.out.println();
+        if (quiet) {
+            return;
+        }
+        out.println();
         if (finalStatus == GameStatus.WON) {
-            System.out.println("*****************************");
-            System.out.println("         YOU WIN!            ");
-            System.out.println("*****************************");
+            out.println("*****************************");
+            out.println("         YOU WIN!            ");
+            out.println("*****************************");
         } else if (finalStatus == GameStatus.LOST) {
-            System.out.println("*****************************");
-            System.out.println("         GAME OVER!          ");
-            System.out.println("*****************************");
+            out.println("*****************************");
+            out.println("         GAME OVER!          ");
+            out.println("*****************************");
         }
-        System.out.println("Final Score: " + finalScore);
-        System.out.println("Thank you for playing!");
+        out.println("Final Score: " + finalScore);
+        out.println("Thank you for playing!");
+        out.flush();
     }
 
     @Override
     public void updateHighScore(int highScore) {
-        System.out.println("Current High Score for " + model.getXSize() + "×" + model.getYSize()
-                + ": " + highScore);
+        if (!quiet) {
+            out.println("Current High Score for " + model.getXSize() + "×" + model.getYSize()
+                    + ": " + highScore);
+        }
     }
 
+    /**
+     * There is nothing to animate on a console, so the controller's update runs straight away.
+     */
     @Override
     public void showAnimations(List<TileMovement> movements, Runnable onAnimationsComplete) {
+        onAnimationsComplete.run();
+    }
 
+    /**
+     * Applies the commands read from {@code in} back to back: W/A/S/D to move, U to undo,
+     * R to reset and Q to stop, in either case. Anything else, such as whitespace, is skipped.
+     * Input is read in {@value #BATCH_CHUNK}-character chunks, and runs of moves are handed to
+     * {@link GameController#onUserMoves} together. Nothing is printed but every
+     * {@code printEvery}th board (0 for none) and the final result.
+     *
+     * @return the number of commands applied
+     */
+    public long playBatch(Reader in, int printEvery) throws IOException {
+        char[] chunk = new char[BATCH_CHUNK];
+        Direction[] pending = new Direction[BATCH_CHUNK];
+        int count = 0;
+        long commands = 0;
+        quiet = true;
+        try {
+            read:
+            for (int n = in.read(chunk); n > 0; n = in.read(chunk)) {
+                for (int i = 0; i < n; i++) {
+                    Direction dir = null;
+                    switch (chunk[i]) {
+                        case 'W': case 'w':
+                            dir = Direction.UP;
+                            break;
+                        case 'S': case 's':
+                            dir = Direction.DOWN;
+                            break;
+                        case 'A': case 'a':
+                            dir = Direction.LEFT;
+                            break;
+                        case 'D': case 'd':
+                            dir = Direction.RIGHT;
+                            break;
+                        case 'U': case 'u':
+                            count = playPending(pending, count);
+                            controller.onUndo();
+                            break;
+                        case 'R': case 'r':
+                            count = playPending(pending, count);
+                            controller.resetGame();
+                            break;
+                        case 'Q': case 'q':
+                            break read;
+                        default:
+                            continue;
+                    }
+                    if (dir != null) {
+                        pending[count++] = dir;
+                        if (count == pending.length) {
+                            count = playPending(pending, count);
+                        }
+                    }
+                    commands++;
+                    if (printEvery > 0 && commands % printEvery == 0) {
+                        count = playPending(pending, count);
+                        out.println("After " + commands + " commands: score " + model.getScore()
+                                + ", " + model.getStatus());
+                        printBoard(model.getBoard());
+                    }
+                }
+            }
+            playPending(pending, count);
+        } finally {
+            quiet = false;
+        }
+        out.println("Final board after " + commands + " commands:");
+        printBoard(model.getBoard());
+        out.println("Score: " + model.getScore());
+        out.println("Game Status: " + model.getStatus());
+        out.flush();
+        return commands;
+    }
+
+    /**
+     * @return 0, the number of moves left pending
+     */
+    private int playPending(Direction[] pending, int count) {
+        if (count > 0) {
+            controller.onUserMoves(pending, 0, count, null);
+        }
+        return 0;
     }
 }
@@ -0,0 +1,125 @@
+package town.lost.g2k.view;
+
+/**
+ * Rolling frame statistics for AnimationManager: the real interval between timer ticks,
+ * the time spent painting each frame, late and dropped frames and the number of active animations.
+ * <p>
+ * Times are measured with System.nanoTime. The rolling figures cover the last
+ * {@value #WINDOW} frames; late and dropped frames are running totals.
+ * Updated and read on the Event Dispatch Thread, so it is not thread-safe.
+ */
+public class FrameStats {
+
+    static final int WINDOW = 120;
+
+    private final long targetIntervalNanos;
+    private final long[] intervals = new long[WINDOW];
+    private final long[] paints = new long[WINDOW];
+    private int intervalCount;
+    private int intervalNext;
+    private int paintCount;
+    private int paintNext;
+
+    private long lastTick;
+    private long lateFrames;
+    private long droppedFrames;
+    private int activeAnimations;
+
+    public FrameStats(long targetIntervalNanos) {
+        this.targetIntervalNanos = targetIntervalNanos;
+    }
+
+    /**
+     * Records a timer tick at {@code now}. The first tick after {@link #restart()} only sets the reference point.
+     * A tick arriving more than 1.5 intervals after the last is late, and each whole interval missed is a dropped frame.
+     */
+    void recordTick(long now, int activeAnimations) {
+        this.activeAnimations = activeAnimations;
+        if (lastTick != 0) {
+            long interval = now - lastTick;
+            intervals[intervalNext] = interval;
+            intervalNext = (intervalNext + 1) % WINDOW;
+            intervalCount = Math.min(intervalCount + 1, WINDOW);
+            if (interval * 2 > targetIntervalNanos * 3) {
+                lateFrames++;
+                droppedFrames += (interval + targetIntervalNanos / 2) / targetIntervalNanos - 1;
+            }
+        }
+        lastTick = now;
+    }
+
+    void recordPaint(long nanos) {
+        paints[paintNext] = nanos;
+        paintNext = (paintNext + 1) % WINDOW;
+        paintCount = Math.min(paintCount + 1, WINDOW);
+    }
+
+    /**
+     * Called when the timer starts again, so the idle gap isn't counted as a late frame.
+     */
+    void restart() {
+        lastTick = 0;
+    }
+
+    public double getAverageIntervalMs() {
+        return average(intervals, intervalCount) / 1e6;
+    }
+
+    public double getMaxIntervalMs() {
+        return max(intervals, intervalCount) / 1e6;
+    }
+
+    /**
+     * @return the frame rate implied by the average tick interval, or 0 before two ticks
+     */
+    public double getFramesPerSecond() {
+        double interval = average(intervals, intervalCount);
+        return interval == 0 ? 0 : 1e9 / interval;
+    }
+
+    public double getAveragePaintMs() {
+        return average(paints, paintCount) / 1e6;
+    }
+
+    public double getMaxPaintMs() {
+        return max(paints, paintCount) / 1e6;
+    }
+
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public int getActiveAnimations() {
+        return activeAnimations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f fps  tick %.1f/%.1f ms  paint %.2f/%.2f ms  late %d  dropped %d  anims %d",
+                getFramesPerSecond(), getAverageIntervalMs(), getMaxIntervalMs(),
+                getAveragePaintMs(), getMaxPaintMs(), lateFrames, droppedFrames, activeAnimations);
+    }
+
+    private static double average(long[] values, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        return (double) sum / count;
+    }
+
+    private static long max(long[] values, int count) {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
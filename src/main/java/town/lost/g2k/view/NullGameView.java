@@ -0,0 +1,45 @@
+package town.lost.g2k.view;
+
+import town.lost.g2k.model.GameStatus;
+
+import java.util.List;
+
+/**
+ * A view which displays nothing, for headless play such as benchmarks, bots and servers.
+ * Animations complete immediately so the controller runs its post-move update inline.
+ */
+public class NullGameView implements GameView {
+
+    @Override
+    public void initializeView() {
+    }
+
+    @Override
+    public void renderBoard(int[][] board) {
+    }
+
+    @Override
+    public void displayScore(int score) {
+    }
+
+    @Override
+    public void displayGameStatus(GameStatus status) {
+    }
+
+    @Override
+    public void captureUserMove() {
+    }
+
+    @Override
+    public void displayEndScreen(GameStatus finalStatus, int finalScore) {
+    }
+
+    @Override
+    public void updateHighScore(int highScore) {
+    }
+
+    @Override
+    public void showAnimations(List<TileMovement> movements, Runnable onAnimationsComplete) {
+        onAnimationsComplete.run();
+    }
+}
@@ -1,9 +1,14 @@
 package town.lost.g2k.view;
 
+import town.lost.g2k.controller.GameChange;
+import town.lost.g2k.controller.GameChangeListener;
 import town.lost.g2k.controller.GameController;
+import town.lost.g2k.controller.GameThread;
+import town.lost.g2k.metrics.RenderBoardEvent;
 import town.lost.g2k.model.Direction;
 import town.lost.g2k.model.GameBoard;
 import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameState;
 import town.lost.g2k.model.GameStatus;
 
 import javax.swing.*;
@@ -11,16 +16,26 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A Swing-based 2048 View that demonstrates basic sliding animations
  * in front of tile JLabels by overriding paintChildren(...) instead of paintComponent(...).
+ * <p>
+ * Key presses go through the controller's move queue, drained on the Event Dispatch Thread,
+ * so presses that arrive together are applied together. A move made while an animation is
+ * still running fast-forwards: the running animation is dropped and the latest board is shown at once.
+ * <p>
+ * The view listens for the controller's {@link GameChange}s, and only updates the tiles and labels which changed.
+ * Alternatively it can {@link #followState follow} a {@link GameThread} running the game off the Event Dispatch Thread.
  */
-public class SwingGameView extends JFrame implements GameView {
+public class SwingGameView extends JFrame implements GameView, GameChangeListener {
 
     // Visual settings
     private static final int TILE_SIZE_PX = 80;
     private static final int TILE_FONT_SIZE = 24;
+    private static final int ANIMATION_MS = 300;
 
     private final GameController controller;
     private final GameBoard model;
@@ -34,6 +49,19 @@ public class SwingGameView extends JFrame implements GameView {
     private BoardPanel boardPanel;
     private AnimationManager animationManager;
 
+    // Finishes the running move animation; its callback runs when it fires or is fast-forwarded
+    private final Timer animationDone;
+    private Runnable pendingCallback;
+
+    // Where undo runs; the game thread when following one
+    private Executor gameExecutor = Runnable::run;
+    private GameThread gameThread;
+    private final AtomicBoolean stateRenderScheduled = new AtomicBoolean();
+    private GameState renderedState;
+
+    // Frame statistics drawn over the board, toggled with F3 or -Dg2k.debugOverlay=true
+    private boolean debugOverlay = Boolean.getBoolean("g2k.debugOverlay");
+
     public SwingGameView(GameController controller, GameBoard model) {
         super("2048 Game (Swing) – Animations in Front");
         this.controller = controller;
@@ -42,6 +70,10 @@ public class SwingGameView extends JFrame implements GameView {
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
+
+        animationDone = new Timer(ANIMATION_MS, e -> finishAnimation());
+        animationDone.setRepeats(false);
+        controller.setMoveExecutor(SwingUtilities::invokeLater);
     }
 
     @Override
@@ -57,8 +89,7 @@ public class SwingGameView extends JFrame implements GameView {
             createUndoButton();
         }
 
-        // Start/Reset the game once we've built the UI
-        controller.resetGame();
+        // The board is already set up, new or resumed; startGame() renders it
 
         pack();
         setLocationRelativeTo(null);
@@ -126,14 +157,30 @@ public class SwingGameView extends JFrame implements GameView {
     private class BoardPanel extends JPanel {
         @Override
         protected void paintChildren(Graphics g) {
+            long start = System.nanoTime();
             super.paintChildren(g);
             // Now draw animations in front
             animationManager.drawAllAnimations((Graphics2D) g);
+            animationManager.recordPaint(System.nanoTime() - start);
+
+            if (debugOverlay) {
+                drawDebugOverlay((Graphics2D) g);
+            }
+        }
+
+        private void drawDebugOverlay(Graphics2D g2) {
+            String text = animationManager.getFrameStats().toString();
+            g2.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+            FontMetrics fm = g2.getFontMetrics();
+            g2.setColor(new Color(0, 0, 0, 160));
+            g2.fillRect(0, 0, fm.stringWidth(text) + 8, fm.getHeight() + 4);
+            g2.setColor(Color.WHITE);
+            g2.drawString(text, 4, fm.getAscent() + 2);
         }
     }
 
     /**
-     * Sets up key bindings for arrows, WASD, and 'U' for undo.
+     * Sets up key bindings for arrows, WASD, 'U' for undo and F3 for the frame statistics overlay.
      */
     private void setupKeyBindings() {
         final int condition = JComponent.WHEN_IN_FOCUSED_WINDOW;
@@ -150,13 +197,23 @@ public class SwingGameView extends JFrame implements GameView {
         bindKey(condition, KeyStroke.getKeyStroke('a'), "moveLeftA",  Direction.LEFT);
         bindKey(condition, KeyStroke.getKeyStroke('d'), "moveRightD", Direction.RIGHT);
 
+        // Debug overlay (F3)
+        getRootPane().getInputMap(condition).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleOverlay");
+        getRootPane().getActionMap().put("toggleOverlay", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                debugOverlay = !debugOverlay;
+                boardPanel.repaint();
+            }
+        });
+
         // Undo key (U)
         getRootPane().getInputMap(condition).put(KeyStroke.getKeyStroke('u'), "undo");
         getRootPane().getActionMap().put("undo", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (config.isUndoEnabled()) {
-                    controller.onUndo();
+                    gameExecutor.execute(controller::onUndo);
                 }
             }
         });
@@ -167,7 +224,7 @@ public class SwingGameView extends JFrame implements GameView {
         getRootPane().getActionMap().put(actionKey, new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                controller.onUserMove(direction);
+                controller.queueMove(direction);
             }
         });
     }
@@ -178,41 +235,154 @@ public class SwingGameView extends JFrame implements GameView {
     private void createUndoButton() {
         JPanel bottomPanel = new JPanel(new FlowLayout());
         JButton undoButton = new JButton("Undo");
-        undoButton.addActionListener(e -> controller.onUndo());
+        undoButton.addActionListener(e -> gameExecutor.execute(controller::onUndo));
         bottomPanel.add(undoButton);
         add(bottomPanel, BorderLayout.SOUTH);
     }
 
     /**
      * Displays the final layout of the board in each tileLabel.
-     * Called after moves or after an animation completes.
      */
     @Override
     public void renderBoard(int[][] board) {
+        RenderBoardEvent event = new RenderBoardEvent();
+        event.begin();
         int rows = board.length;
         int cols = board[0].length;
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                int val = board[r][c];
-                JLabel label = tileLabels[r][c];
-                if (val == 0) {
-                    label.setText("");
-                    label.setBackground(Color.LIGHT_GRAY);
-                } else {
-                    label.setText(String.valueOf(val));
-                    label.setBackground(Tiles.getTileColor(val));
+                setTile(tileLabels[r][c], board[r][c]);
+            }
+        }
+        boardPanel.repaint();
+        if (event.isEnabled()) {
+            event.rows = rows;
+            event.columns = cols;
+            event.tilesChanged = rows * cols;
+            event.commit();
+        }
+    }
+
+    /**
+     * Updates just the tiles and labels which changed.
+     * Called after moves, undos and resets, and after an animation completes.
+     */
+    @Override
+    public void gameChanged(GameChange change) {
+        if (change.has(GameChange.CELLS)) {
+            RenderBoardEvent event = new RenderBoardEvent();
+            event.begin();
+            int cols = change.board[0].length;
+            for (int cell : change.changedCells) {
+                int r = cell / cols;
+                int c = cell % cols;
+                setTile(tileLabels[r][c], change.board[r][c]);
+            }
+            boardPanel.repaint();
+            if (event.isEnabled()) {
+                event.rows = change.board.length;
+                event.columns = cols;
+                event.tilesChanged = change.changedCells.length;
+                event.commit();
+            }
+        }
+        if (change.has(GameChange.SCORE)) {
+            displayScore(change.score);
+        }
+        if (change.has(GameChange.STATUS)) {
+            displayGameStatus(change.status);
+        }
+        if (change.has(GameChange.RECORD)) {
+            updateHighScore(change.record);
+        }
+    }
+
+    /**
+     * Renders the states a game thread publishes, instead of being the controller's view.
+     * Call before initializeView(), with the controller's view set to a NullGameView.
+     * Each publish schedules at most one render on the Event Dispatch Thread, which shows the latest state
+     * without animations, updating only the tiles which changed since the last render.
+     */
+    public void followState(GameThread gameThread) {
+        this.gameThread = gameThread;
+        this.gameExecutor = gameThread;
+        gameThread.setPublishListener(() -> {
+            if (stateRenderScheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::renderState);
+            }
+        });
+        controller.addChangeListener(change -> {
+            if (change.has(GameChange.RECORD)) {
+                int record = change.record;
+                SwingUtilities.invokeLater(() -> updateHighScore(record));
+            }
+        });
+    }
+
+    private void renderState() {
+        stateRenderScheduled.set(false);
+        GameState state = gameThread.getState();
+        GameState previous = renderedState;
+        if (previous != null && previous.sequence == state.sequence) {
+            return;
+        }
+        renderedState = state;
+        RenderBoardEvent event = new RenderBoardEvent();
+        event.begin();
+        int tilesChanged = 0;
+        for (int r = 0; r < state.ySize; r++) {
+            for (int c = 0; c < state.xSize; c++) {
+                int val = state.getTile(r, c);
+                if (previous == null || previous.getTile(r, c) != val) {
+                    setTile(tileLabels[r][c], val);
+                    tilesChanged++;
                 }
             }
         }
-        repaint();
+        boardPanel.repaint();
+        if (event.isEnabled()) {
+            event.rows = state.ySize;
+            event.columns = state.xSize;
+            event.tilesChanged = tilesChanged;
+            event.commit();
+        }
+        if (previous == null || previous.score != state.score) {
+            displayScore(state.score);
+        }
+        if (previous == null || previous.status != state.status) {
+            displayGameStatus(state.status);
+            if (previous != null && (state.status == GameStatus.WON || state.status == GameStatus.LOST)) {
+                displayEndScreen(state.status, state.score);
+            }
+        }
+    }
+
+    private static void setTile(JLabel label, int val) {
+        if (val == 0) {
+            label.setText("");
+            label.setBackground(Color.LIGHT_GRAY);
+        } else {
+            label.setText(String.valueOf(val));
+            label.setBackground(Tiles.getTileColor(val));
+        }
     }
 
     /**
      * Called by GameController to animate tile movements from old->new positions,
      * and then eventually call onAnimationsComplete.
+     * If the previous animation hasn't finished, it is dropped along with this one,
+     * and the board jumps to the latest state.
      */
     @Override
     public void showAnimations(List<TileMovement> movements, Runnable onAnimationsComplete) {
+        if (animationDone.isRunning()) {
+            // fast-forward: the callback renders the latest board, which includes both moves
+            animationDone.stop();
+            animationManager.clearAnimations();
+            pendingCallback = null;
+            onAnimationsComplete.run();
+            return;
+        }
         if (movements == null || movements.isEmpty()) {
             // If no tiles actually moved, just update immediately
             onAnimationsComplete.run();
@@ -227,27 +397,26 @@ public class SwingGameView extends JFrame implements GameView {
             int endX = tm.newCol * TILE_SIZE_PX;
             int endY = tm.newRow * TILE_SIZE_PX;
 
-            // Duration set to 300ms
             TileAnimation anim = new TileAnimation(
                     tm.value, startX, startY,
                     endX, endY,
-                    300, // 300ms
+                    ANIMATION_MS,
                     tm.merged
             );
             animationManager.addAnimation(anim);
         }
 
-        // 2) Use a Swing Timer to wait ~300ms, then finalize the move
-        new Timer(300, e -> {
-            ((Timer) e.getSource()).stop();
-
-            // The animation is "complete" from the user's perspective
-            // So we show the final board
-            renderBoard(model.getBoard());
+        // 2) Finish the move once the animation has played; the callback renders the final board
+        pendingCallback = onAnimationsComplete;
+        animationDone.restart();
+    }
 
-            // Then run whatever callback the controller gave us
-            onAnimationsComplete.run();
-        }).start();
+    private void finishAnimation() {
+        Runnable callback = pendingCallback;
+        pendingCallback = null;
+        if (callback != null) {
+            callback.run();
+        }
     }
 
     @Override
@@ -0,0 +1,40 @@
+package town.lost.g2k.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Tests running parallel streams on a pool of a chosen size.
+ */
+class ForkJoinTasksTest {
+
+    @Test
+    @DisplayName("A parallel stream runs in the task's pool and its result is returned.")
+    void testRunsInPool() throws InterruptedException {
+        int parallelism = ForkJoinTasks.run(3, () -> {
+            ForkJoinPool pool = ForkJoinTask.getPool();
+            assertNotSame(ForkJoinPool.commonPool(), pool);
+            return pool.getParallelism();
+        });
+        assertEquals(3, parallelism);
+        assertEquals(5050, (int) ForkJoinTasks.run(2, () -> IntStream.rangeClosed(1, 100).parallel().sum()));
+    }
+
+    @Test
+    @DisplayName("A RuntimeException from the task is rethrown with its own type, not in an ExecutionException.")
+    void testRethrowsRuntimeException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ForkJoinTasks.run(2, () -> IntStream.range(0, 100).parallel().forEach(i -> {
+                    if (i == 42) {
+                        throw new IllegalArgumentException("bad " + i);
+                    }
+                })));
+        assertTrue(e.getMessage().contains("bad 42"), e.getMessage());
+    }
+}
@@ -0,0 +1,102 @@
+package town.lost.g2k.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.archive.ArchiveReader;
+import town.lost.g2k.archive.ArchiveWriter;
+import town.lost.g2k.archive.GameRecord;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests the parallel analytics over a directory of archives.
+ */
+class GameAnalyticsTest {
+
+    @TempDir
+    Path dir;
+
+    private void writeArchive(Path file, int firstSeed, int games) throws IOException {
+        GameConfig config = TestGames.config(4, 4, Integer.MAX_VALUE, false);
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config, 8)) {
+            for (int seed = firstSeed; seed < firstSeed + games; seed++) {
+                GameBoard board = new GameBoard(config, seed);
+                GameRecord game = GameRecord.startOf(board);
+                TestGames.playRandom(board, seed, dir -> game.addMove(dir, board));
+                writer.write(game);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel analysis over nested archives matches a sequential pass, and writes every CSV.")
+    void testAnalyse() throws IOException, InterruptedException {
+        Files.createDirectories(dir.resolve("games/run2"));
+        writeArchive(dir.resolve("games/a.g2ka"), 0, 40);
+        writeArchive(dir.resolve("games/run2/b.g2ka"), 40, 25);
+        Files.write(dir.resolve("games/notes.txt"), List.of("not an archive"));
+
+        GameStats parallel = GameAnalytics.analyse(dir.resolve("games"), 4);
+        GameStats sequential = new GameStats();
+        ArchiveReader.open(dir.resolve("games/a.g2ka")).forEach(sequential::add);
+        ArchiveReader.open(dir.resolve("games/run2/b.g2ka")).forEach(sequential::add);
+
+        assertEquals(65, parallel.getGames());
+        assertEquals(sequential.getMoves(), parallel.getMoves());
+        long directions = 0;
+        for (Direction dir : Direction.values()) {
+            assertEquals(sequential.getDirectionCount(dir), parallel.getDirectionCount(dir));
+            assertEquals(sequential.getWastedMoves(dir), parallel.getWastedMoves(dir));
+            directions += parallel.getDirectionCount(dir);
+        }
+        assertEquals(parallel.getMoves(), directions);
+        assertEquals(65, parallel.getGamesReaching(4), "Every game merges something");
+        assertEquals(sequential.getGamesReaching(128), parallel.getGamesReaching(128));
+        long deaths = 0;
+        for (int bucket = 0; bucket < 100; bucket++) {
+            deaths += parallel.getDeaths(bucket);
+        }
+        assertEquals(65, deaths);
+
+        Path out = dir.resolve("out");
+        parallel.writeCsv(out);
+        for (String name : new String[]{"tiles.csv", "deaths.csv", "directions.csv", "scores.csv"}) {
+            List<String> lines = Files.readAllLines(out.resolve(name));
+            assertTrue(lines.size() > 1, name + " has rows");
+        }
+        List<String> scores = Files.readAllLines(out.resolve("scores.csv"));
+        assertEquals("0,65,0.000000", scores.get(1));
+    }
+
+    @Test
+    @DisplayName("Analysis across many archives, each mapped in several regions, matches one mapping per file.")
+    void testManyFilesAndRegions() throws IOException, InterruptedException {
+        Path games = dir.resolve("games");
+        Files.createDirectories(games);
+        for (int file = 0; file < 6; file++) {
+            writeArchive(games.resolve("part" + file + ".g2ka"), file * 20, 20);
+        }
+
+        GameStats whole = GameAnalytics.analyse(games, 2);
+        GameStats regions = GameAnalytics.analyse(games, 2, 512);
+        assertEquals(120, whole.getGames());
+        assertEquals(120, regions.getGames());
+        assertEquals(whole.getMoves(), regions.getMoves());
+        for (Direction dir : Direction.values()) {
+            assertEquals(whole.getDirectionCount(dir), regions.getDirectionCount(dir));
+        }
+        for (int tile = 4; tile <= 1024; tile *= 2) {
+            assertEquals(whole.getGamesReaching(tile), regions.getGamesReaching(tile));
+        }
+    }
+}
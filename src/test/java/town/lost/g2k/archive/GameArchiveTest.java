@@ -0,0 +1,169 @@
+package town.lost.g2k.archive;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests writing completed games to an archive and reading them back.
+ */
+class GameArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config() {
+        return TestGames.config(4, 4, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Plays a game of random moves to the end, returning its record and the final board.
+     */
+    static GameRecord play(GameConfig config, long seed, List<GameBoard> boards) {
+        GameBoard board = new GameBoard(config, seed);
+        GameRecord game = GameRecord.startOf(board);
+        TestGames.playRandom(board, seed, dir -> game.addMove(dir, board));
+        boards.add(board);
+        return game;
+    }
+
+    @Test
+    @DisplayName("Games read back sequentially and in parallel match those written, with their scores recomputed.")
+    void testRoundTrip() throws IOException {
+        GameConfig config = config();
+        Path file = dir.resolve("games.g2ka");
+        List<GameRecord> written = new ArrayList<>();
+        List<GameBoard> boards = new ArrayList<>();
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config, 16)) {
+            for (int seed = 0; seed < 100; seed++) {
+                GameRecord game = play(config, seed, boards);
+                writer.write(game);
+                written.add(game);
+            }
+            assertEquals(100, writer.getGameCount());
+        }
+
+        ArchiveReader reader = ArchiveReader.open(file);
+        assertEquals(100, reader.getGameCount());
+        assertEquals(7, reader.getBlockCount());
+        List<GameRecord> read = new ArrayList<>();
+        reader.forEach(read::add);
+        assertEquals(100, read.size());
+        long moves = 0;
+        for (int i = 0; i < read.size(); i++) {
+            GameRecord expected = written.get(i);
+            GameRecord actual = read.get(i);
+            assertEquals(expected.getSeed(), actual.getSeed());
+            assertArrayEquals(expected.getStart(), actual.getStart());
+            assertEquals(expected.getMoveCount(), actual.getMoveCount());
+            for (int m = 0; m < expected.getMoveCount(); m++) {
+                assertEquals(expected.getDirection(m), actual.getDirection(m));
+                assertEquals(expected.getSpawnCell(m), actual.getSpawnCell(m));
+                assertEquals(expected.getSpawnValue(m), actual.getSpawnValue(m));
+            }
+            assertEquals(boards.get(i).getScore(), actual.getScore());
+            assertEquals(boards.get(i).getMaxTile(), actual.getMaxTile());
+            moves += actual.getMoveCount();
+        }
+        assertTrue(Files.size(file) < moves, "Under a byte per move, was " + Files.size(file) + " for " + moves);
+
+        List<Long> seeds = Collections.synchronizedList(new ArrayList<>());
+        reader.parallelForEach(game -> seeds.add(game.getSeed()));
+        Collections.sort(seeds);
+        assertEquals(100, seeds.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, seeds.get(i).longValue());
+        }
+    }
+
+    @Test
+    @DisplayName("A game that breaks the rules is rejected without corrupting the archive.")
+    void testInvalidGameRejected() throws IOException {
+        GameConfig config = config();
+        Path file = dir.resolve("games.g2ka");
+        List<GameBoard> boards = new ArrayList<>();
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config)) {
+            writer.write(play(config, 1, boards));
+            GameRecord bad = GameRecord.startOf(new GameBoard(config, 2));
+            bad.addMove(Direction.LEFT, 0, 8); // 8 never spawns
+            assertThrows(IllegalArgumentException.class, () -> writer.write(bad));
+            writer.write(play(config, 3, boards));
+        }
+        List<GameRecord> read = new ArrayList<>();
+        ArchiveReader.open(file).forEach(read::add);
+        assertEquals(2, read.size());
+        assertEquals(3, read.get(1).getSeed());
+        assertEquals(boards.get(1).getScore(), read.get(1).getScore());
+    }
+
+    @Test
+    @DisplayName("A partial block at the end is ignored.")
+    void testTruncatedArchive() throws IOException {
+        GameConfig config = config();
+        Path file = dir.resolve("games.g2ka");
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config, 10)) {
+            for (int seed = 0; seed < 20; seed++) {
+                writer.write(play(config, seed, new ArrayList<>()));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 5);
+        }
+        ArchiveReader reader = ArchiveReader.open(file);
+        assertEquals(1, reader.getBlockCount());
+        assertEquals(10, reader.getGameCount());
+    }
+
+    @Test
+    @DisplayName("Blocks mapped in several regions read back exactly as from one, and other files are refused.")
+    void testRegions() throws IOException {
+        GameConfig config = config();
+        Path file = dir.resolve("games.g2ka");
+        try (ArchiveWriter writer = ArchiveWriter.create(file, config, 4)) {
+            for (int seed = 0; seed < 60; seed++) {
+                writer.write(play(config, seed, new ArrayList<>()));
+            }
+        }
+        List<GameRecord> whole = new ArrayList<>();
+        ArchiveReader.open(file).forEach(whole::add);
+        assertEquals(60, whole.size());
+
+        // a region of one block each, then a few blocks each
+        for (long regionBytes : new long[]{1, Files.size(file) / 4}) {
+            ArchiveReader reader = ArchiveReader.open(file, regionBytes);
+            assertEquals(15, reader.getBlockCount());
+            assertTrue(reader.getRegionCount() > 1);
+            assertTrue(regionBytes > 1 || reader.getRegionCount() == 15);
+            List<GameRecord> read = new ArrayList<>();
+            reader.forEach(read::add);
+            assertEquals(whole.size(), read.size());
+            for (int i = 0; i < whole.size(); i++) {
+                assertEquals(whole.get(i).getSeed(), read.get(i).getSeed());
+                assertEquals(whole.get(i).getMoveCount(), read.get(i).getMoveCount());
+                assertEquals(whole.get(i).getScore(), read.get(i).getScore());
+            }
+        }
+
+        Path other = dir.resolve("other.g2ka");
+        Files.write(other, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24});
+        assertThrows(IOException.class, () -> ArchiveReader.open(other));
+        Files.write(other, new byte[3]);
+        assertThrows(IOException.class, () -> ArchiveReader.open(other));
+        assertThrows(IllegalArgumentException.class, () -> ArchiveReader.open(file, 0));
+    }
+}
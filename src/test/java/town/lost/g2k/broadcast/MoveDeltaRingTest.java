@@ -0,0 +1,181 @@
+package town.lost.g2k.broadcast;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.controller.GameThread;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameState;
+import town.lost.g2k.view.NullGameView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests spectators following a game through a MoveDeltaRing.
+ */
+class MoveDeltaRingTest {
+
+    private static GameConfig config() {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(4, 5);
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        return config;
+    }
+
+    private static void assertFollows(GameBoard model, Spectator spectator) {
+        int[][] board = model.getBoard();
+        for (int r = 0; r < model.getYSize(); r++) {
+            for (int c = 0; c < model.getXSize(); c++) {
+                assertEquals(board[r][c], spectator.getTile(r, c), "Tile at " + r + "," + c);
+            }
+        }
+        assertEquals(model.getScore(), spectator.getScore());
+        assertEquals(model.getMoveCount(), spectator.getMoveCount());
+        assertEquals(model.getStatus(), spectator.getStatus());
+    }
+
+    @Test
+    @DisplayName("A spectator keeping up applies every delta and always matches the board.")
+    void testFollowsEveryDelta() {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 8L);
+        GameController controller = new GameController(model, config);
+        MoveDeltaRing ring = new MoveDeltaRing(model, 64);
+        controller.addChangeListener(ring);
+        controller.setView(new NullGameView());
+        controller.startGame();
+
+        Spectator spectator = ring.newSpectator(WaitStrategy.BUSY_SPIN);
+        assertFollows(model, spectator);
+        for (int i = 0; i < 300; i++) {
+            if (i % 50 == 49) {
+                controller.onUndo();
+            } else {
+                controller.onUserMove(Direction.values()[i % 3]);
+            }
+            spectator.poll();
+            assertFollows(model, spectator);
+            assertEquals(ring.getCursor(), spectator.getSequence());
+        }
+        assertEquals(0, spectator.getResyncCount());
+        assertEquals(0, spectator.poll(), "Nothing new to apply.");
+    }
+
+    @Test
+    @DisplayName("A spectator lagging beyond the ring's capacity resyncs from a keyframe.")
+    void testLaggingSpectatorResyncs() {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 9L);
+        GameController controller = new GameController(model, config);
+        MoveDeltaRing ring = new MoveDeltaRing(model, 16);
+        controller.addChangeListener(ring);
+        controller.setView(new NullGameView());
+        controller.startGame();
+
+        Spectator spectator = ring.newSpectator(WaitStrategy.YIELD);
+        for (int i = 0; i < 100 && !model.isGameOver(); i++) {
+            controller.onUserMove(Direction.values()[i & 3]);
+        }
+        assertTrue(ring.getCursor() >= 16);
+        spectator.poll();
+        assertFollows(model, spectator);
+        assertTrue(spectator.getResyncCount() > 0);
+        assertEquals(ring.getCursor(), spectator.getSequence());
+
+        assertThrows(IllegalArgumentException.class, () -> new MoveDeltaRing(model, 12));
+    }
+
+    @Test
+    @DisplayName("A spectator opened before the first delta starts from the board, even when the ring joins mid-game.")
+    void testSpectatorBeforeFirstDelta() {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 11L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+        controller.startGame();
+        for (int i = 0; i < 20; i++) {
+            controller.onUserMove(Direction.values()[i & 3]);
+        }
+
+        MoveDeltaRing ring = new MoveDeltaRing(model, 16);
+        controller.addChangeListener(ring);
+        Spectator spectator = ring.newSpectator(WaitStrategy.BUSY_SPIN);
+        assertEquals(-1, spectator.getSequence());
+        assertTrue(model.getMoveCount() > 0);
+        assertFollows(model, spectator);
+
+        for (int i = 0; i < 40 && !model.isGameOver(); i++) {
+            controller.onUserMove(Direction.values()[i % 3]);
+            spectator.poll();
+            assertFollows(model, spectator);
+        }
+        assertEquals(0, spectator.getResyncCount());
+    }
+
+    @Test
+    @DisplayName("Spectators on their own threads, with each wait strategy, end on the game thread's final state.")
+    void testConcurrentSpectators() throws Exception {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 10L);
+        GameController controller = new GameController(model, config);
+        MoveDeltaRing ring = new MoveDeltaRing(model, 32);
+        controller.addChangeListener(ring);
+        controller.setView(new NullGameView());
+
+        try (GameThread gameThread = GameThread.start(controller, model)) {
+            gameThread.executeAndWait(controller::startGame);
+            AtomicReference<GameState> last = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>();
+            List<Spectator> spectators = new ArrayList<>();
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                Spectator spectator = ring.newSpectator(strategy);
+                spectators.add(spectator);
+                Thread thread = new Thread(() -> {
+                    while (last.get() == null || spectator.getSequence() < ring.getCursor()) {
+                        spectator.take(10, TimeUnit.MILLISECONDS);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (int i = 0; i < 1000; i++) {
+                Direction dir = Direction.values()[i & 3];
+                gameThread.execute(() -> {
+                    if (model.isGameOver()) {
+                        controller.resetGame();
+                    } else {
+                        controller.onUserMove(dir);
+                    }
+                });
+                if (i % 200 == 0) {
+                    gameThread.executeAndWait(() -> { });
+                }
+            }
+            gameThread.executeAndWait(() -> { });
+            last.set(gameThread.getState());
+            for (Thread thread : threads) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive());
+            }
+            GameState expected = last.get();
+            for (Spectator spectator : spectators) {
+                assertEquals(ring.getCursor(), spectator.getSequence());
+                assertEquals(expected.score, spectator.getScore());
+                assertEquals(expected.moveCount, spectator.getMoveCount());
+                for (int r = 0; r < expected.ySize; r++) {
+                    for (int c = 0; c < expected.xSize; c++) {
+                        assertEquals(expected.getTile(r, c), spectator.getTile(r, c));
+                    }
+                }
+            }
+        }
+    }
+}
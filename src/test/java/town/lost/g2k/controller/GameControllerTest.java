@@ -3,12 +3,19 @@ package town.lost.g2k.controller;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import town.lost.g2k.model.BatchResult;
 import town.lost.g2k.model.Direction;
 import town.lost.g2k.model.GameBoard;
 import town.lost.g2k.model.GameConfig;
 import town.lost.g2k.model.GameStatus;
 import town.lost.g2k.view.GameView;
+import town.lost.g2k.view.TileMovement;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Tests for GameController, ensuring correct interactions
@@ -75,7 +82,13 @@ class GameControllerTest {
         controller.setView(mockView);
         controller.startGame();
 
-        // Force model's score to 100
+        // Force model's score to 100, on a board where LEFT slides without merging
+        model.setBoardState(new int[][]{
+                {0, 0, 0, 2},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        });
         forceScore(model, 100);
 
         // Mock existing record as 50
@@ -89,6 +102,136 @@ class GameControllerTest {
         verify(mockScoreManager).saveHighScores();
     }
 
+    @Test
+    @DisplayName("onUserMoves plays the whole batch and refreshes the view once, without animations.")
+    void testOnUserMoves() {
+        controller.setView(mockView);
+        controller.startGame();
+        clearInvocations(mockView);
+
+        Direction[] dirs = {Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.DOWN, Direction.LEFT};
+        BatchResult result = controller.onUserMoves(dirs);
+
+        assertEquals(dirs.length, result.applied);
+        assertEquals(model.getScore(), result.score);
+        verify(mockView, times(1)).renderBoard(any(int[][].class));
+        verify(mockView, times(1)).displayScore(model.getScore());
+        verify(mockView, never()).showAnimations(any(), any());
+    }
+
+    @Test
+    @DisplayName("Queued moves drain in one task, applied together with a single animation.")
+    @SuppressWarnings("unchecked")
+    void testQueueMove() {
+        GameBoard seeded = new GameBoard(config, 3L);
+        GameBoard expected = new GameBoard(config, 3L);
+        GameController queued = new GameController(seeded, config);
+        List<Runnable> tasks = new ArrayList<>();
+        queued.setMoveExecutor(tasks::add);
+        queued.setView(mockView);
+        queued.startGame();
+
+        int[][] start = seeded.getBoard();
+        Direction[] dirs = {Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.DOWN};
+        for (Direction dir : dirs) {
+            assertTrue(queued.queueMove(dir));
+            expected.move(dir);
+        }
+        assertEquals(1, tasks.size(), "One drain is scheduled however many moves are queued.");
+        assertEquals(dirs.length, queued.getQueuedMoveCount());
+        assertEquals(0, seeded.getMoveCount());
+
+        tasks.get(0).run();
+        assertEquals(0, queued.getQueuedMoveCount());
+        assertArrayEquals(expected.getBoard(), seeded.getBoard());
+        assertEquals(expected.getScore(), seeded.getScore());
+        assertTrue(expected.getMoveCount() > 1, "Several of the queued moves changed the board.");
+
+        // one animation, from the board before the first queued move to the board after the last
+        ArgumentCaptor<List<TileMovement>> movements = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Runnable> onComplete = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockView, times(1)).showAnimations(movements.capture(), onComplete.capture());
+        int[][] end = expected.getBoard();
+        int startTiles = 0;
+        for (int[] row : start) {
+            for (int val : row) {
+                startTiles += val == 0 ? 0 : 1;
+            }
+        }
+        int matched = 0;
+        for (TileMovement movement : movements.getValue()) {
+            assertEquals(start[movement.oldRow][movement.oldCol], movement.value);
+            assertEquals(end[movement.newRow][movement.newCol], movement.value);
+            matched++;
+        }
+        assertTrue(matched > 0 && matched <= startTiles);
+        onComplete.getValue().run();
+        verify(mockView, atLeastOnce()).displayScore(expected.getScore());
+
+        assertTrue(queued.queueMove(Direction.LEFT));
+        assertEquals(2, tasks.size(), "A move after the drain schedules another.");
+    }
+
+    @Test
+    @DisplayName("A full queue refuses moves, and undo applies queued moves first.")
+    void testQueueFullAndUndo() {
+        config.setUndoEnabled(true);
+        GameBoard seeded = new GameBoard(config, 4L);
+        GameController queued = new GameController(seeded, config);
+        queued.setMoveExecutor(task -> { });
+        queued.setView(mockView);
+        queued.startGame();
+
+        for (int i = 0; i < GameController.MAX_QUEUED_MOVES; i++) {
+            assertTrue(queued.queueMove(Direction.values()[i & 3]));
+        }
+        assertFalse(queued.queueMove(Direction.LEFT));
+
+        queued.onUndo();
+        assertEquals(0, queued.getQueuedMoveCount());
+        assertTrue(seeded.getMoveCount() > 0, "The queued moves were played before the undo.");
+    }
+
+    @Test
+    @DisplayName("Listeners get the whole board first, then only the cells that changed, once per batch.")
+    void testChangeListeners() {
+        List<GameChange> first = new ArrayList<>();
+        List<GameChange> second = new ArrayList<>();
+        GameChangeListener secondListener = second::add;
+        controller.addChangeListener(first::add);
+        controller.addChangeListener(secondListener);
+        controller.setView(mockView);
+        controller.startGame();
+
+        assertEquals(1, first.size());
+        GameChange start = first.get(0);
+        assertEquals(16, start.changedCells.length);
+        assertTrue(start.has(GameChange.SCORE) && start.has(GameChange.STATUS));
+        assertFalse(start.has(GameChange.RECORD), "No record without a HighScoreManager.");
+
+        int[][] before = model.getBoard();
+        controller.onUserMoves(new Direction[]{Direction.LEFT, Direction.UP, Direction.RIGHT});
+        assertEquals(2, first.size(), "A batch publishes one change.");
+        GameChange change = first.get(1);
+        int[][] after = model.getBoard();
+        List<Integer> expected = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                if (before[r][c] != after[r][c]) {
+                    expected.add(r * 4 + c);
+                }
+            }
+        }
+        assertEquals(expected.toString(), Arrays.toString(change.changedCells));
+        assertEquals(model.getScore() != 0, change.has(GameChange.SCORE));
+        assertSame(change, second.get(1), "Every listener gets the same change.");
+
+        controller.removeChangeListener(secondListener);
+        controller.resetGame();
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+    }
+
     // Helper to forcibly set the model's score
     private void forceScore(GameBoard board, int newScore) {
         try {
@@ -0,0 +1,169 @@
+package town.lost.g2k.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameState;
+import town.lost.g2k.view.NullGameView;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests running a game on a GameThread and reading its published states from other threads.
+ */
+class GameThreadTest {
+
+    private static GameConfig config() {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(5, 4);
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        return config;
+    }
+
+    @Test
+    @DisplayName("Moves run on the game thread and the published state matches a board played directly.")
+    void testPublishesState() throws Exception {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 21L);
+        GameBoard expected = new GameBoard(config, 21L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+
+        try (GameThread gameThread = GameThread.start(controller, model)) {
+            assertEquals(0, gameThread.getState().sequence);
+            assertArrayEquals(expected.getBoard(), gameThread.getState().toBoard());
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            gameThread.executeAndWait(() -> ranOn.set(Thread.currentThread()));
+            assertEquals("game-thread", ranOn.get().getName());
+
+            for (int i = 0; i < 200; i++) {
+                Direction dir = Direction.values()[i & 3];
+                expected.move(dir);
+                while (!gameThread.move(dir)) {
+                    Thread.yield();
+                }
+            }
+            gameThread.executeAndWait(controller::onUndo);
+            expected.undo();
+
+            GameState state = gameThread.getState();
+            assertArrayEquals(expected.getBoard(), state.toBoard());
+            assertEquals(expected.getScore(), state.score);
+            assertEquals(expected.getMoveCount(), state.moveCount);
+            assertEquals(expected.getStatus(), state.status);
+            assertEquals(5, state.xSize);
+            assertEquals(4, state.ySize);
+        }
+    }
+
+    @Test
+    @DisplayName("Readers see consistent states in sequence order while the game thread plays.")
+    void testConcurrentReaders() throws Exception {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 3L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+
+        try (GameThread gameThread = GameThread.start(controller, model)) {
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicReference<String> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                long last = -1;
+                while (!done.get()) {
+                    GameState state = gameThread.getState();
+                    if (state.sequence < last) {
+                        failure.set("Sequence went back from " + last + " to " + state.sequence);
+                    }
+                    last = state.sequence;
+                    int tiles = 0;
+                    for (int r = 0; r < state.ySize; r++) {
+                        for (int c = 0; c < state.xSize; c++) {
+                            tiles += state.getTile(r, c) != 0 ? 1 : 0;
+                        }
+                    }
+                    if (tiles == 0) {
+                        failure.set("Empty board in " + state);
+                    }
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 2000; i++) {
+                gameThread.execute(() -> controller.onUserMove(Direction.values()[model.getMoveCount() & 3]));
+                if (i % 100 == 0) {
+                    gameThread.executeAndWait(controller::resetGame);
+                }
+            }
+            gameThread.executeAndWait(() -> { });
+            done.set(true);
+            reader.join();
+            assertNull(failure.get(), failure.get());
+            assertTrue(gameThread.getState().sequence > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("A rejected drain drops only that move, and closing hands the controller back its executor.")
+    void testRejectedDrainAndClose() throws Exception {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 8L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+        Executor direct = controller.getMoveExecutor();
+
+        GameThread gameThread = GameThread.start(controller, model);
+        assertSame(gameThread, controller.getMoveExecutor());
+        gameThread.close();
+        assertSame(direct, controller.getMoveExecutor());
+        assertThrows(RejectedExecutionException.class, () -> gameThread.execute(() -> { }));
+
+        // a closed game thread left as the executor rejects every drain
+        controller.setMoveExecutor(gameThread);
+        assertFalse(controller.queueMove(Direction.LEFT));
+        assertEquals(0, controller.getQueuedMoveCount());
+        assertFalse(controller.queueMove(Direction.UP));
+
+        // input isn't wedged once there is an executor to drain it
+        controller.setMoveExecutor(direct);
+        int moves = model.getMoveCount();
+        GameBoard expected = new GameBoard(config, 8L);
+        expected.move(Direction.RIGHT);
+        assertTrue(controller.queueMove(Direction.RIGHT));
+        assertEquals(0, controller.getQueuedMoveCount());
+        assertEquals(expected.getMoveCount(), model.getMoveCount());
+        assertTrue(model.getMoveCount() >= moves);
+        assertArrayEquals(expected.getBoard(), model.getBoard());
+    }
+
+    @Test
+    @DisplayName("executeAndWait throws the command's failure, after publishing the state.")
+    void testExecuteAndWaitFailure() throws Exception {
+        GameConfig config = config();
+        GameBoard model = new GameBoard(config, 4L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+
+        try (GameThread gameThread = GameThread.start(controller, model)) {
+            IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                    () -> gameThread.executeAndWait(() -> {
+                        model.move(Direction.LEFT);
+                        model.move(Direction.UP);
+                        throw new IllegalStateException("broken command");
+                    }));
+            assertEquals("broken command", thrown.getMessage());
+            assertEquals(model.getMoveCount(), gameThread.getState().moveCount);
+
+            // the thread carries on
+            gameThread.executeAndWait(() -> { });
+            assertEquals(2, gameThread.getState().sequence);
+        }
+    }
+}
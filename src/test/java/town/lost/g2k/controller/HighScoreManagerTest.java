@@ -8,6 +8,7 @@ import town.lost.g2k.model.GameConfig;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collections;
 
 /**
  * Tests for HighScoreManager, verifying dimension-based
@@ -64,4 +65,38 @@ class HighScoreManagerTest {
         assertEquals(999, manager.getHighScoreFor(44));
         assertEquals(0, manager.getHighScoreFor(33));
     }
+
+    @Test
+    @DisplayName("Write-behind coalesces saves and writes them on close, leaving no temporary file.")
+    void testWriteBehind() throws IOException {
+        tempFile.delete();
+        manager.enableWriteBehind(60_000);
+
+        manager.setHighScoreFor(44, 100);
+        manager.saveHighScores();
+        manager.setHighScoreFor(44, 250);
+        manager.saveHighScores();
+        assertFalse(tempFile.exists(), "Nothing written until the flush interval or close.");
+
+        manager.close();
+        assertEquals(Collections.singletonList("44=250"), Files.readAllLines(tempFile.toPath()));
+        assertFalse(new File(tempFile.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    @DisplayName("The background writer flushes pending records within the interval.")
+    void testWriteBehindInterval() throws Exception {
+        manager.enableWriteBehind(20);
+        manager.setHighScoreFor(55, 400);
+        manager.saveHighScores();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        HighScoreManager another = new HighScoreManager(config);
+        while (another.getHighScoreFor(55) != 400 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            another.loadHighScores();
+        }
+        assertEquals(400, another.getHighScoreFor(55));
+        manager.close();
+    }
 }
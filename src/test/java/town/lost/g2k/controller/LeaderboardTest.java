@@ -0,0 +1,117 @@
+package town.lost.g2k.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the per-configuration top-K leaderboard.
+ */
+class LeaderboardTest {
+
+    private static final long CONFIG_A = 1L;
+    private static final long CONFIG_B = 2L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Only the best K games are kept, best first, and lower scores are rejected once full.")
+    void testKeepsTopK() {
+        Leaderboard leaderboard = new Leaderboard(3);
+        for (int score : new int[]{50, 10, 40, 20, 30}) {
+            leaderboard.submit(CONFIG_A, score, 64, score / 10, score * 7L);
+        }
+        List<LeaderboardEntry> top = leaderboard.top(CONFIG_A);
+        assertEquals(3, top.size());
+        assertEquals(50, top.get(0).score);
+        assertEquals(40, top.get(1).score);
+        assertEquals(30, top.get(2).score);
+        assertEquals(280, top.get(1).seed, "Entries keep their details.");
+
+        assertEquals(30, leaderboard.threshold(CONFIG_A));
+        assertFalse(leaderboard.submit(CONFIG_A, 30, 64, 1, 1));
+        assertTrue(leaderboard.submit(CONFIG_A, 35, 64, 1, 1));
+        assertTrue(leaderboard.top(CONFIG_B).isEmpty(), "Configurations are separate.");
+    }
+
+    @Test
+    @DisplayName("Concurrent ingestion keeps exactly the best scores.")
+    void testConcurrentIngestion() throws InterruptedException {
+        Leaderboard leaderboard = new Leaderboard(100);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    long score = i * 4L + offset;
+                    leaderboard.submit(score % 2 == 0 ? CONFIG_A : CONFIG_B, score, 2, i, score);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<LeaderboardEntry> top = leaderboard.top(CONFIG_A);
+        assertEquals(100, top.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(199_998 - 2L * i, top.get(i).score);
+        }
+    }
+
+    @Test
+    @DisplayName("Save and load round-trips every configuration.")
+    void testSaveAndLoad() throws IOException {
+        Leaderboard leaderboard = new Leaderboard(5);
+        for (int i = 1; i <= 8; i++) {
+            leaderboard.submit(CONFIG_A, i * 100, 256, i * 10, i);
+            leaderboard.submit(CONFIG_B, i, 4, i, -i);
+        }
+        Path file = dir.resolve("leaderboard.bin");
+        leaderboard.save(file);
+
+        Leaderboard loaded = Leaderboard.load(file);
+        assertEquals(5, loaded.getSize());
+        assertEquals(leaderboard.top(CONFIG_A).toString(), loaded.top(CONFIG_A).toString());
+        assertEquals(leaderboard.top(CONFIG_B).toString(), loaded.top(CONFIG_B).toString());
+    }
+
+    @Test
+    @DisplayName("Loading a truncated or corrupt file fails with an IOException.")
+    void testLoadCorrupt() throws IOException {
+        Leaderboard leaderboard = new Leaderboard(5);
+        for (int i = 1; i <= 8; i++) {
+            leaderboard.submit(CONFIG_A, i * 100, 256, i * 10, i);
+        }
+        Path file = dir.resolve("leaderboard.bin");
+        leaderboard.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> Leaderboard.load(truncated));
+
+        Path hugeCount = dir.resolve("huge-count.bin");
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(24, Integer.MAX_VALUE);
+        Files.write(hugeCount, bytes);
+        assertThrows(IOException.class, () -> Leaderboard.load(hugeCount));
+
+        Path zeroSize = dir.resolve("zero-size.bin");
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(24, 5).putInt(8, 0);
+        Files.write(zeroSize, bytes);
+        assertThrows(IOException.class, () -> Leaderboard.load(zeroSize));
+    }
+}
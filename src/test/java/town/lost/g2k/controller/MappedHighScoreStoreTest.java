@@ -0,0 +1,96 @@
+package town.lost.g2k.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Tests the memory-mapped high score store, using two mappings of one file
+ * to stand in for two processes.
+ */
+class MappedHighScoreStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("A record offered through one mapping is seen immediately through another.")
+    void testSharedBetweenMappings() throws IOException {
+        Path file = dir.resolve("records.bin");
+        long key = new GameConfig().configKey();
+        try (MappedHighScoreStore first = MappedHighScoreStore.open(file, 64);
+             MappedHighScoreStore second = MappedHighScoreStore.open(file)) {
+            assertEquals(64, second.capacity(), "An existing file keeps its capacity.");
+
+            assertTrue(first.offer(key, 500));
+            assertEquals(500, second.getHighScore(key));
+
+            assertFalse(second.offer(key, 300), "A lower score is not a record.");
+            assertTrue(second.offer(key, 900));
+            assertEquals(900, first.getHighScore(key));
+            assertEquals(1, first.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent offers keep the maximum.")
+    void testConcurrentMax() throws Exception {
+        Path file = dir.resolve("records.bin");
+        long key = new GameConfig().configKey();
+        try (MappedHighScoreStore store = MappedHighScoreStore.open(file)) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                int offset = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        store.offer(key, i * 4L + offset);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(39_999, store.getHighScore(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Sizes of 10 or more no longer collide, e.g. 10x3 and 9x13 both have the old key 103.")
+    void testNoSizeCollision() throws IOException {
+        GameConfig wide = new GameConfig();
+        wide.setBoardSize(10, 3);
+        GameConfig tall = new GameConfig();
+        tall.setBoardSize(9, 13);
+        assertNotEquals(wide.configKey(), tall.configKey());
+
+        GameConfig otherSpawns = new GameConfig();
+        otherSpawns.setTileSpawnProbabilities(Map.of(2, 0.8, 4, 0.2));
+        assertNotEquals(new GameConfig().configKey(), otherSpawns.configKey());
+
+        try (MappedHighScoreStore store = MappedHighScoreStore.open(dir.resolve("records.bin"))) {
+            HighScoreManager wideScores = new MappedHighScoreManager(wide, store);
+            HighScoreManager tallScores = new MappedHighScoreManager(tall, store);
+            wideScores.setHighScoreFor(103, 1000);
+            tallScores.setHighScoreFor(103, 2000);
+            assertEquals(1000, wideScores.getHighScoreFor(103));
+            assertEquals(2000, tallScores.getHighScoreFor(103));
+        }
+    }
+
+    @Test
+    @DisplayName("A file which isn't a store is rejected.")
+    void testRejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("highscore.txt");
+        Files.write(file, "44=999\n".getBytes());
+        assertThrows(IOException.class, () -> MappedHighScoreStore.open(file));
+    }
+}
@@ -0,0 +1,147 @@
+package town.lost.g2k.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.controller.ScoreVerifier.Verdict;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+import town.lost.g2k.model.TestGames;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests verifying submitted scores by replay.
+ */
+class ScoreVerifierTest {
+
+    private static GameConfig config() {
+        return TestGames.config(4, 4, 2048, false);
+    }
+
+    /**
+     * Plays random moves to the end of the game and submits the true result.
+     */
+    private static ScoreSubmission honest(long seed) {
+        GameConfig config = config();
+        GameBoard board = new GameBoard(config, seed);
+        List<Direction> moves = new ArrayList<>();
+        TestGames.playRandom(board, seed, moves::add);
+        return new ScoreSubmission(config, seed, ScoreSubmission.packMoves(moves.toArray(new Direction[0]), moves.size()),
+                moves.size(), board.getScore(), board.getStatus());
+    }
+
+    private static final ScoreVerifier VERIFIER = new ScoreVerifier(config(), 1);
+
+    private static ScoreSubmission withScore(ScoreSubmission s, int score) {
+        return new ScoreSubmission(s.config, s.seed, s.moveLog, s.moveCount, score, s.claimedStatus);
+    }
+
+    @Test
+    @DisplayName("An honest submission is accepted; a changed score, status or seed is not.")
+    void testReplay() {
+        ScoreSubmission honest = honest(17L);
+        assertEquals(Verdict.ACCEPTED, VERIFIER.verify(honest));
+        assertEquals(Verdict.MISMATCH, VERIFIER.verify(withScore(honest, honest.claimedScore + 4)));
+        assertEquals(Verdict.MISMATCH, VERIFIER.verify(new ScoreSubmission(honest.config, honest.seed,
+                honest.moveLog, honest.moveCount, honest.claimedScore, GameStatus.WON)));
+        assertNotEquals(Verdict.ACCEPTED, VERIFIER.verify(new ScoreSubmission(honest.config, 18L,
+                honest.moveLog, honest.moveCount, honest.claimedScore, honest.claimedStatus)));
+    }
+
+    @Test
+    @DisplayName("Malformed logs and impossible scores are rejected without a replay.")
+    void testPrecheck() {
+        ScoreSubmission honest = honest(3L);
+        assertNull(VERIFIER.precheck(honest));
+
+        ScoreSubmission shortLog = new ScoreSubmission(honest.config, honest.seed, new byte[1], 100,
+                honest.claimedScore, honest.claimedStatus);
+        assertEquals(Verdict.MALFORMED, VERIFIER.verify(shortLog));
+        ScoreSubmission padded = new ScoreSubmission(honest.config, honest.seed, new byte[]{(byte) 0xC0}, 3,
+                0, GameStatus.RUNNING);
+        assertEquals(Verdict.MALFORMED, VERIFIER.verify(padded));
+
+        assertEquals(Verdict.SCORE_OUT_OF_RANGE, VERIFIER.verify(withScore(honest, honest.claimedScore + 2)));
+        assertEquals(Verdict.SCORE_OUT_OF_RANGE, VERIFIER.verify(withScore(honest, 1 << 30)));
+    }
+
+    @Test
+    @DisplayName("A log which continues after the game ended is rejected.")
+    void testMovesAfterGameOver() {
+        ScoreSubmission honest = honest(5L);
+        Direction[] moves = new Direction[honest.moveCount + 1];
+        for (int i = 0; i < honest.moveCount; i++) {
+            moves[i] = Direction.values()[ScoreSubmission.moveAt(honest.moveLog, i)];
+        }
+        moves[honest.moveCount] = Direction.UP;
+        ScoreSubmission extended = new ScoreSubmission(honest.config, honest.seed,
+                ScoreSubmission.packMoves(moves, moves.length), moves.length, honest.claimedScore, honest.claimedStatus);
+        assertEquals(Verdict.MOVES_AFTER_GAME_OVER, VERIFIER.verify(extended));
+    }
+
+    @Test
+    @DisplayName("Many submissions are verified in parallel, with verdicts in submission order.")
+    void testVerifyAll() {
+        List<ScoreSubmission> submissions = new ArrayList<>();
+        for (int seed = 0; seed < 200; seed++) {
+            ScoreSubmission honest = honest(seed);
+            submissions.add(seed % 3 == 0 ? withScore(honest, honest.claimedScore + 8) : honest);
+        }
+        try (ScoreVerifier verifier = new ScoreVerifier(config(), 4)) {
+            List<Verdict> verdicts = verifier.verifyAll(submissions);
+            for (int seed = 0; seed < 200; seed++) {
+                assertEquals(seed % 3 == 0 ? Verdict.MISMATCH : Verdict.ACCEPTED, verdicts.get(seed), "seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A game is replayed under the verifier's rules, so a forged config is rejected.")
+    void testForgedConfig() {
+        ScoreSubmission honest = honest(9L);
+        // only 4s spawn, so the same moves could score far more
+        Map<Integer, Double> bigSpawns = new HashMap<>();
+        bigSpawns.put(4, 1.0);
+        GameConfig forged = new GameConfig(4, 4, 2048, false, false, null, bigSpawns);
+        GameBoard board = new GameBoard(forged, honest.seed);
+        board.moveAllPacked(honest.moveLog, 0, honest.moveCount, null);
+        assertEquals(Verdict.WRONG_RULES, VERIFIER.verify(new ScoreSubmission(forged, honest.seed, honest.moveLog,
+                honest.moveCount, board.getScore(), board.getStatus())));
+
+        GameConfig smallWin = new GameConfig(4, 4, 16, false, false, null, config().getTileSpawnProbabilities());
+        assertEquals(Verdict.WRONG_RULES, VERIFIER.verify(new ScoreSubmission(smallWin, honest.seed, honest.moveLog,
+                honest.moveCount, honest.claimedScore, honest.claimedStatus)));
+
+        Map<Integer, Double> noSpawns = new HashMap<>();
+        assertThrows(IllegalArgumentException.class,
+                () -> new ScoreVerifier(new GameConfig(4, 4, 2048, false, false, null, noSpawns), 1));
+    }
+
+    @Test
+    @DisplayName("The leaderboard and high scores only take submitted games which pass verification.")
+    void testSubmitPaths() {
+        ScoreSubmission honest = honest(11L);
+        ScoreSubmission inflated = withScore(honest, honest.claimedScore + 400);
+
+        Leaderboard leaderboard = new Leaderboard(10);
+        long key = config().configKey();
+        assertEquals(Verdict.MISMATCH, leaderboard.submit(inflated, VERIFIER));
+        assertTrue(leaderboard.top(key).isEmpty());
+        assertEquals(Verdict.ACCEPTED, leaderboard.submit(honest, VERIFIER));
+        assertEquals(honest.claimedScore, leaderboard.top(key).get(0).score);
+        assertEquals(honest.seed, leaderboard.top(key).get(0).seed);
+
+        HighScoreManager scores = new HighScoreManager(config());
+        assertEquals(Verdict.MISMATCH, scores.submit(inflated, VERIFIER));
+        assertEquals(0, scores.getHighScoreFor(44));
+        assertEquals(Verdict.ACCEPTED, scores.submit(honest, VERIFIER));
+        assertEquals(honest.claimedScore, scores.getHighScoreFor(44));
+    }
+}
@@ -0,0 +1,97 @@
+package town.lost.g2k.ipc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.broadcast.WaitStrategy;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests a bot playing through the memory-mapped BotHost and BotClient.
+ */
+class BotIpcTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config() {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(4, 3);
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        return config;
+    }
+
+    private static void assertSameState(GameBoard expected, BotClient client) {
+        int[][] board = expected.getBoard();
+        for (int r = 0; r < expected.getYSize(); r++) {
+            for (int c = 0; c < expected.getXSize(); c++) {
+                assertEquals(board[r][c], client.getTile(r, c));
+            }
+        }
+        assertEquals(expected.getScore(), client.getScore());
+        assertEquals(expected.getMoveCount(), client.getMoveCount());
+        assertEquals(expected.getStatus(), client.getStatus());
+    }
+
+    @Test
+    @DisplayName("A bot playing through shared memory sees exactly what a local board does.")
+    void testRoundTrips() throws IOException {
+        Path file = dir.resolve("bot.g2kb");
+        GameConfig config = config();
+        GameBoard expected = new GameBoard(config, 12L);
+        try (BotHost host = BotHost.open(file, new GameBoard(config, 12L));
+             BotClient client = BotClient.open(file, WaitStrategy.YIELD)) {
+            host.start(WaitStrategy.YIELD);
+            assertEquals(4, client.getXSize());
+            assertEquals(3, client.getYSize());
+            assertSameState(expected, client);
+
+            for (int i = 0; i < 100; i++) {
+                Direction dir = Direction.values()[i % 3];
+                int before = expected.getMoveCount();
+                expected.move(dir);
+                assertEquals(expected.getMoveCount() != before, client.move(dir));
+                assertSameState(expected, client);
+            }
+            expected.undo();
+            client.undo();
+            assertSameState(expected, client);
+            expected.reset();
+            client.reset();
+            assertSameState(expected, client);
+        }
+    }
+
+    @Test
+    @DisplayName("Commands are served from the caller's loop too, and a closed host is reported.")
+    void testServeOnceAndClose() throws Exception {
+        Path file = dir.resolve("bot.g2kb");
+        GameConfig config = config();
+        BotHost host = BotHost.open(file, new GameBoard(config, 1L));
+        try (BotClient client = BotClient.open(file, WaitStrategy.YIELD)) {
+            assertFalse(host.serveOnce(), "No command yet.");
+            Thread bot = new Thread(() -> client.move(Direction.LEFT));
+            bot.start();
+            while (!host.serveOnce()) {
+                Thread.yield();
+            }
+            bot.join();
+
+            host.close();
+            assertThrows(IllegalStateException.class, () -> client.move(Direction.UP));
+        }
+        assertThrows(IOException.class, () -> BotClient.open(file, WaitStrategy.YIELD));
+        Path other = dir.resolve("other.bin");
+        Files.write(other, new byte[256]);
+        assertThrows(IOException.class, () -> BotClient.open(other, WaitStrategy.YIELD));
+    }
+}
@@ -0,0 +1,148 @@
+package town.lost.g2k.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+import town.lost.g2k.view.NullGameView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Tests recording games to a journal and replaying them without a view.
+ */
+class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config(boolean undoEnabled) {
+        return TestGames.config(4, 4, 2048, undoEnabled);
+    }
+
+    private GameBoard play(Path file, GameConfig config, long seed, int moves) throws IOException {
+        return play(file, config, seed, moves, GameJournal.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    private GameBoard play(Path file, GameConfig config, long seed, int moves, int keyframeInterval)
+            throws IOException {
+        GameBoard board = new GameBoard(config, seed);
+        GameController controller = new GameController(board, config);
+        controller.setView(new NullGameView());
+        Random random = new Random(seed);
+        try (GameJournal journal = GameJournal.create(file, config, board.getSeed(), keyframeInterval)) {
+            controller.setJournal(journal);
+            controller.startGame();
+            for (int i = 0; i < moves; i++) {
+                if (board.isGameOver()) {
+                    controller.resetGame();
+                }
+                controller.onUserMove(Direction.values()[random.nextInt(4)]);
+                if (i % 7 == 3) {
+                    controller.onUndo();
+                }
+            }
+        }
+        return board;
+    }
+
+    @Test
+    @DisplayName("Replaying a journal reproduces the board, score and status, across resets and undos.")
+    void testRoundTrip() throws IOException {
+        Path file = dir.resolve("game.g2kj");
+        GameBoard played = play(file, config(true), 42L, 2_000);
+
+        GameReplayer replayer = GameReplayer.open(file);
+        assertEquals(42L, replayer.getSeed());
+        assertTrue(replayer.getConfig().isUndoEnabled());
+        GameBoard replayed = replayer.replay();
+        assertArrayEquals(played.getBoard(), replayed.getBoard());
+        assertEquals(played.getScore(), replayed.getScore());
+        assertEquals(played.getStatus(), replayed.getStatus());
+        assertEquals(played.getMoveCount(), replayed.getMoveCount());
+    }
+
+    @Test
+    @DisplayName("Replaying part of a journal stops after that many moves.")
+    void testPartialReplay() throws IOException {
+        Path file = dir.resolve("game.g2kj");
+        GameConfig config = config(false);
+        play(file, config, 7L, 10);
+
+        GameBoard expected = new GameBoard(config(false), 7L);
+        Random random = new Random(7L);
+        for (int i = 0; i < 4; i++) {
+            expected.move(Direction.values()[random.nextInt(4)]);
+        }
+        GameBoard replayed = GameReplayer.open(file).replay(4);
+        assertArrayEquals(expected.getBoard(), replayed.getBoard());
+        assertEquals(expected.getScore(), replayed.getScore());
+    }
+
+    @Test
+    @DisplayName("A journal whose scores don't follow from its moves is rejected.")
+    void testDivergentJournal() throws IOException {
+        Path file = dir.resolve("game.g2kj");
+        play(file, config(false), 3L, 50);
+        assertDoesNotThrow(() -> GameReplayer.open(file).replay());
+
+        // corrupt the score of the last record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), Files.size(file) - 1);
+        }
+        assertThrows(IllegalStateException.class, () -> GameReplayer.open(file).replay());
+    }
+
+    @Test
+    @DisplayName("Seeking from a keyframe gives the same board as replaying from the start, including undo.")
+    void testSeek() throws IOException {
+        Path file = dir.resolve("game.g2kj");
+        play(file, config(true), 11L, 1_000, 16);
+
+        GameReplayer replayer = GameReplayer.open(file);
+        assertEquals(1_000 / 16, replayer.getKeyframeCount());
+        for (long move : new long[]{0, 1, 15, 16, 17, 31, 32, 500, 999, 1_000, 5_000}) {
+            GameBoard sought = replayer.seek(move);
+            GameBoard replayed = replayer.replay(move);
+            assertArrayEquals(replayed.getBoard(), sought.getBoard(), "board after move " + move);
+            assertEquals(replayed.getScore(), sought.getScore(), "score after move " + move);
+            assertEquals(replayed.getStatus(), sought.getStatus(), "status after move " + move);
+            assertEquals(replayed.getMoveCount(), sought.getMoveCount(), "move count after move " + move);
+        }
+    }
+
+    @Test
+    @DisplayName("Index entries past the end of the journal, as left by a crash, are ignored.")
+    void testIndexAheadOfJournal() throws IOException {
+        Path file = dir.resolve("game.g2kj");
+        play(file, config(false), 5L, 300, 10);
+        assertEquals(30, GameReplayer.open(file).getKeyframeCount());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 30 * JournalFormat.RECORD_SIZE);
+        }
+        GameReplayer replayer = GameReplayer.open(file);
+        assertTrue(replayer.getKeyframeCount() < 30);
+        assertArrayEquals(replayer.replay(250).getBoard(), replayer.seek(250).getBoard());
+    }
+
+    @Test
+    @DisplayName("A file which isn't a journal is refused.")
+    void testNotAJournal() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> GameReplayer.open(file));
+    }
+}
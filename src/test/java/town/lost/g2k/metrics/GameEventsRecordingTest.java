@@ -0,0 +1,86 @@
+package town.lost.g2k.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.controller.HighScoreManager;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.view.AnimationManager;
+import town.lost.g2k.view.NullGameView;
+import town.lost.g2k.view.TileAnimation;
+
+import javax.swing.*;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records a short headless session with Java Flight Recorder and checks the game's events are present.
+ */
+class GameEventsRecordingTest {
+
+    @Test
+    @DisplayName("A recorded session contains move, spawn, refresh view, high score save and animation frame events.")
+    void testEventsRecorded() throws Exception {
+        File scores = File.createTempFile("jfrHighScore", ".txt");
+        scores.deleteOnExit();
+        Path dump = File.createTempFile("session", ".jfr").toPath();
+        dump.toFile().deleteOnExit();
+
+        try (Recording recording = new Recording()) {
+            recording.enable(MoveEvent.class);
+            recording.enable(SpawnEvent.class);
+            recording.enable(RefreshViewEvent.class);
+            recording.enable(HighScoreSaveEvent.class);
+            recording.enable(AnimationFrameEvent.class);
+            recording.start();
+
+            playSession(scores);
+            animateBriefly();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Set<String> names = new HashSet<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            names.add(event.getEventType().getName());
+        }
+        assertTrue(names.contains("town.lost.g2k.Move"), names.toString());
+        assertTrue(names.contains("town.lost.g2k.Spawn"), names.toString());
+        assertTrue(names.contains("town.lost.g2k.RefreshView"), names.toString());
+        assertTrue(names.contains("town.lost.g2k.HighScoreSave"), names.toString());
+        assertTrue(names.contains("town.lost.g2k.AnimationFrame"), names.toString());
+    }
+
+    private void playSession(File scores) {
+        GameConfig config = new GameConfig();
+        config.setHighScoreFilePath(scores.getAbsolutePath());
+        GameBoard model = new GameBoard(config, 42L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+        controller.setHighScoreManager(new HighScoreManager(config));
+        controller.startGame();
+
+        Direction[] cycle = {Direction.LEFT, Direction.DOWN, Direction.RIGHT, Direction.DOWN};
+        for (int i = 0; i < 200 && !model.isGameOver(); i++) {
+            controller.onUserMove(cycle[i % cycle.length]);
+        }
+    }
+
+    private void animateBriefly() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            AnimationManager manager = new AnimationManager(new JPanel());
+            manager.addAnimation(new TileAnimation(2, 0, 0, 80, 0, 50, false));
+        });
+        Thread.sleep(200);
+    }
+}
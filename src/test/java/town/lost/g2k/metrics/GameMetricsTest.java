@@ -0,0 +1,112 @@
+package town.lost.g2k.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tests GameMetrics recording from GameBoard and reading it back over JMX.
+ */
+class GameMetricsTest {
+
+    private final GameMetrics metrics = GameMetrics.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        metrics.setEnabled(true);
+    }
+
+    @Test
+    @DisplayName("Moves and merges are counted and timed, and readable through the platform MBeanServer.")
+    void testRecordedAndPublished() throws Exception {
+        GameBoard board = new GameBoard(new GameConfig(), 1L);
+        board.setBoardState(new int[][]{
+                {2, 2, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        });
+        long moves = metrics.getMoves();
+        long merges = metrics.getMerges();
+        long timed = metrics.getMoveLatency().getCount();
+
+        board.move(Direction.LEFT);
+
+        assertEquals(moves + 1, metrics.getMoves());
+        assertEquals(merges + 1, metrics.getMerges());
+        assertEquals(timed + 1, metrics.getMoveLatency().getCount());
+
+        GameMetrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertEquals(metrics.getMoves(), server.getAttribute(name, "Moves"));
+        CompositeData latency = (CompositeData) server.getAttribute(name, "MoveLatency");
+        assertEquals(metrics.getMoveLatency().getCount(), latency.get("count"));
+    }
+
+    @Test
+    @DisplayName("A batch of moves is counted once and neither timed nor spawn-timed per move.")
+    void testBatchCountedNotTimed() {
+        GameBoard single = new GameBoard(new GameConfig(), 3L);
+        GameBoard batch = new GameBoard(new GameConfig(), 3L);
+        Direction[] dirs = new Direction[2000];
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = Direction.values()[i & 3];
+        }
+        long moves = metrics.getMoves();
+        long merges = metrics.getMerges();
+        long games = metrics.getGamesPlayed();
+        for (Direction dir : dirs) {
+            single.move(dir);
+        }
+        long singleMerges = metrics.getMerges() - merges;
+        assertTrue(single.isGameOver());
+        assertEquals(moves + single.getMoveCount(), metrics.getMoves());
+        assertEquals(games + 1, metrics.getGamesPlayed());
+
+        long timed = metrics.getMoveLatency().getCount();
+        long spawns = metrics.getSpawnLatency().getCount();
+        long checks = metrics.getWinLoseCheckLatency().getCount();
+        moves = metrics.getMoves();
+        merges = metrics.getMerges();
+        batch.moveAll(dirs);
+
+        assertEquals(moves + batch.getMoveCount(), metrics.getMoves());
+        assertEquals(merges + singleMerges, metrics.getMerges());
+        assertEquals(games + 2, metrics.getGamesPlayed());
+        assertEquals(timed, metrics.getMoveLatency().getCount());
+        assertEquals(spawns, metrics.getSpawnLatency().getCount());
+        assertEquals(checks, metrics.getWinLoseCheckLatency().getCount());
+    }
+
+    @Test
+    @DisplayName("Nothing is recorded while disabled.")
+    void testDisabled() {
+        metrics.setEnabled(false);
+        GameBoard board = new GameBoard(new GameConfig(), 2L);
+        long moves = metrics.getMoves();
+        long timed = metrics.getMoveLatency().getCount();
+
+        board.setBoardState(new int[][]{
+                {0, 0, 0, 2},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        });
+        board.move(Direction.LEFT);
+
+        assertEquals(moves, metrics.getMoves());
+        assertEquals(timed, metrics.getMoveLatency().getCount());
+        assertEquals(0L, GameMetrics.start());
+    }
+}
@@ -0,0 +1,73 @@
+package town.lost.g2k.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the log-linear bucketing and percentile estimates of LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Every value falls into a bucket whose upper bound is within ~6% of it.")
+    void testBucketBounds() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int bucket = LatencyHistogram.bucketFor(value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upper >= value, "upper bound " + upper + " below " + value);
+            assertTrue(upper <= value + value / LatencyHistogram.SUB_BUCKETS,
+                    "upper bound " + upper + " too far above " + value);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Percentiles, mean and max reflect the recorded samples.")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500.0, histogram.getMean(), 0.001);
+        assertEquals(1_000_000, histogram.getMax());
+
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 500_000 && p50 <= 532_000, "p50 was " + p50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    @DisplayName("Recording is consistent across threads, with the buckets in one stripe or several.")
+    void testConcurrentRecording() throws InterruptedException {
+        for (int stripes : new int[]{1, 3}) {
+            assertConcurrentRecording(new LatencyHistogram(stripes));
+        }
+    }
+
+    private static void assertConcurrentRecording(LatencyHistogram histogram) throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMax());
+        assertEquals(49_999.5, histogram.getMean(), 0.001);
+        assertEquals(400_000, histogram.snapshot().getCount());
+    }
+}
@@ -110,6 +110,120 @@ class GameBoardTest {
         assertEquals(2, nonEmpty, "Rect board should spawn two tiles on init.");
     }
 
+    @Test
+    @DisplayName("A batch of moves, plain or packed, plays exactly like the same moves one at a time.")
+    void testMoveAllMatchesMove() {
+        GameConfig config = new GameConfig();
+        config.setUndoEnabled(true);
+        java.util.Random random = new java.util.Random(8);
+        Direction[] dirs = new Direction[3000];
+        byte[] packed = new byte[(dirs.length + 3) / 4];
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = Direction.values()[random.nextInt(4)];
+            packed[i >> 2] |= (byte) (dirs[i].ordinal() << ((i & 3) * 2));
+        }
+
+        GameBoard single = new GameBoard(config, 21);
+        int applied = 0;
+        while (applied < dirs.length && !single.isGameOver()) {
+            single.move(dirs[applied++]);
+        }
+        GameBoard batch = new GameBoard(config, 21);
+        BatchResult result = batch.moveAll(dirs);
+        GameBoard packedBatch = new GameBoard(config, 21);
+        BatchResult packedResult = packedBatch.moveAllPacked(packed, 0, dirs.length, null);
+
+        for (GameBoard other : new GameBoard[]{batch, packedBatch}) {
+            assertArrayEquals(single.getBoard(), other.getBoard());
+            assertEquals(single.getScore(), other.getScore());
+            assertEquals(single.getMoveCount(), other.getMoveCount());
+            assertArrayEquals(single.getUndoBoard(), other.getUndoBoard());
+        }
+        assertEquals(applied, result.applied);
+        assertEquals(BatchResult.Stop.GAME_OVER, result.stop, "3000 random moves end the game.");
+        assertEquals(single.getMoveCount(), result.changed);
+        assertEquals(single.getScore(), result.scoreGained);
+        assertEquals(result.applied, packedResult.applied);
+    }
+
+    @Test
+    @DisplayName("A batch stops as soon as its condition accepts the board.")
+    void testMoveAllStopsOnCondition() {
+        Direction[] dirs = new Direction[1000];
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = Direction.values()[i & 3];
+        }
+        GameBoard seeded = new GameBoard(new GameConfig(), 3);
+        BatchResult result = seeded.moveAll(dirs, 0, dirs.length, b -> b.getMaxTile() >= 32);
+        assertEquals(BatchResult.Stop.CONDITION, result.stop);
+        assertEquals(32, seeded.getMaxTile());
+        assertEquals(result.score, seeded.getScore());
+
+        BatchResult none = seeded.moveAll(dirs, 10, 0, null);
+        assertEquals(0, none.applied);
+        assertEquals(BatchResult.Stop.COMPLETED, none.stop);
+    }
+
+    @Test
+    @DisplayName("A preview gives the move's tiles and gain without spawning or changing the board.")
+    void testPreviewMove() {
+        GameConfig config = new GameConfig();
+        GameBoard previewed = new GameBoard(config, 5);
+        GameBoard plain = new GameBoard(config, 5);
+        GameBoard scratch = new GameBoard(config, 0);
+        int[][] into = new int[4][4];
+        java.util.Random random = new java.util.Random(5);
+        while (!previewed.isGameOver()) {
+            for (Direction dir : Direction.values()) {
+                int[][] before = previewed.getBoard();
+                int gain = previewed.previewMove(dir, into);
+                assertArrayEquals(before, previewed.getBoard());
+
+                scratch.restoreState(before, 0, 0, GameStatus.RUNNING);
+                scratch.move(dir);
+                if (scratch.getMoveCount() == 0) {
+                    assertEquals(-1, gain);
+                    continue;
+                }
+                int[][] moved = scratch.getBoard();
+                int spawn = scratch.getLastSpawnCell();
+                moved[spawn / 4][spawn % 4] = 0;
+                assertArrayEquals(moved, into);
+                assertEquals(scratch.getScore(), gain);
+                assertEquals(gain, previewed.previewMove(dir, null));
+            }
+            Direction dir = Direction.values()[random.nextInt(4)];
+            previewed.move(dir);
+            plain.move(dir);
+            assertArrayEquals(plain.getBoard(), previewed.getBoard());
+            assertEquals(plain.getMoveCount(), previewed.getMoveCount());
+        }
+        assertEquals(plain.getScore(), previewed.getScore());
+    }
+
+    @Test
+    @DisplayName("Every merge of a move is recorded, even after the board has grown.")
+    void testMergesAfterBoardGrows() {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(2, 2);
+        GameBoard growing = new GameBoard(config, 9);
+        growing.setBoardState(new int[][]{{2, 2}, {4, 4}});
+        growing.move(Direction.LEFT);
+        assertEquals(2, growing.getLastMergeCount());
+
+        config.setBoardSize(4, 4);
+        growing.reset();
+        growing.setBoardState(new int[][]{{2, 2, 2, 2}, {4, 4, 4, 4}, {8, 8, 8, 8}, {16, 16, 16, 16}});
+        growing.move(Direction.LEFT);
+        assertEquals(8, growing.getLastMergeCount());
+        int[] cells = {0, 1, 4, 5, 8, 9, 12, 13};
+        int[] values = {4, 4, 8, 8, 16, 16, 32, 32};
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals(cells[i], growing.getLastMergeCell(i));
+            assertEquals(values[i], growing.getLastMergeValue(i));
+        }
+    }
+
     // Helper methods
 
     private int countNonEmptyCells(int[][] grid) {
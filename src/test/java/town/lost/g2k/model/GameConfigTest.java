@@ -6,6 +6,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -84,4 +85,35 @@ class GameConfigTest {
         assertTrue(config.isUndoEnabled());
         assertFalse(config.isAnimationsEnabled());
     }
+
+    @Test
+    @DisplayName("Spawns depend on the seed and probabilities, not on the spawn map's iteration order.")
+    void testSpawnOrderIndependent() {
+        Map<Integer, Double> ascending = new LinkedHashMap<>();
+        Map<Integer, Double> descending = new LinkedHashMap<>();
+        int[] tiles = {2, 4, 8, 16};
+        double[] probabilities = {0.8, 0.15, 0.04, 0.01};
+        for (int i = 0; i < tiles.length; i++) {
+            ascending.put(tiles[i], probabilities[i]);
+            descending.put(tiles[tiles.length - 1 - i], probabilities[tiles.length - 1 - i]);
+        }
+        GameConfig first = new GameConfig(4, 4, 2048, false, false, null, ascending);
+        GameConfig second = new GameConfig(4, 4, 2048, false, false, null, descending);
+        assertEquals(first.configKey(), second.configKey());
+
+        for (long seed = 0; seed < 20; seed++) {
+            GameBoard a = new GameBoard(first, seed);
+            GameBoard b = new GameBoard(second, seed);
+            TestGames.playRandom(a, seed, null);
+            TestGames.playRandom(b, seed, null);
+            assertArrayEquals(a.getBoard(), b.getBoard());
+            assertEquals(a.getScore(), b.getScore());
+        }
+
+        assertEquals(2, first.spawnValueFor(0.0));
+        assertEquals(4, first.spawnValueFor(0.9));
+        assertEquals(16, first.spawnValueFor(0.995));
+        first.setTileSpawnProbabilities(Map.of(8, 1.0));
+        assertEquals(8, first.spawnValueFor(0.5), "A new map replaces the table.");
+    }
 }
@@ -0,0 +1,109 @@
+package town.lost.g2k.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests saving and resuming games with GameSnapshot, and the GameRandom it relies on.
+ */
+class GameSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config() {
+        Map<Integer, Double> spawns = new LinkedHashMap<>();
+        spawns.put(4, 0.2);
+        spawns.put(2, 0.8);
+        return new GameConfig(5, 4, 4096, true, false, "scores.txt", spawns);
+    }
+
+    @Test
+    @DisplayName("GameRandom produces the same sequence as java.util.Random, and its state can be restored.")
+    void testGameRandom() {
+        Random expected = new Random(123L);
+        GameRandom random = new GameRandom(123L);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(expected.nextInt(17), random.nextInt(17));
+            assertEquals(expected.nextDouble(), random.nextDouble());
+        }
+        long state = random.getState();
+        int next = random.nextInt();
+        random.setState(state);
+        assertEquals(next, random.nextInt());
+    }
+
+    @Test
+    @DisplayName("A resumed game has the same state, and continues exactly as the original would.")
+    void testSaveAndResume() throws IOException {
+        GameBoard original = new GameBoard(config(), 99L);
+        Random moves = new Random(1L);
+        for (int i = 0; i < 40; i++) {
+            original.move(Direction.values()[moves.nextInt(4)]);
+        }
+        Path file = dir.resolve("game.g2ks");
+        GameSnapshot.save(original, file);
+        assertEquals(GameSnapshot.size(original), Files.size(file));
+
+        GameBoard resumed = GameSnapshot.load(file);
+        GameConfig config = resumed.getConfig();
+        assertEquals(5, config.getXSize());
+        assertEquals(4, config.getYSize());
+        assertEquals(4096, config.getWinTileValue());
+        assertTrue(config.isUndoEnabled());
+        assertEquals("scores.txt", config.getHighScoreFilePath());
+        assertEquals(config().getTileSpawnProbabilities(), config.getTileSpawnProbabilities());
+        assertEquals(99L, resumed.getSeed());
+        assertArrayEquals(original.getBoard(), resumed.getBoard());
+        assertEquals(original.getScore(), resumed.getScore());
+        assertEquals(original.getMoveCount(), resumed.getMoveCount());
+        assertEquals(original.getStatus(), resumed.getStatus());
+
+        for (int i = 0; i < 200; i++) {
+            Direction dir = Direction.values()[moves.nextInt(4)];
+            original.move(dir);
+            resumed.move(dir);
+            assertArrayEquals(original.getBoard(), resumed.getBoard(), "after move " + i);
+        }
+        assertEquals(original.getScore(), resumed.getScore());
+    }
+
+    @Test
+    @DisplayName("The undo snapshot survives a save and resume.")
+    void testUndoSurvives() throws IOException {
+        GameBoard original = new GameBoard(config(), 5L);
+        original.setBoardState(new int[][]{
+                {2, 2, 0, 0, 0},
+                {0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0}
+        });
+        int[][] before = original.getBoard();
+        original.move(Direction.LEFT);
+
+        Path file = dir.resolve("game.g2ks");
+        GameSnapshot.save(original, file);
+        GameBoard resumed = GameSnapshot.load(file);
+        resumed.undo();
+        assertArrayEquals(before, resumed.getBoard());
+        assertEquals(0, resumed.getScore());
+    }
+
+    @Test
+    @DisplayName("A file which isn't a saved game is refused.")
+    void testNotASnapshot() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[40]);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+    }
+}
@@ -0,0 +1,126 @@
+package town.lost.g2k.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Tests parking and inflating games in a PackedGameStore.
+ */
+class PackedGameStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config(boolean undo) {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(5, 4);
+        config.setUndoEnabled(undo);
+        config.setHighScoreFilePath(null);
+        return config;
+    }
+
+    private static void play(GameBoard board, Random moves, int count) {
+        for (int i = 0; i < count; i++) {
+            board.move(Direction.values()[moves.nextInt(4)]);
+        }
+    }
+
+    private static void assertSameGame(GameBoard expected, GameBoard actual) {
+        assertArrayEquals(expected.getBoard(), actual.getBoard());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getMoveCount(), actual.getMoveCount());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertArrayEquals(expected.getUndoBoard(), actual.getUndoBoard());
+    }
+
+    @Test
+    @DisplayName("An inflated game has the same state, including undo, and continues exactly as the original.")
+    void testParkAndInflate() throws IOException {
+        GameConfig config = config(true);
+        try (PackedGameStore store = PackedGameStore.allocate(config, 8)) {
+            GameBoard original = new GameBoard(config, 5L);
+            play(original, new Random(1L), 30);
+            int id = store.add(original);
+
+            GameBoard inflated = store.inflate(id);
+            assertSameGame(original, inflated);
+
+            play(original, new Random(2L), 50);
+            play(inflated, new Random(2L), 50);
+            assertSameGame(original, inflated);
+
+            original.undo();
+            inflated.undo();
+            assertSameGame(original, inflated);
+        }
+    }
+
+    @Test
+    @DisplayName("Ids are reused after removal with a new generation, and a full store refuses new games.")
+    void testIds() throws IOException {
+        GameConfig config = config(false);
+        try (PackedGameStore store = PackedGameStore.allocate(config, 3)) {
+            assertEquals(0, store.add(new GameBoard(config, 1L)));
+            assertEquals(1, store.add(new GameBoard(config, 2L)));
+            assertEquals(2, store.add(new GameBoard(config, 3L)));
+            assertThrows(IllegalStateException.class, () -> store.add(new GameBoard(config, 4L)));
+
+            assertTrue(store.remove(1));
+            assertFalse(store.remove(1));
+            assertFalse(store.contains(1));
+            assertThrows(IllegalArgumentException.class, () -> store.inflate(1));
+            assertEquals(2, store.size());
+            assertEquals(1, store.getGeneration(1));
+            assertEquals(1, store.add(new GameBoard(config, 5L)));
+            assertEquals(5L, store.inflate(1).getSeed());
+            assertEquals(2, store.getGeneration(1));
+            assertEquals(1, store.getGeneration(0));
+        }
+    }
+
+    @Test
+    @DisplayName("A mapped store reopens with every parked game, and rejects other configs and files.")
+    void testReopen() throws IOException {
+        GameConfig config = config(true);
+        Path file = dir.resolve("games.g2kp");
+        GameBoard[] games = new GameBoard[50];
+        try (PackedGameStore store = PackedGameStore.open(file, config, 100)) {
+            Random moves = new Random(3L);
+            for (int i = 0; i < games.length; i++) {
+                games[i] = new GameBoard(config, i);
+                play(games[i], moves, i);
+                assertEquals(i, store.add(games[i]));
+            }
+            store.remove(7);
+        }
+        assertEquals(64 + 100 * PackedGameStore.recordSize(config), Files.size(file));
+
+        try (PackedGameStore store = PackedGameStore.open(file, config, 10)) {
+            assertEquals(100, store.capacity(), "An existing store keeps its capacity.");
+            assertEquals(49, store.size());
+            assertFalse(store.contains(7));
+            for (int i = 0; i < games.length; i++) {
+                if (i != 7) {
+                    assertSameGame(games[i], store.inflate(i));
+                }
+            }
+            assertEquals(7, store.add(new GameBoard(config, 1L)), "The lowest free id is used first.");
+            assertEquals(2, store.getGeneration(7), "Generations survive reopening.");
+            assertEquals(1, store.getGeneration(8));
+        }
+
+        assertThrows(IOException.class, () -> PackedGameStore.open(file, config(false), 100));
+        Path other = dir.resolve("other.bin");
+        Files.write(other, new byte[128]);
+        assertThrows(IOException.class, () -> PackedGameStore.open(other, config, 100));
+    }
+}
@@ -0,0 +1,50 @@
+package town.lost.g2k.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Configurations and seeded random games shared by the tests and benchmarks.
+ */
+public final class TestGames {
+
+    private TestGames() {
+    }
+
+    /**
+     * @return the standard spawn probabilities, a 2 nine times in ten and otherwise a 4
+     */
+    public static Map<Integer, Double> standardSpawns() {
+        Map<Integer, Double> spawns = new HashMap<>();
+        spawns.put(2, 0.9);
+        spawns.put(4, 0.1);
+        return spawns;
+    }
+
+    /**
+     * A configuration with the standard spawns, no animations and no high score file.
+     *
+     * @param winTileValue {@code Integer.MAX_VALUE} for games which only end when the board locks up
+     */
+    public static GameConfig config(int xSize, int ySize, int winTileValue, boolean undoEnabled) {
+        return new GameConfig(xSize, ySize, winTileValue, undoEnabled, false, null, standardSpawns());
+    }
+
+    /**
+     * Plays random moves, drawn from a generator seeded with {@code seed}, until the game ends.
+     *
+     * @param afterMove called with each direction after it's played, or null
+     */
+    public static void playRandom(GameBoard board, long seed, Consumer<Direction> afterMove) {
+        Random random = new Random(seed);
+        while (!board.isGameOver()) {
+            Direction dir = Direction.values()[random.nextInt(4)];
+            board.move(dir);
+            if (afterMove != null) {
+                afterMove.accept(dir);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package town.lost.g2k.queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.GameStatus;
+import town.lost.g2k.view.NullGameView;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests appending game events to a segmented queue and tailing or replaying them.
+ */
+class EventQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private static long appendNumbered(EventAppender appender, int i) {
+        return appender.append(GameEventType.SPAWN, 7L, Direction.values()[i & 3], i, i * 2, i * 3, i,
+                GameStatus.RUNNING);
+    }
+
+    private static int segmentCount(Path dir) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, "*.g2kq")) {
+            for (Path ignored : segments) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    @DisplayName("Records roll across segments and replay from the start or any index.")
+    void testRollsAndReplays() throws IOException {
+        try (EventAppender appender = EventAppender.open(dir, 8)) {
+            for (int i = 0; i < 30; i++) {
+                assertEquals(i, appendNumbered(appender, i));
+            }
+            assertEquals(30, appender.getIndex());
+        }
+        assertEquals(4, segmentCount(dir));
+
+        GameEvent event = new GameEvent();
+        try (EventTailer tailer = EventTailer.open(dir)) {
+            for (int i = 0; i < 30; i++) {
+                assertTrue(tailer.next(event));
+                assertEquals(i, event.getIndex());
+                assertEquals(GameEventType.SPAWN, event.getType());
+                assertEquals(Direction.values()[i & 3], event.getDirection());
+                assertEquals(i, event.getCell());
+                assertEquals(i * 2, event.getValue());
+                assertEquals(i * 3, event.getScore());
+                assertEquals(i, event.getMoveCount());
+                assertEquals(7L, event.getGameId());
+                assertEquals(GameStatus.RUNNING, event.getStatus());
+            }
+            assertFalse(tailer.next(event));
+            assertEquals(30, tailer.getIndex());
+        }
+
+        try (EventTailer tailer = EventTailer.open(dir, 17)) {
+            assertTrue(tailer.next(event));
+            assertEquals(17, event.getIndex());
+            assertEquals(17, event.getCell());
+            tailer.seek(3);
+            assertTrue(tailer.next(event));
+            assertEquals(3, event.getCell());
+        }
+    }
+
+    @Test
+    @DisplayName("A live tailer sees each record once it is appended, including into a new segment.")
+    void testTailsLive() throws IOException {
+        GameEvent event = new GameEvent();
+        try (EventAppender appender = EventAppender.open(dir, 4);
+             EventTailer tailer = EventTailer.open(dir)) {
+            for (int i = 0; i < 10; i++) {
+                assertFalse(tailer.next(event), "record " + i + " read before it was appended");
+                appendNumbered(appender, i);
+                assertTrue(tailer.next(event));
+                assertEquals(i, event.getCell());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A reopened queue continues after its last record and keeps its segment size.")
+    void testReopens() throws IOException {
+        try (EventAppender appender = EventAppender.open(dir, 8)) {
+            for (int i = 0; i < 11; i++) {
+                appendNumbered(appender, i);
+            }
+        }
+        try (EventAppender appender = EventAppender.open(dir, 1000)) {
+            assertEquals(11, appender.getIndex());
+            for (int i = 11; i < 20; i++) {
+                assertEquals(i, appendNumbered(appender, i));
+            }
+        }
+        assertEquals(3, segmentCount(dir));
+
+        GameEvent event = new GameEvent();
+        try (EventTailer tailer = EventTailer.open(dir)) {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(tailer.next(event));
+                assertEquals(i, event.getCell());
+            }
+            assertFalse(tailer.next(event));
+        }
+    }
+
+    @Test
+    @DisplayName("A file which isn't a segment is refused.")
+    void testRejectsOtherFiles() throws IOException {
+        Files.write(dir.resolve("00000000000000000000.g2kq"), new byte[100]);
+        assertThrows(IOException.class, () -> EventAppender.open(dir));
+        assertThrows(IOException.class, () -> EventTailer.open(dir));
+        assertThrows(IOException.class, () -> EventTailer.open(dir.resolve("missing")));
+    }
+
+    @Test
+    @DisplayName("The controller logs the start, every move with its merges and spawn, undos, resets and the end.")
+    void testControllerEvents() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setBoardSize(3, 3);
+        config.setUndoEnabled(true);
+        config.setHighScoreFilePath(null);
+        GameBoard model = new GameBoard(config, 5L);
+        GameController controller = new GameController(model, config);
+        controller.setView(new NullGameView());
+
+        GameEvent event = new GameEvent();
+        try (EventAppender appender = EventAppender.open(dir, 64);
+             EventTailer tailer = EventTailer.open(dir)) {
+            controller.setEventLog(appender, 42L);
+            controller.startGame();
+
+            assertTrue(tailer.next(event));
+            assertEquals(GameEventType.START, event.getType());
+            assertEquals(3 << 16 | 3, event.getValue());
+            int tiles = 0;
+            while (tailer.next(event)) {
+                assertEquals(GameEventType.SPAWN, event.getType());
+                assertEquals(model.getBoard()[event.getCell() / 3][event.getCell() % 3], event.getValue());
+                tiles++;
+            }
+            assertEquals(2, tiles);
+
+            int moves = 0;
+            boolean ended = false;
+            for (int i = 0; !model.isGameOver() && i < 1000; i++) {
+                Direction dir = Direction.values()[i & 3];
+                int scoreBefore = model.getScore();
+                controller.onUserMove(dir);
+                moves++;
+
+                assertTrue(tailer.next(event));
+                assertEquals(GameEventType.MOVE, event.getType());
+                assertEquals(dir, event.getDirection());
+                assertEquals(model.getScore(), event.getScore());
+                assertEquals(model.getMoveCount(), event.getMoveCount());
+                int merged = 0;
+                while (tailer.next(event)) {
+                    assertEquals(42L, event.getGameId());
+                    if (event.getType() == GameEventType.MERGE) {
+                        merged += event.getValue();
+                        assertEquals(model.getBoard()[event.getCell() / 3][event.getCell() % 3], event.getValue());
+                    } else if (event.getType() == GameEventType.SPAWN) {
+                        assertEquals(model.getLastSpawnCell(), event.getCell());
+                    } else {
+                        assertEquals(GameEventType.END, event.getType());
+                        assertEquals(model.getMaxTile(), event.getValue());
+                        assertEquals(model.getStatus(), event.getStatus());
+                        ended = true;
+                    }
+                }
+                assertEquals(model.getScore() - scoreBefore, merged);
+            }
+            assertTrue(ended);
+            assertTrue(moves > 1);
+
+            controller.onUndo();
+            assertTrue(tailer.next(event));
+            assertEquals(GameEventType.UNDO, event.getType());
+            assertEquals(model.getScore(), event.getScore());
+
+            controller.resetGame();
+            assertTrue(tailer.next(event));
+            assertEquals(GameEventType.RESET, event.getType());
+            assertTrue(tailer.next(event));
+            assertTrue(tailer.next(event));
+            assertEquals(GameEventType.SPAWN, event.getType());
+            assertFalse(tailer.next(event));
+        }
+    }
+}
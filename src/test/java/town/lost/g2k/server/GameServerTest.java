@@ -0,0 +1,206 @@
+package town.lost.g2k.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.PackedGameStore;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the HTTP game server and its session manager.
+ */
+class GameServerTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern SCORE = Pattern.compile("\"score\":(\\d+)");
+    private static final Pattern MOVES = Pattern.compile("\"moves\":(\\d+)");
+
+    private GameServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = GameServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4, new SessionManager(0));
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("A game started over HTTP plays exactly like a GameBoard with the same seed.")
+    void testPlaysLikeGameBoard() throws Exception {
+        HttpResponse<String> created = send("POST", "/games?size=5x4&seed=42");
+        assertEquals(201, created.statusCode());
+        long id = Long.parseLong(find(ID, created.body()));
+        assertTrue(created.body().contains("\"board\":[["), created.body());
+
+        GameConfig config = new GameConfig();
+        config.setBoardSize(5, 4);
+        config.setUndoEnabled(true);
+        GameBoard expected = new GameBoard(config, 42);
+        Direction[] dirs = Direction.values();
+        for (int i = 0; i < 40; i++) {
+            Direction dir = dirs[i % dirs.length];
+            expected.move(dir);
+            HttpResponse<String> moved = send("POST", "/games/" + id + "/move?dir=" + dir.name().toLowerCase());
+            assertEquals(200, moved.statusCode());
+            assertEquals(String.valueOf(expected.getScore()), find(SCORE, moved.body()));
+        }
+
+        String state = send("GET", "/games/" + id).body();
+        assertEquals(String.valueOf(expected.getMoveCount()), find(MOVES, state));
+        assertTrue(state.contains("\"status\":\"" + expected.getStatus() + "\""), state);
+
+        assertEquals(200, send("POST", "/games/" + id + "/undo").statusCode());
+        assertEquals(204, send("DELETE", "/games/" + id).statusCode());
+        assertEquals(404, send("GET", "/games/" + id).statusCode());
+    }
+
+    @Test
+    @DisplayName("Bad requests get 400, 404 or 405 with a JSON error.")
+    void testErrors() throws Exception {
+        long id = Long.parseLong(find(ID, send("POST", "/games").body()));
+        assertEquals(400, send("POST", "/games/" + id + "/move?dir=SIDEWAYS").statusCode());
+        assertEquals(400, send("POST", "/games/" + id + "/move").statusCode());
+        assertEquals(400, send("POST", "/games?size=1x9").statusCode());
+        assertEquals(400, send("POST", "/games?seed=abc").statusCode());
+        assertEquals(404, send("GET", "/games/999999").statusCode());
+        assertEquals(404, send("POST", "/games/" + id + "/fly").statusCode());
+        assertEquals(405, send("GET", "/games").statusCode());
+        HttpResponse<String> wrongMethod = send("GET", "/games/" + id + "/move?dir=UP");
+        assertEquals(405, wrongMethod.statusCode());
+        assertTrue(wrongMethod.body().startsWith("{\"error\":"), wrongMethod.body());
+    }
+
+    @Test
+    @DisplayName("Concurrent moves on one session are serialised, and sessions are independent.")
+    void testConcurrentMoves() throws Exception {
+        long a = Long.parseLong(find(ID, send("POST", "/games?seed=7").body()));
+        long b = Long.parseLong(find(ID, send("POST", "/games?seed=7").body()));
+        List<CompletableFuture<HttpResponse<String>>> replies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String dir = (i & 1) == 0 ? "LEFT" : "UP";
+            replies.add(sendAsync("/games/" + a + "/move?dir=" + dir));
+            replies.add(sendAsync("/games/" + b + "/move?dir=" + dir));
+        }
+        int movedA = 0;
+        for (int i = 0; i < replies.size(); i++) {
+            HttpResponse<String> reply = replies.get(i).join();
+            assertEquals(200, reply.statusCode());
+            if (i % 2 == 0 && reply.body().contains("\"moved\":true")) {
+                movedA++;
+            }
+        }
+        String stateA = send("GET", "/games/" + a).body();
+        assertEquals(String.valueOf(movedA), find(MOVES, stateA), "Every move that changed the board was counted once.");
+    }
+
+    @Test
+    @DisplayName("Sessions idle for longer than the timeout are evicted.")
+    void testEviction() {
+        try (SessionManager sessions = new SessionManager(60_000, 3)) {
+            GameConfig config = new GameConfig();
+            config.setHighScoreFilePath(null);
+            GameSession idle = sessions.create(config, 1);
+            GameSession active = sessions.create(config, 2);
+            long later = System.nanoTime() + 61_000_000_000L;
+            active.touch(later);
+            assertEquals(1, sessions.evictIdle(later));
+            assertNull(sessions.get(idle.getId()));
+            assertSame(active, sessions.get(active.getId()));
+
+            sessions.create(config, 3);
+            sessions.create(config, 4);
+            assertThrows(IllegalStateException.class, () -> sessions.create(config, 5));
+        }
+    }
+
+    @Test
+    @DisplayName("With a store, idle sessions are parked and resume where they left off.")
+    void testParking() throws IOException {
+        GameConfig config = GameServer.serverConfig(4, 4);
+        try (PackedGameStore store = PackedGameStore.allocate(config, 4);
+             SessionManager sessions = new SessionManager(60_000, 10, store)) {
+            GameSession session = sessions.create(config, 9);
+            long id = session.getId();
+            assertNotNull(session.move(Direction.LEFT));
+            String state = session.state();
+
+            assertEquals(1, sessions.evictIdle(System.nanoTime() + 61_000_000_000L));
+            assertEquals(0, sessions.size());
+            assertNull(session.state(), "A parked session's old handle is detached.");
+            assertEquals(state, sessions.withSession(id, GameSession::state));
+            assertEquals(1, sessions.size());
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> sessions.create(GameServer.serverConfig(5, 5), 1));
+            assertTrue(sessions.remove(id));
+            assertNull(sessions.withSession(id, GameSession::state));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("A removed session's id never reaches the next game given the same store id.")
+    void testStaleIdAfterReuse() throws IOException {
+        GameConfig config = GameServer.serverConfig(4, 4);
+        try (PackedGameStore store = PackedGameStore.allocate(config, 4);
+             SessionManager sessions = new SessionManager(60_000, 10, store)) {
+            long stale = sessions.create(config, 1).getId();
+            assertTrue(sessions.remove(stale));
+
+            GameSession next = sessions.create(config, 2);
+            assertEquals(1, store.size(), "The store id was reused.");
+            assertNotEquals(stale, next.getId());
+            assertNull(sessions.get(stale));
+            assertNull(sessions.withSession(stale, s -> s.move(Direction.LEFT)));
+            assertFalse(sessions.remove(stale));
+
+            // nor once the next game is parked
+            assertEquals(1, sessions.evictIdle(System.nanoTime() + 61_000_000_000L));
+            assertNull(sessions.get(stale));
+            assertFalse(sessions.remove(stale));
+            assertNotNull(sessions.get(next.getId()));
+            assertEquals(1, store.size());
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String find(Pattern pattern, String json) {
+        Matcher m = pattern.matcher(json);
+        assertTrue(m.find(), json);
+        return m.group(1);
+    }
+}
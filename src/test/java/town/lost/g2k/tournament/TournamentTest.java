@@ -0,0 +1,155 @@
+package town.lost.g2k.tournament;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Tests playing strategies against shared seeds, the paired statistics and resuming from the results file.
+ */
+class TournamentTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameConfig config() {
+        return TestGames.config(3, 3, 2048, false);
+    }
+
+    private static long[] seeds(int from, int to) {
+        long[] seeds = new long[to - from + 1];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = from + i;
+        }
+        return seeds;
+    }
+
+    private static Map<String, Supplier<MoveStrategy>> strategies(String... names) {
+        Map<String, Supplier<MoveStrategy>> strategies = new LinkedHashMap<>();
+        for (String name : names) {
+            strategies.put(name, Strategies.named(name));
+        }
+        return strategies;
+    }
+
+    @Test
+    @DisplayName("A strategy entered twice plays identical games, so every paired difference is zero.")
+    void testSameSeedsSameGames() throws IOException, InterruptedException {
+        Map<String, Supplier<MoveStrategy>> strategies = new LinkedHashMap<>();
+        strategies.put("corner", Strategies::corner);
+        strategies.put("again", Strategies::corner);
+        strategies.put("random", Strategies::random);
+        Path results = dir.resolve("results.csv");
+
+        TournamentReport report = new Tournament(config(), strategies, seeds(1, 40)).run(results, 3);
+        assertEquals(120, report.getGamesPlayed());
+        assertEquals(0, report.getGamesResumed());
+        assertTrue(report.getMovesPlayed() > 0);
+        assertEquals(2 + 120, Files.readAllLines(results).size());
+
+        TournamentReport.Comparison same = report.getComparisons().get(0);
+        assertEquals("corner", same.first);
+        assertEquals("again", same.second);
+        assertEquals(40, same.seeds);
+        assertEquals(0.0, same.meanScoreDifference);
+        assertEquals(0.0, same.scoreMargin);
+        assertEquals(0.0, same.winRateDifference);
+        assertEquals(3, report.getComparisons().size());
+
+        TournamentReport.Standing corner = report.getStandings().get(0);
+        GameBoard board = Tournament.play(Strategies.corner(), new GameBoard(config(), 7L));
+        assertEquals(40, corner.games);
+        assertTrue(corner.meanScore > 0);
+        assertTrue(board.isGameOver());
+        assertTrue(Files.readAllLines(results).contains("corner,7," + board.getScore() + "," + board.getMoveCount()
+                + "," + board.getMaxTile() + "," + board.getStatus()));
+    }
+
+    @Test
+    @DisplayName("Paired differences and their confidence intervals are computed seed by seed.")
+    void testPairedStatistics() throws IOException, InterruptedException {
+        Map<String, Supplier<MoveStrategy>> strategies = new LinkedHashMap<>();
+        strategies.put("a", () -> {
+            throw new AssertionError("every game is already in the results");
+        });
+        strategies.put("b", strategies.get("a"));
+        Tournament tournament = new Tournament(config(), strategies, seeds(1, 3));
+        Path results = dir.resolve("results.csv");
+        List<String> lines = Arrays.asList(tournament.describeRules(), Tournament.COLUMNS,
+                "a,1,10,5,8,WON", "a,2,20,6,8,LOST", "a,3,30,7,16,WON",
+                "b,1,5,5,4,LOST", "b,2,20,6,8,LOST", "b,3,10,7,8,WON",
+                "c,1,1000,5,4,LOST", "b,4,1000,5,4,LOST");
+        Files.write(results, lines);
+
+        TournamentReport report = tournament.run(results, 1);
+        assertEquals(6, report.getGamesResumed());
+        assertEquals(0, report.getGamesPlayed());
+        assertEquals(20.0, report.getStandings().get(0).meanScore, 1e-9);
+        assertEquals(2.0 / 3, report.getStandings().get(0).winRate, 1e-9);
+
+        // differences 5, 0, 20 and wins 1, 0, 0
+        TournamentReport.Comparison comparison = report.getComparisons().get(0);
+        assertEquals(3, comparison.seeds);
+        assertEquals(25.0 / 3, comparison.meanScoreDifference, 1e-9);
+        assertEquals(1.959964 * Math.sqrt(325.0 / 3 / 3), comparison.scoreMargin, 1e-6);
+        assertEquals(1.0 / 3, comparison.winRateDifference, 1e-9);
+        assertEquals(1.959964 * Math.sqrt(1.0 / 3 / 3), comparison.winRateMargin, 1e-6);
+    }
+
+    @Test
+    @DisplayName("A stopped tournament resumes from its results file and ends as if it had never stopped.")
+    void testResumes() throws IOException, InterruptedException {
+        Path results = dir.resolve("results.csv");
+        new Tournament(config(), strategies("corner", "greedy"), seeds(1, 10)).run(results, 2);
+        // a run stopped while writing a line
+        Files.write(results, "greedy,11,4".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        TournamentReport resumed = new Tournament(config(), strategies("corner", "greedy"), seeds(1, 20))
+                .run(results, 2);
+        assertEquals(20, resumed.getGamesResumed());
+        assertEquals(20, resumed.getGamesPlayed());
+
+        TournamentReport fresh = new Tournament(config(), strategies("corner", "greedy"), seeds(1, 20))
+                .run(dir.resolve("fresh.csv"), 2);
+        assertEquals(40, fresh.getGamesPlayed());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(fresh.getStandings().get(i).meanScore, resumed.getStandings().get(i).meanScore);
+            assertEquals(fresh.getStandings().get(i).winRate, resumed.getStandings().get(i).winRate);
+        }
+        assertEquals(fresh.getComparisons().get(0).meanScoreDifference,
+                resumed.getComparisons().get(0).meanScoreDifference);
+
+        TournamentReport again = new Tournament(config(), strategies("corner", "greedy"), seeds(1, 20))
+                .run(results, 2);
+        assertEquals(40, again.getGamesResumed());
+        assertEquals(0, again.getGamesPlayed());
+    }
+
+    @Test
+    @DisplayName("Results for other rules, repeated seeds and unknown strategies are refused.")
+    void testRejects() throws IOException, InterruptedException {
+        Path results = dir.resolve("results.csv");
+        new Tournament(config(), strategies("corner"), seeds(1, 2)).run(results, 1);
+        GameConfig bigger = config();
+        bigger.setBoardSize(4, 4);
+        assertThrows(IOException.class, () -> new Tournament(bigger, strategies("corner"), seeds(1, 2)).run(results, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(config(), strategies("corner"), new long[]{1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> Strategies.named("clever"));
+    }
+}
@@ -0,0 +1,108 @@
+package town.lost.g2k.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import town.lost.g2k.controller.GameController;
+import town.lost.g2k.model.Direction;
+import town.lost.g2k.model.GameBoard;
+import town.lost.g2k.model.GameConfig;
+import town.lost.g2k.model.TestGames;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Tests the console view's rendering and batch mode.
+ */
+class ConsoleGameViewTest {
+
+    private static GameConfig config(int xSize, int ySize) {
+        return TestGames.config(xSize, ySize, 2048, true);
+    }
+
+    @Test
+    @DisplayName("Batch mode applies every command, prints every Nth board and the final result.")
+    void testBatch() throws IOException {
+        GameConfig config = config(4, 4);
+        GameBoard model = new GameBoard(config, 21L);
+        GameController controller = new GameController(model, config);
+        StringWriter out = new StringWriter();
+        ConsoleGameView view = new ConsoleGameView(controller, model, new StringReader(""), out);
+        controller.setView(view);
+
+        GameBoard expected = new GameBoard(config(4, 4), 21L);
+        String moves = "wasd\nWASD  ddss\nQwwww";
+        for (char ch : "wasdwasdddss".toCharArray()) {
+            expected.move(ch == 'w' ? Direction.UP : ch == 'a' ? Direction.LEFT
+                    : ch == 's' ? Direction.DOWN : Direction.RIGHT);
+            if (expected.isGameOver()) {
+                break;
+            }
+        }
+
+        assertEquals(12, view.playBatch(new StringReader(moves), 5));
+        assertArrayEquals(expected.getBoard(), model.getBoard());
+        String text = out.toString();
+        assertTrue(text.contains("After 5 commands"));
+        assertTrue(text.contains("After 10 commands"));
+        assertFalse(text.contains("After 15 commands"));
+        assertTrue(text.contains("Final board after 12 commands:"));
+        assertTrue(text.contains("Score: " + expected.getScore()));
+        assertEquals(1, text.split("Score:", -1).length - 1, "Per-move refreshes print nothing");
+    }
+
+    @Test
+    @DisplayName("The interactive loop plays each line, then ends cleanly when the input runs out.")
+    void testInteractiveEndOfInput() {
+        GameConfig config = config(4, 4);
+        GameBoard model = new GameBoard(config, 5L);
+        GameController controller = new GameController(model, config);
+        StringWriter out = new StringWriter();
+        ConsoleGameView view = new ConsoleGameView(controller, model, new StringReader("4\na\nd\n"), out);
+        controller.setView(view);
+        controller.startGame();
+
+        int captures = 0;
+        while (!view.isInputEnded() && captures < 10) {
+            view.captureUserMove();
+            captures++;
+        }
+        // the rest of the size line, "a", "d", then the end of the input
+        assertEquals(4, captures);
+        assertTrue(view.isInputEnded());
+        assertTrue(out.toString().contains("End of input"));
+        view.captureUserMove();
+        assertEquals(1, out.toString().split("End of input", -1).length - 1, "Nothing is read after the end.");
+
+        GameBoard noInput = new GameBoard(config, 5L);
+        GameController noInputController = new GameController(noInput, config);
+        ConsoleGameView noInputView = new ConsoleGameView(noInputController, noInput, new StringReader(""),
+                new StringWriter());
+        noInputController.setView(noInputView);
+        noInputController.startGame();
+        assertTrue(noInputView.isInputEnded());
+    }
+
+    @Test
+    @DisplayName("Non-square boards render every column and row.")
+    void testRenderNonSquare() {
+        GameConfig config = config(5, 3);
+        GameBoard model = new GameBoard(config, 1L);
+        StringWriter out = new StringWriter();
+        ConsoleGameView view = new ConsoleGameView(new GameController(model, config), model, new StringReader(""), out);
+        view.renderBoard(new int[][]{
+                {2, 0, 0, 0, 4},
+                {0, 0, 0, 0, 0},
+                {0, 0, 8, 0, 2048}
+        });
+        view.displayGameStatus(model.getStatus());
+        String[] lines = out.toString().split("\n");
+        assertEquals("+-----+-----+-----+-----+-----+", lines[0]);
+        assertEquals("|    2|     |     |     |    4|", lines[1]);
+        assertEquals("|     |     |    8|     | 2048|", lines[5]);
+        assertEquals("+-----+-----+-----+-----+-----+", lines[6]);
+    }
+}
@@ -0,0 +1,58 @@
+package town.lost.g2k.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the rolling tick and paint statistics used by AnimationManager.
+ */
+class FrameStatsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    @DisplayName("On-time ticks give ~60 fps with no late or dropped frames.")
+    void testOnTime() {
+        FrameStats stats = new FrameStats(16 * MS);
+        for (int i = 1; i <= 10; i++) {
+            stats.recordTick(i * 16 * MS, 3);
+        }
+        assertEquals(16.0, stats.getAverageIntervalMs(), 0.001);
+        assertEquals(62.5, stats.getFramesPerSecond(), 0.001);
+        assertEquals(0, stats.getLateFrames());
+        assertEquals(0, stats.getDroppedFrames());
+        assertEquals(3, stats.getActiveAnimations());
+    }
+
+    @Test
+    @DisplayName("A 64 ms gap is one late frame with three frames dropped.")
+    void testLateAndDropped() {
+        FrameStats stats = new FrameStats(16 * MS);
+        stats.recordTick(16 * MS, 1);
+        stats.recordTick(80 * MS, 1);
+        assertEquals(1, stats.getLateFrames());
+        assertEquals(3, stats.getDroppedFrames());
+        assertEquals(64.0, stats.getMaxIntervalMs(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Restarting the timer does not count the idle gap, and paints roll over the window.")
+    void testRestartAndPaintWindow() {
+        FrameStats stats = new FrameStats(16 * MS);
+        stats.recordTick(16 * MS, 1);
+        stats.restart();
+        stats.recordTick(10_000 * MS, 1);
+        assertEquals(0, stats.getLateFrames());
+
+        for (int i = 0; i < FrameStats.WINDOW; i++) {
+            stats.recordPaint(5 * MS);
+        }
+        for (int i = 0; i < FrameStats.WINDOW; i++) {
+            stats.recordPaint(MS);
+        }
+        assertEquals(1.0, stats.getAveragePaintMs(), 0.001);
+        assertEquals(1.0, stats.getMaxPaintMs(), 0.001);
+    }
+}